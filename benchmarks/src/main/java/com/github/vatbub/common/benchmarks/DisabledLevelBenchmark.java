@@ -0,0 +1,85 @@
+package com.github.vatbub.common.benchmarks;
+
+/*-
+ * #%L
+ * FOKProjects Common Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import com.github.vatbub.common.core.Common;
+import com.github.vatbub.common.core.logging.FOKLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Measures what a log call costs when its level is disabled. All of these should stay within a few nanoseconds and
+ * must not allocate (check with {@code -prof gc}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DisabledLevelBenchmark {
+    private static final String CLASS_NAME = DisabledLevelBenchmark.class.getName();
+    private String param1 = "param1";
+    private String param2 = "param2";
+
+    @Setup
+    public void setUp() {
+        Common.getInstance().setAppName("CommonLibraryBenchmarks");
+        FOKLogger.setConsoleLogLevel(Level.INFO);
+        FOKLogger.setFileLogLevel(Level.INFO);
+        // initialize the handlers
+        FOKLogger.info(CLASS_NAME, "Benchmark set up");
+    }
+
+    @TearDown
+    public void tearDown() {
+        FOKLogger.resetAllLoggers();
+    }
+
+    @Benchmark
+    public boolean isLoggable() {
+        return FOKLogger.isLoggable(Level.FINE);
+    }
+
+    @Benchmark
+    public void disabledConstantMessage() {
+        FOKLogger.fine(CLASS_NAME, "A constant message");
+    }
+
+    @Benchmark
+    public void disabledOneParameter() {
+        FOKLogger.fine(CLASS_NAME, "A message with {0}", param1);
+    }
+
+    @Benchmark
+    public void disabledTwoParameters() {
+        FOKLogger.fine(CLASS_NAME, "A message with {0} and {1}", param1, param2);
+    }
+
+    @Benchmark
+    public void disabledConcatenation() {
+        // what callers did before the parameterized overloads existed, for comparison
+        FOKLogger.fine(CLASS_NAME, "A message with " + param1 + " and " + param2);
+    }
+}
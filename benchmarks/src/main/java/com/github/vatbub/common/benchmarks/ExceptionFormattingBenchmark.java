@@ -0,0 +1,74 @@
+package com.github.vatbub.common.benchmarks;
+
+/*-
+ * #%L
+ * FOKProjects Common Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import com.github.vatbub.common.core.logging.OneLineFormatter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Measures how expensive it is to format a record with an exception (and a cause) using {@link OneLineFormatter}, which
+ * is what the console handler does for every logged exception. Run with {@code -prof gc} to see the allocation rate.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExceptionFormattingBenchmark {
+    private final OneLineFormatter formatter = new OneLineFormatter();
+    private final StringBuilder reusedBuilder = new StringBuilder();
+    private LogRecord recordWithException;
+    private LogRecord recordWithoutException;
+
+    @Setup
+    public void setUp() {
+        recordWithException = new LogRecord(Level.SEVERE, "An error occurred");
+        recordWithException.setThrown(new IllegalStateException("Outer", new IOException("Connection refused")));
+        recordWithoutException = new LogRecord(Level.INFO, "A message with {0} and {1}");
+        recordWithoutException.setParameters(new Object[]{"param1", "param2"});
+    }
+
+    @Benchmark
+    public String formatWithException() {
+        return formatter.format(recordWithException);
+    }
+
+    @Benchmark
+    public int formatWithExceptionIntoReusedBuilder() {
+        reusedBuilder.setLength(0);
+        formatter.format(recordWithException, reusedBuilder);
+        return reusedBuilder.length();
+    }
+
+    @Benchmark
+    public int formatWithoutExceptionIntoReusedBuilder() {
+        reusedBuilder.setLength(0);
+        formatter.format(recordWithoutException, reusedBuilder);
+        return reusedBuilder.length();
+    }
+}
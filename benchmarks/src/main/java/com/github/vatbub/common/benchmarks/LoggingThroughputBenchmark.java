@@ -0,0 +1,115 @@
+package com.github.vatbub.common.benchmarks;
+
+/*-
+ * #%L
+ * FOKProjects Common Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import com.github.vatbub.common.core.Common;
+import com.github.vatbub.common.core.logging.FOKLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Measures the throughput and latency of enabled log calls with the handlers set up by
+ * {@link FOKLogger#initLogHandlers()}, once on a single thread and once with four threads logging concurrently.
+ * The console output is discarded, so the benchmark measures formatting and encoding rather than the terminal.<br>
+ * <br>
+ * Run with {@code java -jar target/benchmarks.jar LoggingThroughputBenchmark -prof gc} to see the allocation rate.
+ * The sample time mode reports the p99 latency.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingThroughputBenchmark {
+    private static final String CLASS_NAME = LoggingThroughputBenchmark.class.getName();
+    private final IOException exception = new IOException("Connection refused");
+    private final String param1 = "param1";
+    private final String param2 = "param2";
+    /**
+     * {@code console}: Only the console handler accepts records. {@code fileAndConsole}: Records are written into the
+     * log file and to the console. {@code asyncFileAndConsole}: Like {@code fileAndConsole}, but the file is written by
+     * an {@link com.github.vatbub.common.core.logging.AsyncHandler}.
+     */
+    @Param({"console", "fileAndConsole", "asyncFileAndConsole"})
+    private String handlers;
+
+    @Setup
+    public void setUp() {
+        // not restored in tearDown as the console handler may still write buffered records later, the fork ends anyway
+        PrintStream discardingStream = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(discardingStream);
+        System.setErr(discardingStream);
+
+        if (handlers.equals("asyncFileAndConsole"))
+            FOKLogger.enableAsyncFileLogging();
+        Common.getInstance().setAppName("CommonLibraryBenchmarks");
+        FOKLogger.setConsoleLogLevel(Level.INFO);
+        // initialize the handlers
+        FOKLogger.info(CLASS_NAME, "Benchmark set up");
+        FOKLogger.setFileLogLevel(handlers.equals("console") ? Level.OFF : Level.INFO);
+    }
+
+    @TearDown
+    public void tearDown() {
+        FOKLogger.resetAllLoggers();
+        FOKLogger.disableAsyncFileLogging();
+    }
+
+    @Benchmark
+    public void infoConstantMessage() {
+        FOKLogger.info(CLASS_NAME, "A constant message");
+    }
+
+    @Benchmark
+    public void infoTwoParameters() {
+        FOKLogger.info(CLASS_NAME, "A message with {0} and {1}", param1, param2);
+    }
+
+    @Benchmark
+    public void severeWithException() {
+        FOKLogger.log(CLASS_NAME, Level.SEVERE, FOKLogger.DEFAULT_ERROR_TEXT, exception);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void infoConstantMessageContended() {
+        FOKLogger.info(CLASS_NAME, "A constant message");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void infoTwoParametersContended() {
+        FOKLogger.info(CLASS_NAME, "A message with {0} and {1}", param1, param2);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void disabledLevelContended() {
+        FOKLogger.fine(CLASS_NAME, "A constant message");
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import com.github.vatbub.common.core.logging.FOKLogger;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * The change listeners of a {@link Config} or {@link Prefs}. Every listener can be restricted to a set of keys and
+ * is notified on its own executor.
+ *
+ * @param <L> The type of the listeners
+ * @param <E> The type of the events
+ */
+final class ChangeListeners<L, E> {
+    /**
+     * Runs listeners on the thread that changed the values
+     */
+    static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+    private final List<Registration<L>> registrations = new CopyOnWriteArrayList<>();
+    private final BiConsumer<L, E> notifier;
+    private final String ownerClassName;
+
+    /**
+     * @param notifier       Passes an event to a listener
+     * @param ownerClassName The name of the class whose changes are published, used for logging
+     */
+    ChangeListeners(BiConsumer<L, E> notifier, String ownerClassName) {
+        this.notifier = notifier;
+        this.ownerClassName = ownerClassName;
+    }
+
+    void add(L listener, Executor executor, Collection<String> keys) {
+        Objects.requireNonNull(listener, "listener must not be null");
+        Objects.requireNonNull(executor, "executor must not be null");
+        Set<String> keySet = keys == null || keys.isEmpty() ? null : Collections.unmodifiableSet(new HashSet<>(keys));
+        registrations.add(new Registration<>(listener, executor, keySet));
+    }
+
+    /**
+     * Removes all registrations of the specified listener.
+     */
+    void remove(L listener) {
+        registrations.removeIf(registration -> registration.listener == listener);
+    }
+
+    boolean isEmpty() {
+        return registrations.isEmpty();
+    }
+
+    /**
+     * Notifies every listener that is interested in at least one of the changed keys.
+     *
+     * @param changedKeys  The keys that changed
+     * @param eventFactory Creates the event for the changed keys a listener is interested in
+     */
+    void fire(Set<String> changedKeys, Function<Set<String>, E> eventFactory) {
+        if (changedKeys.isEmpty())
+            return;
+
+        E eventForAllKeys = null;
+        for (Registration<L> registration : registrations) {
+            E event;
+            if (registration.keys == null) {
+                if (eventForAllKeys == null)
+                    eventForAllKeys = eventFactory.apply(changedKeys);
+                event = eventForAllKeys;
+            } else {
+                Set<String> relevantKeys = new HashSet<>(changedKeys);
+                relevantKeys.retainAll(registration.keys);
+                if (relevantKeys.isEmpty())
+                    continue;
+                event = eventFactory.apply(Collections.unmodifiableSet(relevantKeys));
+            }
+
+            try {
+                registration.executor.execute(() -> notify(registration.listener, event));
+            } catch (RejectedExecutionException e) {
+                FOKLogger.log(ownerClassName, Level.SEVERE, "Unable to notify a change listener", e);
+            }
+        }
+    }
+
+    private void notify(L listener, E event) {
+        try {
+            notifier.accept(listener, event);
+        } catch (RuntimeException e) {
+            FOKLogger.log(ownerClassName, Level.SEVERE, "A change listener failed", e);
+        }
+    }
+
+    private static final class Registration<L> {
+        private final L listener;
+        private final Executor executor;
+        private final Set<String> keys;
+
+        private Registration(L listener, Executor executor, Set<String> keys) {
+            this.listener = listener;
+            this.executor = executor;
+            this.keys = keys;
+        }
+    }
+}
@@ -107,8 +107,8 @@ public class CommonComputerImpl extends CommonPlatformIndependentImplementations
         ComputerSystem computerSystem = hardwareAbstractionLayer.getComputerSystem();
 
         FOKLogger.info(getClass().getName(), "Calculating the device identifier based on the following info:");
-        FOKLogger.info(getClass().getName(), "OS Family: " + operatingSystem.getFamily());
-        FOKLogger.info(getClass().getName(), "OS Version: " + operatingSystem.getVersionInfo().getVersion());
+        FOKLogger.info(getClass().getName(), "OS Family: {0}", operatingSystem.getFamily());
+        FOKLogger.info(getClass().getName(), "OS Version: {0}", operatingSystem.getVersionInfo().getVersion());
 
         hasher.putString(operatingSystem.getFamily(), Charset.forName("UTF-8"));
         hasher.putString(operatingSystem.getVersionInfo().getVersion(), Charset.forName("UTF-8"));
@@ -118,21 +118,21 @@ public class CommonComputerImpl extends CommonPlatformIndependentImplementations
         List<UsbDevice> usbDevices = hardwareAbstractionLayer.getUsbDevices(false);
         for (HWDiskStore store : hardwareAbstractionLayer.getDiskStores()) {
             if (store.getSerial() != null && !store.getSerial().equals("unknown") && !isRemovableDrive(store, usbDevices)) {
-                FOKLogger.info(getClass().getName(), "Drive index: " + hddCounter);
-                FOKLogger.info(getClass().getName(), "Drive model: " + store.getModel());
-                FOKLogger.info(getClass().getName(), "Drive serial: " + store.getSerial());
+                FOKLogger.info(getClass().getName(), "Drive index: {0}", hddCounter);
+                FOKLogger.info(getClass().getName(), "Drive model: {0}", store.getModel());
+                FOKLogger.info(getClass().getName(), "Drive serial: {0}", store.getSerial());
                 hasher.putString(store.getSerial(), Charset.forName("UTF-8"));
             }
             hddCounter++;
         }
 
         FOKLogger.info(getClass().getName(), "CPU info: ");
-        FOKLogger.info(getClass().getName(), "CPU core count: " + centralProcessor.getLogicalProcessorCount());
+        FOKLogger.info(getClass().getName(), "CPU core count: {0}", centralProcessor.getLogicalProcessorCount());
 
         hasher.putInt(centralProcessor.getLogicalProcessorCount());
 
         FOKLogger.info(getClass().getName(), "computer system info: ");
-        FOKLogger.info(getClass().getName(), "CS serial number: " + computerSystem.getSerialNumber());
+        FOKLogger.info(getClass().getName(), "CS serial number: {0}", computerSystem.getSerialNumber());
 
         if (computerSystem.getSerialNumber() != null && !computerSystem.getSerialNumber().equals("") && !computerSystem.getSerialNumber().equalsIgnoreCase("unknown")) {
             hasher.putString(computerSystem.getSerialNumber(), Charset.forName("UTF-8"));
@@ -144,13 +144,14 @@ public class CommonComputerImpl extends CommonPlatformIndependentImplementations
     @Override
     public boolean isRemovableDrive(HWDiskStore store, List<UsbDevice> usbDevices, double jaccardSimilarityThreshold) {
         try {
+            JaccardSimilarity jaccardSimilarity = SingletonMap.getInstance(JaccardSimilarity.class);
             for (UsbDevice device : usbDevices) {
                 // check if one contains the other
                 if (store.getModel().equalsIgnoreCase(device.getName()) || store.getModel().contains(device.getName()) || device.getName().contains(store.getModel())) {
                     return true;
                 }
 
-                if (SingletonMap.getInstance(JaccardSimilarity.class).apply(store.getModel(), device.getName()) > jaccardSimilarityThreshold) {
+                if (jaccardSimilarity.apply(store.getModel(), device.getName()) > jaccardSimilarityThreshold) {
                     return true;
                 }
             }
@@ -92,6 +92,7 @@ public abstract class CommonPlatformIndependentImplementations extends Common {
             throw new IllegalArgumentException("The supplied app name must not be empty");
 
         this.appName = appName;
+        FOKLogger.appNameChanged();
     }
 
     @Override
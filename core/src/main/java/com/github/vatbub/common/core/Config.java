@@ -24,17 +24,51 @@ package com.github.vatbub.common.core;
 import com.github.vatbub.common.core.logging.FOKLogger;
 
 import java.io.*;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLConnection;
+import java.time.Duration;
+import java.util.*;
 import java.util.Map.Entry;
-import java.util.Properties;
+import java.util.concurrent.*;
 import java.util.logging.Level;
 
+/**
+ * Reads configuration values from an ordered list of {@link ConfigLayer layers}. By default, a config consists of the
+ * fallback config or offline cache and the remote config on top of it. Further layers like system properties or
+ * environment variables can be added using {@link #addLayer(ConfigLayer)} and {@link #addFallbackLayer(ConfigLayer)}.
+ * The values of all layers are merged into a {@link ConfigSnapshot} whenever a layer changes, so reading a value is a
+ * single hash lookup.
+ */
 @SuppressWarnings("WeakerAccess")
 public class Config {
+    private static final ScheduledExecutorService refreshScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ConfigRefresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * The connect and read timeout of the remote config unless a refresh interval or startup deadline calls for another
+     * one. Without a timeout, a server that does not respond blocks the thread that loads the config forever.
+     */
+    private static final long DEFAULT_REMOTE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
 
     private final Properties onlineProps = new Properties();
     private final Properties offlineProps = new Properties();
+    private final List<ConfigLayer> layers = new CopyOnWriteArrayList<>();
     private volatile ConfigSource currentlyActiveSource;
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+    private final Object remoteConfigLock = new Object();
+    private volatile CompletableFuture<Config> remoteConfigFuture = CompletableFuture.completedFuture(this);
+    private final ChangeListeners<ConfigChangeListener, ConfigChangeEvent> changeListeners = new ChangeListeners<>(ConfigChangeListener::configChanged, Config.class.getName());
+    private URL remoteConfig;
+    private boolean cacheRemoteConfig;
+    private String cacheFileName;
+    private byte[] remoteConfigContent;
+    private String remoteConfigETag;
+    private long remoteConfigLastModified;
+    private volatile PeriodicRefresh periodicRefresh;
+    private long startupDeadlineMillis;
     private boolean offlineMode;
 
     /**
@@ -45,7 +79,19 @@ public class Config {
      * @throws IOException If the specified file does not exist or cannot be read.
      */
     public Config(URL configFile) throws IOException {
+        addDefaultLayers();
         this.readConfigFromFile(configFile);
+        publishSnapshot();
+    }
+
+    /**
+     * Creates a new {@code Config}-instance that consists of the specified layers only.
+     *
+     * @param layers The layers of the config, ordered from the lowest to the highest precedence
+     */
+    public Config(List<ConfigLayer> layers) {
+        this.layers.addAll(layers);
+        publishSnapshot();
     }
 
     /**
@@ -150,6 +196,10 @@ public class Config {
     public Config(URL remoteConfig, URL fallbackConfig, boolean cacheRemoteConfig, String cacheFileName,
                   boolean readAsynchronously, boolean offlineMode) throws IOException {
         setOfflineMode(offlineMode);
+        addDefaultLayers();
+        this.remoteConfig = remoteConfig;
+        this.cacheRemoteConfig = cacheRemoteConfig;
+        this.cacheFileName = cacheFileName;
         if (readAsynchronously) {
             this.readRemoteConfigAsynchronous(remoteConfig, fallbackConfig, cacheRemoteConfig, cacheFileName);
         } else {
@@ -157,6 +207,61 @@ public class Config {
         }
     }
 
+    /**
+     * Creates a new {@code Config}-instance and reads the remote config and the cached config or fallbackConfig in
+     * parallel. The constructor returns as soon as the remote config was loaded, but not later than
+     * {@code startupDeadline}. If the remote config is not available by then, the cached config or fallbackConfig is used
+     * and the remote config is published once it arrives, use {@link #getRemoteConfigFuture()} to wait for it.
+     * Registered {@link ConfigChangeListener}s are notified when that happens. The remote config is given at least
+     * {@code startupDeadline} to connect and to send data before loading it is abandoned.
+     *
+     * @param remoteConfig      The {@code URL} of the remote config to be read.
+     * @param fallbackConfig    The config file to be read in case the {@code remoteConfig}
+     *                          cannot be downloaded and no cached version is available.
+     * @param cacheRemoteConfig If {@code true}, the remote config will be cached once
+     *                          downloaded for offline use.
+     * @param cacheFileName     The file name of the offline cache. Only taken into account if
+     *                          {@code cacheRemoteConfig==true}
+     * @param startupDeadline   The maximum time to wait for the remote config
+     * @throws IOException If the cached config or fallbackConfig cannot be read and the remote config was not loaded
+     *                     within the deadline.
+     */
+    public Config(URL remoteConfig, URL fallbackConfig, boolean cacheRemoteConfig, String cacheFileName,
+                  Duration startupDeadline) throws IOException {
+        long deadline = System.nanoTime() + startupDeadline.toNanos();
+        this.startupDeadlineMillis = startupDeadline.toMillis();
+        addDefaultLayers();
+        this.remoteConfig = remoteConfig;
+        this.cacheRemoteConfig = cacheRemoteConfig;
+        this.cacheFileName = cacheFileName;
+        loadRemoteConfigInBackground();
+
+        IOException localConfigException = null;
+        try {
+            checkForOfflineCacheOrLoadFallback(fallbackConfig, cacheFileName);
+        } catch (IOException e) {
+            localConfigException = e;
+        }
+
+        try {
+            remoteConfigFuture.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            FOKLogger.info(Config.class.getName(), "The remote config was not loaded within {0}, using the {1} config until it arrives.", startupDeadline, getCurrentlyActiveSource());
+        } catch (ExecutionException e) {
+            // already logged by the loading thread
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (localConfigException != null && getCurrentlyActiveSource() != ConfigSource.ONLINE)
+            throw localConfigException;
+    }
+
+    private void addDefaultLayers() {
+        layers.add(ConfigLayer.of("offline", offlineProps));
+        layers.add(ConfigLayer.of("online", onlineProps));
+    }
+
     /**
      * Imports the specified {@code *.properties}-file
      *
@@ -165,9 +270,12 @@ public class Config {
      */
     private void readConfigFromFile(URL file) throws IOException {
         FOKLogger.info(Config.class.getName(), "Reading config from local file...");
-        InputStream inputStream = file.openStream();
-        offlineProps.load(inputStream);
-        inputStream.close();
+        Properties props = new Properties();
+        try (InputStream inputStream = file.openStream()) {
+            props.load(inputStream);
+        }
+        // the remote config might be published concurrently, so the values must not become visible while loading
+        offlineProps.putAll(props);
     }
 
     /**
@@ -193,54 +301,195 @@ public class Config {
 
     private void getRemoteConfig(URL remoteConfig, boolean cacheRemoteConfig, String cacheFileName) throws IOException {
         FOKLogger.info(Config.class.getName(), "Trying to read remote config...");
-        onlineProps.load(remoteConfig.openStream());
-        setCurrentlyActiveSource(ConfigSource.ONLINE);
+        loadRemoteConfig(remoteConfig, cacheRemoteConfig, cacheFileName);
         FOKLogger.info(Config.class.getName(), "Import of remote config successful.");
+    }
 
-        if (cacheRemoteConfig) {
-            // Update the offline cache
-            FOKLogger.info(Config.class.getName(), "Caching remote config for offline use...");
-            File f = new File(Common.getInstance().getAndCreateAppDataPath() + cacheFileName);
-            if (!f.getParentFile().exists() && !f.getParentFile().mkdirs())
-                throw new IllegalStateException("Unable to create the folders for the cached config");
-            FileOutputStream out = new FileOutputStream(f);
-            onlineProps.store(out, "Config of app " + Common.getInstance().getAppName());
-            out.close();
+    /**
+     * Downloads the remote config and publishes its values. The download is conditional if the server sent an
+     * {@code ETag} or {@code Last-Modified} header the last time, so an unchanged config only costs a
+     * {@code 304 Not Modified}. Servers that ignore conditional requests are handled by comparing the content with the
+     * last download. The values are only parsed and the offline cache is only rewritten if the content changed.
+     * The connection times out as specified by {@link #getRemoteTimeoutMillis()}.
+     *
+     * @return {@code true} if the content of the remote config changed
+     * @throws IOException If the remote config cannot be downloaded
+     */
+    private boolean loadRemoteConfig(URL remoteConfig, boolean cacheRemoteConfig, String cacheFileName) throws IOException {
+        // not synchronized on this, so reading the local config is not blocked by a slow server
+        synchronized (remoteConfigLock) {
+            URLConnection connection = remoteConfig.openConnection();
+            int timeout = getRemoteTimeoutMillis();
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+            if (remoteConfigETag != null)
+                connection.setRequestProperty("If-None-Match", remoteConfigETag);
+            if (remoteConfigLastModified > 0)
+                connection.setIfModifiedSince(remoteConfigLastModified);
+            if (connection instanceof HttpURLConnection && ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED)
+                return false;
+
+            byte[] content;
+            try (InputStream inputStream = connection.getInputStream()) {
+                content = inputStream.readAllBytes();
+            }
+            remoteConfigETag = connection.getHeaderField("ETag");
+            remoteConfigLastModified = connection.getLastModified();
+            if (Arrays.equals(content, remoteConfigContent))
+                return false;
+
+            Properties newProps = new Properties();
+            newProps.load(new ByteArrayInputStream(content));
+            remoteConfigContent = content;
+            synchronized (this) {
+                onlineProps.clear();
+                onlineProps.putAll(newProps);
+                setCurrentlyActiveSource(ConfigSource.ONLINE);
+            }
+
+            if (cacheRemoteConfig) {
+                // Update the offline cache, the downloaded content is a valid properties file already
+                File f = new File(Common.getInstance().getAndCreateAppDataPath() + cacheFileName);
+                if (FileCommon.writeAtomicallyIfChanged(f.toPath(), content))
+                    FOKLogger.info(Config.class.getName(), "Cached remote config for offline use.");
+            }
+            return true;
         }
     }
 
+    /**
+     * A refresh must not take longer than its interval as it would delay the following refreshes of all configs, which
+     * share one thread. A startup deadline that is longer than the default extends the timeout as the caller is willing
+     * to wait that long.
+     *
+     * @return The connect and read timeout of the remote config, never {@code 0} as that means no timeout
+     */
+    private int getRemoteTimeoutMillis() {
+        long res = Math.max(DEFAULT_REMOTE_TIMEOUT_MILLIS, startupDeadlineMillis);
+        PeriodicRefresh currentPeriodicRefresh = periodicRefresh;
+        if (currentPeriodicRefresh != null)
+            res = Math.min(res, currentPeriodicRefresh.intervalMillis);
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, res));
+    }
+
+    /**
+     * Downloads the remote config again and publishes the new values if it changed. Registered
+     * {@link ConfigChangeListener}s are notified about the keys that changed. Does nothing in offline mode.
+     *
+     * @return {@code true} if the remote config changed
+     * @throws IOException           If the remote config cannot be downloaded. The current values are kept in that case.
+     * @throws IllegalStateException If this config was not created with a remote config
+     */
+    public boolean refresh() throws IOException {
+        if (remoteConfig == null)
+            throw new IllegalStateException("This config has no remote config to refresh");
+        if (isOfflineMode())
+            return false;
+        return loadRemoteConfig(remoteConfig, cacheRemoteConfig, cacheFileName);
+    }
+
+    /**
+     * @return {@code true} if the remote config is refreshed periodically
+     * @see #enablePeriodicRefresh(Duration, Duration)
+     */
+    public boolean isPeriodicRefreshEnabled() {
+        return periodicRefresh != null;
+    }
+
+    /**
+     * Refreshes the remote config periodically in the background, see {@link #refresh()}. A random delay of up to
+     * {@code jitter} is added to every interval so that many clients do not hit the server at the same time. Failed
+     * refreshes are logged and retried in the next interval. A refresh times out if the server does not respond within
+     * {@code interval}.
+     *
+     * @param interval The time between two refreshes
+     * @param jitter   The maximum random delay to add to every interval, may be {@link Duration#ZERO}
+     * @throws IllegalStateException If this config was not created with a remote config
+     */
+    public synchronized void enablePeriodicRefresh(Duration interval, Duration jitter) {
+        if (remoteConfig == null)
+            throw new IllegalStateException("This config has no remote config to refresh");
+        if (interval.isNegative() || interval.isZero())
+            throw new IllegalArgumentException("interval must be positive");
+        if (jitter.isNegative())
+            throw new IllegalArgumentException("jitter must not be negative");
+
+        disablePeriodicRefresh();
+        periodicRefresh = new PeriodicRefresh(interval.toMillis(), jitter.toMillis());
+        periodicRefresh.scheduleNext();
+    }
+
+    /**
+     * Stops refreshing the remote config periodically. A refresh that is currently running is completed.
+     */
+    public synchronized void disablePeriodicRefresh() {
+        if (periodicRefresh == null)
+            return;
+        periodicRefresh.cancel();
+        periodicRefresh = null;
+    }
+
     private void checkForOfflineCacheOrLoadFallback(URL fallbackConfig, String cacheFileName)
             throws IOException {
         File cacheFile = new File(Common.getInstance().getAndCreateAppDataPath() + cacheFileName);
         if (cacheFile.exists()) {
             FOKLogger.info(Config.class.getName(), "Reading cached config...");
             this.readConfigFromFile(cacheFile.toURI().toURL());
-            setCurrentlyActiveSource(ConfigSource.CACHE);
+            publishLocalConfig(ConfigSource.CACHE);
         } else {
             FOKLogger.info(Config.class.getName(), "Reading fallbackConfig...");
             this.readConfigFromFile(fallbackConfig);
-            setCurrentlyActiveSource(ConfigSource.OFFLINE);
+            publishLocalConfig(ConfigSource.OFFLINE);
         }
     }
 
+    private synchronized void publishLocalConfig(ConfigSource source) {
+        // the remote config might have been loaded in the meantime and stays the active source in that case
+        if (currentlyActiveSource == ConfigSource.ONLINE)
+            publishSnapshot();
+        else
+            setCurrentlyActiveSource(source);
+    }
+
     private void readRemoteConfigAsynchronous(URL remoteConfig, URL fallbackConfig, boolean cacheRemoteConfig,
                                               String cacheFileName) throws IOException {
         // Read offline cache or fallback first
         checkForOfflineCacheOrLoadFallback(fallbackConfig, cacheFileName);
 
-        if (!isOfflineMode()) {
+        if (!isOfflineMode())
             // Now load the remote config in a new Thread
-            Thread loadConfigThread = new Thread(() -> {
-                try {
-                    getRemoteConfig(remoteConfig, cacheRemoteConfig, cacheFileName);
-                } catch (IOException e) {
-                    FOKLogger.log(Config.class.getName(), Level.SEVERE, FOKLogger.DEFAULT_ERROR_TEXT, e);
-                }
-            });
-
-            loadConfigThread.setName("loadConfigThread");
-            loadConfigThread.start();
-        }
+            loadRemoteConfigInBackground();
+    }
+
+    private void loadRemoteConfigInBackground() {
+        CompletableFuture<Config> future = new CompletableFuture<>();
+        remoteConfigFuture = future;
+        Thread loadConfigThread = new Thread(() -> {
+            try {
+                getRemoteConfig(remoteConfig, cacheRemoteConfig, cacheFileName);
+                future.complete(this);
+            } catch (IOException | RuntimeException e) {
+                FOKLogger.log(Config.class.getName(), Level.SEVERE, FOKLogger.DEFAULT_ERROR_TEXT, e);
+                future.completeExceptionally(e);
+            }
+        });
+
+        loadConfigThread.setName("loadConfigThread");
+        // a server that does not respond must not keep the application alive
+        loadConfigThread.setDaemon(true);
+        loadConfigThread.start();
+    }
+
+    /**
+     * Returns a future that completes with this config once the remote config that is loaded in the background was
+     * published, see {@link #Config(URL, URL, boolean, String, Duration)}. The future completes exceptionally if the
+     * remote config cannot be loaded. If this config does not load a remote config in the background, the future is
+     * already completed.
+     *
+     * @return A future for loading the remote config
+     */
+    public CompletableFuture<Config> getRemoteConfigFuture() {
+        return remoteConfigFuture;
     }
 
     /**
@@ -262,7 +511,7 @@ public class Config {
      * {@code false} otherwise.
      */
     public boolean contains(String key) {
-        return onlineProps.getProperty(key) != null || offlineProps.getProperty(key) != null;
+        return snapshot.contains(key);
     }
 
     /**
@@ -271,16 +520,78 @@ public class Config {
      * the value from the remote config will be returned. If the value is <i>only</i> defined
      * in the fallback config but <i>not</i> in the remote config, the local fallback value will
      * be returned. (I. e. the remote and fallback config are merged and the remote config is given priority).
+     * In general, the value of the highest {@link ConfigLayer} that defines the key is returned.
      *
      * @param key The key of the config parameter.
      * @return the config value for the specified key or {@code null} if the key
      * was not found.
      */
     public String getValue(String key) {
-        if (onlineProps.containsKey(key))
-            return onlineProps.getProperty(key);
-        else
-            return offlineProps.getProperty(key);
+        return snapshot.getValue(key);
+    }
+
+    /**
+     * @param key          The key of the config parameter.
+     * @param defaultValue The value to return if the key was not found
+     * @return The config value for the specified key parsed as an int
+     * @throws IllegalArgumentException If the value is not a valid int
+     * @see ConfigSnapshot#getInt(String, int)
+     */
+    public int getInt(String key, int defaultValue) {
+        return snapshot.getInt(key, defaultValue);
+    }
+
+    /**
+     * @param key          The key of the config parameter.
+     * @param defaultValue The value to return if the key was not found
+     * @return The config value for the specified key parsed as a long
+     * @throws IllegalArgumentException If the value is not a valid long
+     * @see ConfigSnapshot#getLong(String, long)
+     */
+    public long getLong(String key, long defaultValue) {
+        return snapshot.getLong(key, defaultValue);
+    }
+
+    /**
+     * @param key          The key of the config parameter.
+     * @param defaultValue The value to return if the key was not found
+     * @return The config value for the specified key parsed as a boolean
+     * @throws IllegalArgumentException If the value is neither {@code true} nor {@code false}
+     * @see ConfigSnapshot#getBoolean(String, boolean)
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return snapshot.getBoolean(key, defaultValue);
+    }
+
+    /**
+     * @param key          The key of the config parameter.
+     * @param defaultValue The value to return if the key was not found
+     * @return The config value for the specified key parsed as a duration
+     * @throws IllegalArgumentException If the value is not a valid duration
+     * @see ConfigSnapshot#getDuration(String, Duration)
+     */
+    public Duration getDuration(String key, Duration defaultValue) {
+        return snapshot.getDuration(key, defaultValue);
+    }
+
+    /**
+     * @param key The key of the config parameter.
+     * @return The comma separated elements of the config value for the specified key or an empty list if the key was
+     * not found
+     * @see ConfigSnapshot#getList(String)
+     */
+    public List<String> getList(String key) {
+        return snapshot.getList(key);
+    }
+
+    /**
+     * Returns the merged values of this config as they are right now. The snapshot does not change when the config is
+     * reloaded, so use it to read several values that need to be consistent with each other.
+     *
+     * @return The current snapshot of this config
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
     }
 
     public boolean isOfflineMode() {
@@ -291,16 +602,64 @@ public class Config {
         this.offlineMode = offlineMode;
     }
 
+    /**
+     * Adds a layer on top of all existing layers, so its values override the values of all other layers, e. g. to
+     * override values using {@link ConfigLayer#systemProperties(String) system properties}.
+     *
+     * @param layer The layer to add
+     */
+    public synchronized void addLayer(ConfigLayer layer) {
+        layers.add(layer);
+        publishSnapshot();
+    }
+
+    /**
+     * Adds a layer below all existing layers, so its values are only used if no other layer defines the same key, e. g.
+     * to provide default values.
+     *
+     * @param layer The layer to add
+     */
+    public synchronized void addFallbackLayer(ConfigLayer layer) {
+        layers.add(0, layer);
+        publishSnapshot();
+    }
+
+    /**
+     * Removes the specified layer.
+     *
+     * @param layer The layer to remove
+     * @return {@code true} if the layer was part of this config
+     */
+    public synchronized boolean removeLayer(ConfigLayer layer) {
+        if (!layers.remove(layer))
+            return false;
+        publishSnapshot();
+        return true;
+    }
+
+    /**
+     * @return The layers of this config, ordered from the lowest to the highest precedence
+     */
+    public List<ConfigLayer> getLayers() {
+        return Collections.unmodifiableList(layers);
+    }
+
+    /**
+     * Reads the values of all layers again and publishes them. Call this after the values of a layer changed.
+     * Registered {@link ConfigChangeListener}s are notified about the keys that changed.
+     */
+    public void reloadLayers() {
+        publishSnapshot();
+    }
+
     @Override
     public String toString() {
         StringBuilder res = new StringBuilder();
 
-        for (Entry<Object, Object> e : onlineProps.entrySet()) {
-            res.append(e.getKey().toString()).append("=").append(e.getValue()).append("\n");
-        }
-
-        for (Entry<Object, Object> e : offlineProps.entrySet()) {
-            res.append(e.getKey().toString()).append("=").append(e.getValue()).append("\n");
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            for (Entry<String, String> e : layers.get(i).getValues().entrySet()) {
+                res.append(e.getKey()).append("=").append(e.getValue()).append("\n");
+            }
         }
 
         return res.toString();
@@ -312,6 +671,101 @@ public class Config {
 
     private void setCurrentlyActiveSource(ConfigSource currentlyActiveSource) {
         this.currentlyActiveSource = currentlyActiveSource;
+        publishSnapshot();
+    }
+
+    /**
+     * Merges the values of all layers into a new snapshot and replaces the current snapshot with it.
+     */
+    private synchronized void publishSnapshot() {
+        ConfigSnapshot oldSnapshot = snapshot;
+        ConfigSnapshot newSnapshot = ConfigSnapshot.merge(layers, currentlyActiveSource);
+        snapshot = newSnapshot;
+
+        if (changeListeners.isEmpty())
+            return;
+        Set<String> changedKeys = oldSnapshot.getChangedKeys(newSnapshot);
+        changeListeners.fire(changedKeys, keys -> new ConfigChangeEvent(this, oldSnapshot, newSnapshot, keys));
+    }
+
+    /**
+     * Registers a listener that is notified whenever values of this config change, e. g. because the remote config was
+     * refreshed. The listener is called on the thread that loaded the new values.
+     *
+     * @param listener The listener to add
+     */
+    public void addChangeListener(ConfigChangeListener listener) {
+        addChangeListener(listener, ChangeListeners.DIRECT_EXECUTOR);
+    }
+
+    /**
+     * Registers a listener that is notified on the specified executor whenever values of this config change.
+     *
+     * @param listener The listener to add
+     * @param executor The executor to notify the listener on
+     */
+    public void addChangeListener(ConfigChangeListener listener, Executor executor) {
+        changeListeners.add(listener, executor, null);
+    }
+
+    /**
+     * Registers a listener that is only notified if at least one of the specified keys changes. The event only contains
+     * the specified keys, even if other keys changed too.
+     *
+     * @param listener The listener to add
+     * @param executor The executor to notify the listener on
+     * @param keys     The keys the listener is interested in
+     */
+    public void addChangeListener(ConfigChangeListener listener, Executor executor, String... keys) {
+        changeListeners.add(listener, executor, Arrays.asList(keys));
+    }
+
+    /**
+     * Removes the specified listener no matter how often and with which keys it was added.
+     *
+     * @param listener The listener to remove
+     */
+    public void removeChangeListener(ConfigChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private class PeriodicRefresh implements Runnable {
+        private final long intervalMillis;
+        private final long jitterMillis;
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> nextRun;
+
+        PeriodicRefresh(long intervalMillis, long jitterMillis) {
+            this.intervalMillis = intervalMillis;
+            this.jitterMillis = jitterMillis;
+        }
+
+        void scheduleNext() {
+            if (cancelled)
+                return;
+            long delay = intervalMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+            nextRun = refreshScheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+        }
+
+        void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> future = nextRun;
+            if (future != null)
+                future.cancel(false);
+        }
+
+        @Override
+        public void run() {
+            if (cancelled)
+                return;
+            try {
+                if (refresh())
+                    FOKLogger.info(Config.class.getName(), "The remote config changed and was reloaded.");
+            } catch (IOException | RuntimeException e) {
+                FOKLogger.log(Config.class.getName(), Level.WARNING, "Unable to refresh the remote config, keeping the current values", e);
+            }
+            scheduleNext();
+        }
     }
 
     public enum ConfigSource {
@@ -0,0 +1,77 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.Set;
+
+/**
+ * Describes a change of the values of a {@link Config}.
+ */
+public class ConfigChangeEvent {
+    private final Config config;
+    private final ConfigSnapshot oldSnapshot;
+    private final ConfigSnapshot newSnapshot;
+    private final Set<String> changedKeys;
+
+    ConfigChangeEvent(Config config, ConfigSnapshot oldSnapshot, ConfigSnapshot newSnapshot, Set<String> changedKeys) {
+        this.config = config;
+        this.oldSnapshot = oldSnapshot;
+        this.newSnapshot = newSnapshot;
+        this.changedKeys = changedKeys;
+    }
+
+    /**
+     * @return The config whose values changed
+     */
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * @return The values before the change
+     */
+    public ConfigSnapshot getOldSnapshot() {
+        return oldSnapshot;
+    }
+
+    /**
+     * @return The values after the change
+     */
+    public ConfigSnapshot getNewSnapshot() {
+        return newSnapshot;
+    }
+
+    /**
+     * @return The keys that were added, removed or whose value changed as an unmodifiable set
+     */
+    public Set<String> getChangedKeys() {
+        return changedKeys;
+    }
+
+    /**
+     * @param key The key to check
+     * @return {@code true} if the specified key was added, removed or its value changed
+     */
+    public boolean hasChanged(String key) {
+        return changedKeys.contains(key);
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+/**
+ * Is notified when the values of a {@link Config} change, see {@link Config#addChangeListener(ConfigChangeListener)}.
+ */
+@FunctionalInterface
+public interface ConfigChangeListener {
+    /**
+     * Called after the new values were published, i. e. {@link Config#getValue(String)} already returns the new values.
+     * Only called if at least one value changed.
+     *
+     * @param event Describes which keys changed
+     */
+    void configChanged(ConfigChangeEvent event);
+}
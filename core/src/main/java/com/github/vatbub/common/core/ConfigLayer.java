@@ -0,0 +1,145 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import java.util.*;
+
+/**
+ * Provides values to a {@link Config}. A config consists of an ordered list of layers and a value of a layer overrides
+ * the values of the same key in all layers below it, see {@link Config#addLayer(ConfigLayer)}.<br>
+ * <br>
+ * The config merges the values of all layers into one index, so {@link #getValues()} is only called when the config is
+ * (re)loaded and may be expensive. If the values of a layer change, call {@link Config#reloadLayers()} to rebuild the
+ * index.
+ */
+public interface ConfigLayer {
+    /**
+     * Creates a layer with fixed values.
+     *
+     * @param name   The name of the layer
+     * @param values The values of the layer. Copied, so later changes to the map do not affect the layer.
+     * @return A layer that always provides the specified values
+     */
+    static ConfigLayer of(String name, Map<String, String> values) {
+        Map<String, String> copy = Collections.unmodifiableMap(new HashMap<>(values));
+        return new ConfigLayer() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Map<String, String> getValues() {
+                return copy;
+            }
+        };
+    }
+
+    /**
+     * Creates a layer that provides the values of a properties object. The properties are read whenever the config is
+     * reloaded.
+     *
+     * @param name       The name of the layer
+     * @param properties The properties to provide
+     * @return A layer that provides the current values of the specified properties
+     */
+    static ConfigLayer of(String name, Properties properties) {
+        return new ConfigLayer() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Map<String, String> getValues() {
+                Map<String, String> res = new HashMap<>();
+                for (String key : properties.stringPropertyNames())
+                    res.put(key, properties.getProperty(key));
+                return res;
+            }
+        };
+    }
+
+    /**
+     * Creates a layer that provides all system properties that start with the specified prefix. The prefix is removed
+     * from the keys, e. g. with the prefix {@code myApp.}, the system property {@code myApp.timeout} overrides the key
+     * {@code timeout}.
+     *
+     * @param prefix The prefix of the system properties to provide
+     * @return A layer that provides the matching system properties
+     */
+    static ConfigLayer systemProperties(String prefix) {
+        return new ConfigLayer() {
+            @Override
+            public String getName() {
+                return "systemProperties";
+            }
+
+            @Override
+            public Map<String, String> getValues() {
+                Map<String, String> res = new HashMap<>();
+                Properties properties = System.getProperties();
+                for (String key : properties.stringPropertyNames())
+                    if (key.startsWith(prefix))
+                        res.put(key.substring(prefix.length()), properties.getProperty(key));
+                return res;
+            }
+        };
+    }
+
+    /**
+     * Creates a layer that provides all environment variables that start with the specified prefix. The prefix is
+     * removed from the names and every {@code _} is replaced by a {@code .}, e. g. with the prefix {@code MYAPP_}, the
+     * environment variable {@code MYAPP_server_port} overrides the key {@code server.port}.
+     *
+     * @param prefix The prefix of the environment variables to provide
+     * @return A layer that provides the matching environment variables
+     */
+    static ConfigLayer environment(String prefix) {
+        return new ConfigLayer() {
+            @Override
+            public String getName() {
+                return "environment";
+            }
+
+            @Override
+            public Map<String, String> getValues() {
+                Map<String, String> res = new HashMap<>();
+                for (Map.Entry<String, String> entry : System.getenv().entrySet())
+                    if (entry.getKey().startsWith(prefix))
+                        res.put(entry.getKey().substring(prefix.length()).replace('_', '.'), entry.getValue());
+                return res;
+            }
+        };
+    }
+
+    /**
+     * @return The name of this layer, used for logging
+     */
+    String getName();
+
+    /**
+     * @return The keys and values this layer provides right now
+     */
+    Map<String, String> getValues();
+}
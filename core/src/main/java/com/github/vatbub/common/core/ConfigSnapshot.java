@@ -0,0 +1,272 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * An immutable view of the merged values of a {@link Config} at one point in time. Values of higher
+ * {@link ConfigLayer layers} take precedence, e. g. the remote config overrides the fallback config or cache. All layers
+ * are merged into one map, so looking a value up costs the same no matter how many layers there are. A new snapshot is built whenever the config is (re)loaded, so
+ * reading a value never takes a lock.<br>
+ * <br>
+ * The typed accessors parse a value only the first time it is requested and cache the result in the snapshot.
+ */
+public final class ConfigSnapshot {
+    /**
+     * A snapshot without any values
+     */
+    public static final ConfigSnapshot EMPTY = new ConfigSnapshot(Collections.emptyMap(), null);
+
+    private final Map<String, String> values;
+    private final Config.ConfigSource source;
+    private final Map<String, Integer> intValues = new ConcurrentHashMap<>();
+    private final Map<String, Long> longValues = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> booleanValues = new ConcurrentHashMap<>();
+    private final Map<String, Duration> durationValues = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> listValues = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param values The values of the snapshot. Copied, so later changes to the map do not affect the snapshot.
+     * @param source The source the values were loaded from, may be {@code null}
+     */
+    public ConfigSnapshot(Map<String, String> values, Config.ConfigSource source) {
+        this.values = Collections.unmodifiableMap(new HashMap<>(values));
+        this.source = source;
+    }
+
+    private ConfigSnapshot(Config.ConfigSource source, Map<String, String> values) {
+        this.values = Collections.unmodifiableMap(values);
+        this.source = source;
+    }
+
+    /**
+     * Merges the values of the specified layers into a snapshot. Values of later layers take precedence.
+     *
+     * @param layers The layers to merge, ordered from the lowest to the highest precedence
+     * @param source The source the values were loaded from, may be {@code null}
+     * @return A snapshot that contains the value of the highest layer for every key
+     */
+    static ConfigSnapshot merge(List<ConfigLayer> layers, Config.ConfigSource source) {
+        List<Map<String, String>> layerValues = new ArrayList<>(layers.size());
+        int size = 0;
+        for (ConfigLayer layer : layers) {
+            Map<String, String> values = layer.getValues();
+            layerValues.add(values);
+            size += values.size();
+        }
+
+        Map<String, String> merged = new HashMap<>((int) (size / 0.75f) + 1);
+        for (Map<String, String> values : layerValues)
+            merged.putAll(values);
+        return new ConfigSnapshot(source, merged);
+    }
+
+    /**
+     * @return The source the values of this snapshot were loaded from or {@code null} if unknown
+     */
+    public Config.ConfigSource getSource() {
+        return source;
+    }
+
+    /**
+     * @return All keys and values of this snapshot as an unmodifiable map
+     */
+    public Map<String, String> asMap() {
+        return values;
+    }
+
+    /**
+     * @param key The key to check
+     * @return {@code true} if a value is defined for the specified key
+     */
+    public boolean contains(String key) {
+        return values.containsKey(key);
+    }
+
+    /**
+     * @param key The key of the value
+     * @return The value of the specified key or {@code null} if the key is not defined
+     */
+    public String getValue(String key) {
+        return values.get(key);
+    }
+
+    /**
+     * @param key          The key of the value
+     * @param defaultValue The value to return if the key is not defined
+     * @return The value of the specified key parsed as an int or {@code defaultValue} if the key is not defined
+     * @throws IllegalArgumentException If the value is not a valid int
+     */
+    public int getInt(String key, int defaultValue) {
+        Integer res = getParsed(key, intValues, value -> Integer.valueOf(value.trim()));
+        return res == null ? defaultValue : res;
+    }
+
+    /**
+     * @param key          The key of the value
+     * @param defaultValue The value to return if the key is not defined
+     * @return The value of the specified key parsed as a long or {@code defaultValue} if the key is not defined
+     * @throws IllegalArgumentException If the value is not a valid long
+     */
+    public long getLong(String key, long defaultValue) {
+        Long res = getParsed(key, longValues, value -> Long.valueOf(value.trim()));
+        return res == null ? defaultValue : res;
+    }
+
+    /**
+     * @param key          The key of the value
+     * @param defaultValue The value to return if the key is not defined
+     * @return The value of the specified key parsed as a boolean or {@code defaultValue} if the key is not defined
+     * @throws IllegalArgumentException If the value is neither {@code true} nor {@code false} (ignoring case)
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Boolean res = getParsed(key, booleanValues, ConfigSnapshot::parseBoolean);
+        return res == null ? defaultValue : res;
+    }
+
+    /**
+     * Returns the value of the specified key as a duration. The value may either be an ISO-8601 duration like
+     * {@code PT30S} or a number followed by one of the units {@code ms}, {@code s}, {@code m}, {@code h} or {@code d},
+     * e. g. {@code 500ms} or {@code 5m}. A number without a unit is interpreted as milliseconds.
+     *
+     * @param key          The key of the value
+     * @param defaultValue The value to return if the key is not defined
+     * @return The value of the specified key parsed as a duration or {@code defaultValue} if the key is not defined
+     * @throws IllegalArgumentException If the value is not a valid duration
+     */
+    public Duration getDuration(String key, Duration defaultValue) {
+        Duration res = getParsed(key, durationValues, ConfigSnapshot::parseDuration);
+        return res == null ? defaultValue : res;
+    }
+
+    /**
+     * Returns the value of the specified key as a list. The value is split at commas and every element is trimmed, empty
+     * elements are omitted.
+     *
+     * @param key The key of the value
+     * @return The elements of the value as an unmodifiable list or an empty list if the key is not defined
+     */
+    public List<String> getList(String key) {
+        List<String> res = getParsed(key, listValues, ConfigSnapshot::parseList);
+        return res == null ? Collections.emptyList() : res;
+    }
+
+    private <T> T getParsed(String key, Map<String, T> cache, Function<String, T> parser) {
+        T res = cache.get(key);
+        if (res != null)
+            return res;
+
+        String value = values.get(key);
+        if (value == null)
+            return null;
+        try {
+            res = parser.apply(value);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("The value of the config key " + key + " is invalid: " + value, e);
+        }
+        cache.put(key, res);
+        return res;
+    }
+
+    private static Boolean parseBoolean(String value) {
+        String trimmed = value.trim();
+        if (trimmed.equalsIgnoreCase("true"))
+            return Boolean.TRUE;
+        if (trimmed.equalsIgnoreCase("false"))
+            return Boolean.FALSE;
+        throw new IllegalArgumentException("Not a boolean: " + value);
+    }
+
+    private static Duration parseDuration(String value) {
+        String trimmed = value.trim();
+        if (trimmed.startsWith("P") || trimmed.startsWith("-P"))
+            return Duration.parse(trimmed);
+
+        int unitStart = trimmed.length();
+        while (unitStart > 0 && Character.isLetter(trimmed.charAt(unitStart - 1)))
+            unitStart--;
+        long amount = Long.parseLong(trimmed.substring(0, unitStart).trim());
+        String unit = trimmed.substring(unitStart).toLowerCase(Locale.ROOT);
+        switch (unit) {
+            case "":
+            case "ms":
+                return Duration.ofMillis(amount);
+            case "s":
+                return Duration.ofSeconds(amount);
+            case "m":
+                return Duration.ofMinutes(amount);
+            case "h":
+                return Duration.ofHours(amount);
+            case "d":
+                return Duration.ofDays(amount);
+            default:
+                throw new IllegalArgumentException("Unknown duration unit: " + unit);
+        }
+    }
+
+    private static List<String> parseList(String value) {
+        List<String> res = new ArrayList<>();
+        for (String element : value.split(",")) {
+            String trimmed = element.trim();
+            if (!trimmed.isEmpty())
+                res.add(trimmed);
+        }
+        return Collections.unmodifiableList(res);
+    }
+
+    /**
+     * Compares this snapshot with the specified one.
+     *
+     * @param other The snapshot to compare this snapshot with
+     * @return The keys that are only defined in one of the snapshots or have different values as an unmodifiable set
+     */
+    public Set<String> getChangedKeys(ConfigSnapshot other) {
+        if (other == this)
+            return Collections.emptySet();
+
+        Set<String> res = new HashSet<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (!entry.getValue().equals(other.values.get(entry.getKey())))
+                res.add(entry.getKey());
+        }
+        for (String key : other.values.keySet()) {
+            if (!values.containsKey(key))
+                res.add(key);
+        }
+        return Collections.unmodifiableSet(res);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder res = new StringBuilder();
+        for (Map.Entry<String, String> e : values.entrySet())
+            res.append(e.getKey()).append("=").append(e.getValue()).append("\n");
+        return res.toString();
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Helpers to write files crash-safely.
+ */
+public class FileCommon {
+    private FileCommon() {
+        throw new IllegalStateException("Class may not be instantiated");
+    }
+
+    /**
+     * Writes the specified content into the specified file so that the file either contains its old or its new content,
+     * even if the jvm or the machine crashes while writing. The content is written into a temporary file next to the
+     * target which is synced to the disk and then atomically renamed to the target.
+     *
+     * @param target  The file to write
+     * @param content The new content of the file
+     * @throws IOException If the file cannot be written. The target is left untouched in that case.
+     */
+    public static void writeAtomically(Path target, byte[] content) throws IOException {
+        writeAtomically(target, out -> out.write(content));
+    }
+
+    /**
+     * Same as {@link #writeAtomically(Path, byte[])} but only writes the file if its content differs from the specified
+     * content. Saves the write and the sync if nothing changed.
+     *
+     * @param target  The file to write
+     * @param content The new content of the file
+     * @return {@code true} if the file was written, {@code false} if it already had the specified content
+     * @throws IOException If the file cannot be read or written
+     */
+    public static boolean writeAtomicallyIfChanged(Path target, byte[] content) throws IOException {
+        if (Files.isRegularFile(target) && Files.size(target) == content.length && Arrays.equals(Files.readAllBytes(target), content))
+            return false;
+        writeAtomically(target, content);
+        return true;
+    }
+
+    /**
+     * Same as {@link #writeAtomically(Path, byte[])} but lets the caller stream the content.
+     *
+     * @param target The file to write
+     * @param writer Writes the new content of the file. Must not close the stream.
+     * @throws IOException If the file cannot be written. The target is left untouched in that case.
+     */
+    public static void writeAtomically(Path target, ContentWriter writer) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(tempFile.toFile())) {
+                OutputStream out = new BufferedOutputStream(fileOut);
+                writer.writeTo(out);
+                out.flush();
+                fileOut.getFD().sync();
+            }
+
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        syncDirectory(directory);
+    }
+
+    /**
+     * Syncs the directory entry of a renamed file to the disk. Not supported on every platform, so failures are ignored.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            // e. g. windows does not allow opening directories
+        }
+    }
+
+    /**
+     * Writes the content of a file, see {@link #writeAtomically(Path, ContentWriter)}.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,362 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Stores preferences in a memory-mapped append-only log, see {@link PrefsFormat#MAPPED_LOG}.<br>
+ * <br>
+ * The file starts with {@link #MAGIC} and {@link #VERSION}, followed by one record per change:
+ * The length of the payload and its CRC32 (both 4 byte big endian ints), then the payload consisting of the record type,
+ * the length of the key, the utf-8 encoded key, the length of the value and the utf-8 encoded value.
+ * The length is written last, so a record only becomes visible once it is complete.<br>
+ * <br>
+ * Only the position of the latest value of every key is kept on the heap, values are read from the mapped file when they
+ * are requested. Setting a preference appends a record and updates the index. When the file is opened, the index is
+ * rebuilt by scanning the records, a record with a wrong checksum or length (e. g. written partially during a crash) ends
+ * the log. Once more than half of the log consists of overwritten values, the log is compacted by writing only the
+ * latest values into a new file, which is named like the original file followed by a generation number (e. g.
+ * {@code myPrefs.prefslog.1}) and used from then on. A file is never replaced or truncated while it is mapped as that
+ * fails on windows, older generations are deleted as soon as they are no longer mapped, at the latest when the log is
+ * opened the next time. The file is therefore usually longer than the log, the zeros after the last record end it.
+ */
+class MappedLogPrefsBackend implements PrefsBackend {
+    static final byte[] MAGIC = "FOKPREFS".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte TYPE_PUT = 1;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    /**
+     * Logs smaller than this are never compacted
+     */
+    private static final int MIN_COMPACTION_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final Map<String, Entry> index = new HashMap<>();
+    private long generation;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private long liveBytes;
+    private boolean dirty;
+
+    /**
+     * Opens or creates the specified log and builds the index.
+     *
+     * @param file The log file, compacted generations are stored next to it
+     * @throws IOException If the file cannot be opened or is not a preference log
+     */
+    MappedLogPrefsBackend(Path file) throws IOException {
+        this.file = file;
+        open();
+    }
+
+    private void open() throws IOException {
+        findCurrentGeneration();
+        Path currentFile = getCurrentFile();
+        channel = FileChannel.open(currentFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("The preference log is too large: " + currentFile);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_CAPACITY, size));
+            index.clear();
+            liveBytes = 0;
+
+            if (size == 0) {
+                buffer.put(0, MAGIC);
+                buffer.put(MAGIC.length, (byte) VERSION);
+                writePosition = HEADER_SIZE;
+                dirty = true;
+                return;
+            }
+
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(0, magic);
+            if (!Arrays.equals(magic, MAGIC))
+                throw new IOException("Not a preference log: " + currentFile);
+            if (buffer.get(MAGIC.length) != VERSION)
+                throw new IOException("Unsupported preference log version: " + buffer.get(MAGIC.length));
+            rebuildIndex();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Finds the newest generation of the log and deletes the older ones. Older generations that cannot be deleted, e. g.
+     * because they are still mapped on windows, are deleted the next time the log is opened.
+     */
+    private void findCurrentGeneration() throws IOException {
+        String prefix = file.getFileName() + ".";
+        List<Long> generations = new ArrayList<>();
+        if (Files.exists(file))
+            generations.add(0L);
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream(file.toAbsolutePath().getParent(), path -> path.getFileName().toString().startsWith(prefix))) {
+            for (Path sibling : siblings) {
+                String suffix = sibling.getFileName().toString().substring(prefix.length());
+                if (suffix.matches("\\d{1,18}"))
+                    generations.add(Long.parseLong(suffix));
+            }
+        }
+
+        generation = generations.stream().max(Long::compare).orElse(0L);
+        for (long olderGeneration : generations) {
+            if (olderGeneration == generation)
+                continue;
+            try {
+                Files.deleteIfExists(getGenerationFile(olderGeneration));
+            } catch (IOException e) {
+                // still mapped, deleted the next time the log is opened
+            }
+        }
+    }
+
+    private Path getGenerationFile(long generation) {
+        return generation == 0 ? file : file.resolveSibling(file.getFileName() + "." + generation);
+    }
+
+    /**
+     * @return The file that contains the current generation of the log
+     */
+    synchronized Path getCurrentFile() {
+        return getGenerationFile(generation);
+    }
+
+    private void rebuildIndex() {
+        int position = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while (position <= buffer.capacity() - RECORD_HEADER_SIZE) {
+            int payloadLength = buffer.getInt(position);
+            int payloadStart = position + RECORD_HEADER_SIZE;
+            if (payloadLength <= 0 || payloadLength > buffer.capacity() - payloadStart)
+                break;
+            crc.reset();
+            crc.update(buffer.duplicate().position(payloadStart).limit(payloadStart + payloadLength));
+            if ((int) crc.getValue() != buffer.getInt(position + 4))
+                break;
+
+            if (buffer.get(payloadStart) == TYPE_PUT) {
+                int keyLength = buffer.getInt(payloadStart + 1);
+                byte[] key = new byte[keyLength];
+                buffer.get(payloadStart + 5, key);
+                int valuePosition = payloadStart + 5 + keyLength + 4;
+                int valueLength = buffer.getInt(valuePosition - 4);
+                addToIndex(new String(key, StandardCharsets.UTF_8), new Entry(valuePosition, valueLength, RECORD_HEADER_SIZE + payloadLength));
+            }
+            position = payloadStart + payloadLength;
+        }
+        writePosition = position;
+
+        // clears the remains of a record that was written partially, so that it is not mistaken for a record later
+        for (int i = writePosition; i < buffer.capacity() && i < writePosition + RECORD_HEADER_SIZE; i++)
+            buffer.put(i, (byte) 0);
+    }
+
+    private void addToIndex(String key, Entry entry) {
+        Entry previous = index.put(key, entry);
+        if (previous != null)
+            liveBytes -= previous.recordSize;
+        liveBytes += entry.recordSize;
+    }
+
+    @Override
+    public synchronized String get(String key) {
+        Entry entry = index.get(key);
+        return entry == null ? null : readValue(entry);
+    }
+
+    private String readValue(Entry entry) {
+        byte[] value = new byte[entry.valueLength];
+        buffer.get(entry.valuePosition, value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized String put(String key, String value) {
+        String previousValue = get(key);
+        if (value.equals(previousValue))
+            return previousValue;
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = 1 + 4 + keyBytes.length + 4 + valueBytes.length;
+        int recordSize = RECORD_HEADER_SIZE + payloadLength;
+        try {
+            ensureCapacity(recordSize + RECORD_HEADER_SIZE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to grow the preference log " + file, e);
+        }
+
+        int payloadStart = writePosition + RECORD_HEADER_SIZE;
+        buffer.put(payloadStart, TYPE_PUT);
+        buffer.putInt(payloadStart + 1, keyBytes.length);
+        buffer.put(payloadStart + 5, keyBytes);
+        int valuePosition = payloadStart + 5 + keyBytes.length + 4;
+        buffer.putInt(valuePosition - 4, valueBytes.length);
+        buffer.put(valuePosition, valueBytes);
+        // marks the end of the log in case the next record is written partially
+        buffer.putInt(payloadStart + payloadLength, 0);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(payloadStart).limit(payloadStart + payloadLength));
+        buffer.putInt(writePosition + 4, (int) crc.getValue());
+        buffer.putInt(writePosition, payloadLength);
+
+        addToIndex(key, new Entry(valuePosition, valueBytes.length, recordSize));
+        writePosition += recordSize;
+        dirty = true;
+        return previousValue;
+    }
+
+    private void ensureCapacity(int requiredBytes) throws IOException {
+        long required = (long) writePosition + requiredBytes;
+        if (required <= buffer.capacity())
+            return;
+        if (required > Integer.MAX_VALUE)
+            throw new IOException("The preference log is too large: " + file);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(Integer.MAX_VALUE, Math.max(required, 2L * buffer.capacity())));
+    }
+
+    @Override
+    public synchronized Map<String, String> getAll() {
+        Map<String, String> res = new HashMap<>();
+        for (Map.Entry<String, Entry> entry : index.entrySet())
+            res.put(entry.getKey(), readValue(entry.getValue()));
+        return res;
+    }
+
+    @Override
+    public synchronized Map<String, String> reload() throws IOException {
+        Map<String, String> previousValues = getAll();
+        // another process might have appended records
+        buffer.force();
+        channel.close();
+        open();
+
+        Map<String, String> changes = new HashMap<>();
+        for (Map.Entry<String, Entry> entry : index.entrySet()) {
+            String previousValue = previousValues.remove(entry.getKey());
+            if (!readValue(entry.getValue()).equals(previousValue))
+                changes.put(entry.getKey(), previousValue);
+        }
+        changes.putAll(previousValues);
+        return changes;
+    }
+
+    /**
+     * Forces the appended records to the disk and compacts the log if more than half of it consists of overwritten values.
+     */
+    @Override
+    public synchronized Map<String, String> flush() throws IOException {
+        if (writePosition > MIN_COMPACTION_SIZE && writePosition - HEADER_SIZE > 2 * liveBytes) {
+            compact();
+        } else if (dirty) {
+            buffer.force();
+            dirty = false;
+        }
+        // the log is not shared with other processes, so there are never changes of someone else
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Writes the latest value of every key into the next generation of the log and switches to it.
+     */
+    private void compact() throws IOException {
+        Map<String, String> values = getAll();
+        FileCommon.writeAtomically(getGenerationFile(generation + 1), out -> {
+            DataOutputStream dataOut = new DataOutputStream(out);
+            dataOut.write(MAGIC);
+            dataOut.write(VERSION);
+            CRC32 crc = new CRC32();
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[] valueBytes = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                ByteBuffer payload = ByteBuffer.allocate(1 + 4 + keyBytes.length + 4 + valueBytes.length);
+                payload.put(TYPE_PUT).putInt(keyBytes.length).put(keyBytes).putInt(valueBytes.length).put(valueBytes);
+                crc.reset();
+                crc.update(payload.array());
+                dataOut.writeInt(payload.capacity());
+                dataOut.writeInt((int) crc.getValue());
+                dataOut.write(payload.array());
+            }
+            dataOut.flush();
+        });
+        closeChannel();
+        // picks up the new generation and deletes the old one if it is not mapped anymore
+        open();
+        dirty = false;
+    }
+
+    /**
+     * @return The number of bytes of the log including overwritten values
+     */
+    synchronized int getLogSize() {
+        return writePosition;
+    }
+
+    /**
+     * Closes the channel without truncating the file as it is still mapped until the buffer is garbage collected.
+     */
+    private void closeChannel() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen())
+            return;
+        closeChannel();
+    }
+
+    private static final class Entry {
+        private final int valuePosition;
+        private final int valueLength;
+        private final int recordSize;
+
+        private Entry(int valuePosition, int valueLength, int recordSize) {
+            this.valuePosition = valuePosition;
+            this.valueLength = valueLength;
+            this.recordSize = recordSize;
+        }
+    }
+}
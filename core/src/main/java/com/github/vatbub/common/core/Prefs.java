@@ -24,18 +24,41 @@ package com.github.vatbub.common.core;
 import com.github.vatbub.common.core.logging.FOKLogger;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.Properties;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.Level;
 
 /**
  * A wrapper for {@code java.util.Properties} to save preferences. The preferences are saved in the applications AppData folder, make sure to call {@link Common#setAppName(String)} prior to using this class or else you will get a {@code NullPointerException}
+ * The format of the file can be chosen using {@link PrefsFormat}. Properties files may be shared by multiple processes,
+ * every process only writes the preferences it changed itself.
  */
 public class Prefs {
-    private final Properties props = new Properties();
-    private final File file;
+    private static final ScheduledExecutorService writeBehindScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PrefsWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * The prefs with changes that were not written yet, flushed when the jvm shuts down
+     */
+    private static final Set<Prefs> prefsWithPendingWrites = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (Prefs prefs : prefsWithPendingWrites)
+                prefs.flush();
+        }, "PrefsShutdownFlush"));
+    }
+
+    private final PrefsBackend backend;
+    private final Object saveLock = new Object();
+    private volatile long writeBehindWindowMillis = -1;
+    private ScheduledFuture<?> scheduledSave;
+    private final ChangeListeners<PrefsChangeListener, PrefsChangeEvent> changeListeners = new ChangeListeners<>(PrefsChangeListener::prefsChanged, Prefs.class.getName());
 
     /**
      * Loads or creates the preference file for the specified class
@@ -43,8 +66,34 @@ public class Prefs {
      * @param className The name of the class to load the properties file for
      */
     public Prefs(String className) {
+        this(className, PrefsFormat.PROPERTIES);
+    }
+
+    /**
+     * Loads or creates the preference file for the specified class in the specified format
+     *
+     * @param className The name of the class to load the preference file for
+     * @param format    The format of the preference file
+     * @throws UncheckedIOException If the preference file cannot be opened
+     */
+    public Prefs(String className, PrefsFormat format) {
         // Retrieve the user preference node for the package
-        file = new File(Common.getInstance().getAndCreateAppDataPath() + className + ".properties");
+        File file = new File(Common.getInstance().getAndCreateAppDataPath() + className + format.getFileExtension());
+        try {
+            backend = format.createBackend(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the preference file " + file, e);
+        }
+        reload();
+    }
+
+    /**
+     * Creates preferences that are stored in the specified backend
+     *
+     * @param backend The backend to store the preferences in
+     */
+    public Prefs(PrefsBackend backend) {
+        this.backend = backend;
         reload();
     }
 
@@ -53,17 +102,27 @@ public class Prefs {
      */
     public void reload() {
         try {
-            if (file.exists()) {
-                try(FileReader fileReader = new FileReader(file)) {
-                    props.load(fileReader);
-                }
-            }
-
+            fireChanges(backend.reload());
         } catch (IOException e) {
             FOKLogger.log(Prefs.class.getName(), Level.SEVERE, FOKLogger.DEFAULT_ERROR_TEXT, e);
         }
     }
 
+    /**
+     * @param previousValues The previous values of the keys that changed as reported by the backend
+     */
+    private void fireChanges(Map<String, String> previousValues) {
+        if (previousValues.isEmpty() || changeListeners.isEmpty())
+            return;
+        Map<String, String> newValues = new HashMap<>();
+        for (String key : previousValues.keySet()) {
+            String value = backend.get(key);
+            if (value != null)
+                newValues.put(key, value);
+        }
+        changeListeners.fire(Collections.unmodifiableSet(previousValues.keySet()), keys -> new PrefsChangeEvent(this, keys, previousValues, newValues));
+    }
+
     /**
      * Sets the value of the specified preference in the properties file
      *
@@ -71,8 +130,16 @@ public class Prefs {
      * @param prefValue The value of the preference to save
      */
     public void setPreference(String prefKey, String prefValue) {
-        props.setProperty(prefKey, prefValue);
-        savePreferences();
+        String oldValue = backend.put(prefKey, prefValue);
+        if (isWriteBehindEnabled())
+            scheduleSave();
+        else
+            savePreferences();
+
+        if (!prefValue.equals(oldValue) && !changeListeners.isEmpty()) {
+            Map<String, String> oldValues = oldValue == null ? Collections.emptyMap() : Collections.singletonMap(prefKey, oldValue);
+            changeListeners.fire(Collections.singleton(prefKey), keys -> new PrefsChangeEvent(this, keys, oldValues, Collections.singletonMap(prefKey, prefValue)));
+        }
     }
 
     /**
@@ -83,21 +150,130 @@ public class Prefs {
      * @return The value of the specified preference or the {@code defaultValue} if the key was not found
      */
     public String getPreference(String prefKey, String defaultValue) {
-        return props.getProperty(prefKey, defaultValue);
+        String value = backend.get(prefKey);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Registers a listener that is notified whenever preferences change, either through
+     * {@link #setPreference(String, String)} or because {@link #reload()} read different values. The listener is called
+     * on the thread that changed the preferences.
+     *
+     * @param listener The listener to add
+     */
+    public void addChangeListener(PrefsChangeListener listener) {
+        addChangeListener(listener, ChangeListeners.DIRECT_EXECUTOR);
+    }
+
+    /**
+     * Registers a listener that is notified on the specified executor whenever preferences change.
+     *
+     * @param listener The listener to add
+     * @param executor The executor to notify the listener on
+     */
+    public void addChangeListener(PrefsChangeListener listener, Executor executor) {
+        changeListeners.add(listener, executor, null);
+    }
+
+    /**
+     * Registers a listener that is only notified if at least one of the specified preferences changes. The event only
+     * contains the specified keys, even if other preferences changed too.
+     *
+     * @param listener The listener to add
+     * @param executor The executor to notify the listener on
+     * @param keys     The keys of the preferences the listener is interested in
+     */
+    public void addChangeListener(PrefsChangeListener listener, Executor executor, String... keys) {
+        changeListeners.add(listener, executor, Arrays.asList(keys));
+    }
+
+    /**
+     * Removes the specified listener no matter how often and with which keys it was added.
+     *
+     * @param listener The listener to remove
+     */
+    public void removeChangeListener(PrefsChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * @return {@code true} if changes are written to the hard disk in the background
+     * @see #enableWriteBehind(Duration)
+     */
+    public boolean isWriteBehindEnabled() {
+        return writeBehindWindowMillis >= 0;
+    }
+
+    /**
+     * Writes changes to the hard disk in the background instead of rewriting the file on every call of
+     * {@link #setPreference(String, String)}. All changes made within {@code window} after the first change are
+     * written at once. Pending changes are written when {@link #flush()} is called and when the jvm shuts down.
+     *
+     * @param window The time to wait for further changes before the file is written
+     */
+    public void enableWriteBehind(Duration window) {
+        if (window.isNegative())
+            throw new IllegalArgumentException("window must not be negative");
+        writeBehindWindowMillis = window.toMillis();
+    }
+
+    /**
+     * Writes the file on every call of {@link #setPreference(String, String)} again. Pending changes are written
+     * immediately.
+     */
+    public void disableWriteBehind() {
+        writeBehindWindowMillis = -1;
+        flush();
+    }
+
+    private void scheduleSave() {
+        synchronized (saveLock) {
+            if (scheduledSave != null)
+                return;
+            prefsWithPendingWrites.add(this);
+            scheduledSave = writeBehindScheduler.schedule(this::flush, writeBehindWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes pending changes to the hard disk immediately. Does nothing if write-behind is disabled or no changes are
+     * pending.
+     */
+    public void flush() {
+        synchronized (saveLock) {
+            if (scheduledSave == null)
+                return;
+            scheduledSave.cancel(false);
+            scheduledSave = null;
+            prefsWithPendingWrites.remove(this);
+            savePreferences();
+        }
     }
 
     /**
      * Saves the properties file to the hard disk. No need to call this method explicitly as it is already called every time {@link #setPreference(String, String)} is called.
+     * The file is never left half written, see {@link PrefsBackend#flush()}.
      */
     public void savePreferences() {
-        FOKLogger.info(Prefs.class.getName(), "Saving preference file as: " + file.getAbsolutePath());
-        if (!file.getParentFile().exists() && !file.getParentFile().mkdirs())
-            throw new IllegalStateException("Unable to create the folder to save the Prefs in");
+        synchronized (saveLock) {
+            try {
+                // the backend might pick up changes of other processes while merging
+                fireChanges(backend.flush());
+            } catch (IOException e) {
+                FOKLogger.log(Prefs.class.getName(), Level.SEVERE, FOKLogger.DEFAULT_ERROR_TEXT, e);
+            }
+        }
+    }
 
-        try (FileOutputStream out = new FileOutputStream(file)){
-            props.store(out, "This is a preference file of the app " + Common.getInstance().getAppName() + ". If you delete this file, the specified app will be (partly or entirely) reset to its factory settings.");
+    /**
+     * Writes pending changes and releases the preference file. The preferences must not be used afterwards.
+     */
+    public void close() {
+        flush();
+        try {
+            backend.close();
         } catch (IOException e) {
-            e.printStackTrace();
+            FOKLogger.log(Prefs.class.getName(), Level.SEVERE, FOKLogger.DEFAULT_ERROR_TEXT, e);
         }
     }
 }
@@ -0,0 +1,73 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Stores the values of a {@link Prefs}. Changes are kept in memory by {@link #put(String, String)} until
+ * {@link #flush()} persists them. Implementations must be thread safe.
+ *
+ * @see PrefsFormat
+ */
+public interface PrefsBackend extends Closeable {
+    /**
+     * @param key The key of the preference
+     * @return The value of the preference or {@code null} if it is not set
+     */
+    String get(String key);
+
+    /**
+     * Sets the value of a preference. The change is persisted by the next call of {@link #flush()} at the latest.
+     *
+     * @param key   The key of the preference
+     * @param value The new value of the preference
+     * @return The previous value of the preference or {@code null} if it was not set
+     */
+    String put(String key, String value);
+
+    /**
+     * @return A copy of all preferences
+     */
+    Map<String, String> getAll();
+
+    /**
+     * Reads the preferences from the hard disk again.
+     *
+     * @return The previous values of the preferences that changed. Preferences that did not exist before are mapped to
+     * {@code null}.
+     * @throws IOException If the preferences cannot be read
+     */
+    Map<String, String> reload() throws IOException;
+
+    /**
+     * Persists all changes that were made since the last call.
+     *
+     * @return The previous values of the preferences that were changed by someone else in the meantime, e. g. by
+     * another process, in the same form as {@link #reload()}. Changes made using {@link #put(String, String)} are not
+     * included.
+     * @throws IOException If the preferences cannot be written
+     */
+    Map<String, String> flush() throws IOException;
+}
@@ -0,0 +1,84 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Describes a change of the values of a {@link Prefs}.
+ */
+public class PrefsChangeEvent {
+    private final Prefs prefs;
+    private final Set<String> changedKeys;
+    private final Map<String, String> oldValues;
+    private final Map<String, String> newValues;
+
+    /**
+     * @param oldValues The values before the change, must contain at least the changed keys that had a value
+     * @param newValues The values after the change, must contain at least the changed keys that have a value
+     */
+    PrefsChangeEvent(Prefs prefs, Set<String> changedKeys, Map<String, String> oldValues, Map<String, String> newValues) {
+        this.prefs = prefs;
+        this.changedKeys = changedKeys;
+        this.oldValues = oldValues;
+        this.newValues = newValues;
+    }
+
+    /**
+     * @return The preferences that changed
+     */
+    public Prefs getPrefs() {
+        return prefs;
+    }
+
+    /**
+     * @return The keys that were added, removed or whose value changed as an unmodifiable set
+     */
+    public Set<String> getChangedKeys() {
+        return changedKeys;
+    }
+
+    /**
+     * @param key The key to check
+     * @return {@code true} if the specified key was added, removed or its value changed
+     */
+    public boolean hasChanged(String key) {
+        return changedKeys.contains(key);
+    }
+
+    /**
+     * @param key One of the {@link #getChangedKeys() changed keys}
+     * @return The value before the change or {@code null} if the key had no value
+     */
+    public String getOldValue(String key) {
+        return changedKeys.contains(key) ? oldValues.get(key) : null;
+    }
+
+    /**
+     * @param key One of the {@link #getChangedKeys() changed keys}
+     * @return The value after the change or {@code null} if the key has no value anymore
+     */
+    public String getNewValue(String key) {
+        return changedKeys.contains(key) ? newValues.get(key) : null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The formats in which {@link Prefs} can store preferences.
+ */
+public enum PrefsFormat {
+    /**
+     * A {@code java.util.Properties} file that is rewritten entirely on every save. This is the default and can be
+     * edited by hand.
+     */
+    PROPERTIES(".properties") {
+        @Override
+        PrefsBackend createBackend(File file) {
+            return new PropertiesPrefsBackend(file);
+        }
+    },
+    /**
+     * A memory-mapped append-only log, see {@link MappedLogPrefsBackend}. Setting a preference only appends the new
+     * value, so this scales to thousands of preferences and large values.
+     */
+    MAPPED_LOG(".prefslog") {
+        @Override
+        PrefsBackend createBackend(File file) throws IOException {
+            return new MappedLogPrefsBackend(file.toPath());
+        }
+    };
+
+    private final String fileExtension;
+
+    PrefsFormat(String fileExtension) {
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * @return The file extension including the leading dot
+     */
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    abstract PrefsBackend createBackend(File file) throws IOException;
+}
@@ -0,0 +1,227 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import com.github.vatbub.common.core.logging.FOKLogger;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores preferences in a {@code java.util.Properties} file, see {@link PrefsFormat#PROPERTIES}.<br>
+ * <br>
+ * The file may be shared by several processes (e. g. multiple instances of the same app). Reading and writing the file is
+ * coordinated using a {@link FileLock} on a {@code .lock} file next to it. When writing, the file is re-read if another
+ * process changed it and only the keys that were modified locally since the last write are merged into it, so changes of
+ * other processes are not overwritten. The file is only parsed again if its identity, modification time or size changed.
+ */
+class PropertiesPrefsBackend implements PrefsBackend {
+    /**
+     * {@link FileLock}s are held on behalf of the whole JVM, so access of multiple instances within the same JVM to the
+     * same file needs to be serialized separately.
+     */
+    private static final Map<Path, Object> fileMonitors = new ConcurrentHashMap<>();
+    /**
+     * Updated key by key, so concurrent readers never miss a key that exists before and after the file is re-read
+     */
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final Map<String, String> modifiedValues = new HashMap<>();
+    private final File file;
+    private final Path lockFile;
+    private FileState loadedState;
+    private int parseCount;
+
+    PropertiesPrefsBackend(File file) {
+        this.file = file;
+        this.lockFile = new File(file.getPath() + ".lock").toPath();
+    }
+
+    @Override
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    @Override
+    public synchronized String put(String key, String value) {
+        modifiedValues.put(key, value);
+        return values.put(key, value);
+    }
+
+    @Override
+    public Map<String, String> getAll() {
+        return new HashMap<>(values);
+    }
+
+    /**
+     * Reads the file again if it was changed since it was read or written the last time. Values that were modified locally
+     * and not flushed yet are kept.
+     */
+    @Override
+    public synchronized Map<String, String> reload() throws IOException {
+        if (!file.exists() || FileState.of(file.toPath()).equals(loadedState))
+            return Collections.emptyMap();
+
+        synchronized (monitor()) {
+            try (FileChannel lockChannel = openLockChannel(); FileLock ignored = lockChannel.lock(0, Long.MAX_VALUE, true)) {
+                return readIfChanged();
+            }
+        }
+    }
+
+    /**
+     * Merges the locally modified values into the file. The file is written using
+     * {@link FileCommon#writeAtomically(java.nio.file.Path, FileCommon.ContentWriter)}, so it is never left half written.
+     */
+    @Override
+    public synchronized Map<String, String> flush() throws IOException {
+        if (modifiedValues.isEmpty() && file.exists())
+            return Collections.emptyMap();
+
+        FOKLogger.fine(Prefs.class.getName(), "Saving preference file as: {0}", file);
+        if (!file.getParentFile().exists() && !file.getParentFile().mkdirs())
+            throw new IllegalStateException("Unable to create the folder to save the Prefs in");
+
+        synchronized (monitor()) {
+            try (FileChannel lockChannel = openLockChannel(); FileLock ignored = lockChannel.lock()) {
+                Map<String, String> changes = readIfChanged();
+                Properties props = new Properties();
+                props.putAll(values);
+                FileCommon.writeAtomically(file.toPath(), out -> props.store(out, "This is a preference file of the app " + Common.getInstance().getAppName() + ". If you delete this file, the specified app will be (partly or entirely) reset to its factory settings."));
+                loadedState = FileState.of(file.toPath());
+                modifiedValues.clear();
+                return changes;
+            }
+        }
+    }
+
+    /**
+     * Replaces the values with the ones in the file if the file changed. Must be called while holding the lock.
+     *
+     * @return The previous values of the keys that changed, see {@link PrefsBackend#reload()}
+     */
+    private Map<String, String> readIfChanged() throws IOException {
+        FileState state;
+        try {
+            state = FileState.of(file.toPath());
+        } catch (NoSuchFileException e) {
+            return Collections.emptyMap();
+        }
+        if (state.equals(loadedState))
+            return Collections.emptyMap();
+
+        Properties fileProps = new Properties();
+        try (FileReader fileReader = new FileReader(file)) {
+            fileProps.load(fileReader);
+        }
+        parseCount++;
+        Map<String, String> newValues = new HashMap<>();
+        for (String key : fileProps.stringPropertyNames())
+            newValues.put(key, fileProps.getProperty(key));
+        newValues.putAll(modifiedValues);
+
+        Map<String, String> changes = new HashMap<>();
+        for (Map.Entry<String, String> entry : newValues.entrySet()) {
+            String previousValue = values.put(entry.getKey(), entry.getValue());
+            if (!entry.getValue().equals(previousValue))
+                changes.put(entry.getKey(), previousValue);
+        }
+        for (Iterator<Map.Entry<String, String>> iterator = values.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, String> entry = iterator.next();
+            if (!newValues.containsKey(entry.getKey())) {
+                changes.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+        loadedState = state;
+        return changes;
+    }
+
+    private Object monitor() {
+        return fileMonitors.computeIfAbsent(lockFile.toAbsolutePath().normalize(), path -> new Object());
+    }
+
+    private FileChannel openLockChannel() throws IOException {
+        return FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @return The number of times the file was parsed
+     */
+    synchronized int getParseCount() {
+        return parseCount;
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+
+    /**
+     * Identifies a version of the file without reading it. The file key changes when the file is replaced by an atomic
+     * move, the modification time and size cover file systems that do not provide a file key.
+     */
+    private static final class FileState {
+        private final Object fileKey;
+        private final long lastModified;
+        private final long size;
+
+        private FileState(Object fileKey, long lastModified, long size) {
+            this.fileKey = fileKey;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        private static FileState of(Path file) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new FileState(attributes.fileKey(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), attributes.size());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FileState))
+                return false;
+            FileState other = (FileState) o;
+            return lastModified == other.lastModified && size == other.size && Objects.equals(fileKey, other.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileKey, lastModified, size);
+        }
+    }
+}
@@ -21,32 +21,39 @@ package com.github.vatbub.common.core;
  */
 
 
-import java.util.HashMap;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Class that tries to imitate a generic Singleton class. Since a traditional generic singleton class is not possible in Java,
- * this class tries to simplify the process of implementing a Singleton by storing instances in a {@code HashMap}.
+ * this class tries to simplify the process of implementing a Singleton by storing instances in a {@code ConcurrentHashMap}.<br>
+ * <br>
+ * This class is thread safe: Every class is instantiated only once, even if {@link #getInstance(Class)} is called
+ * concurrently. Once an instance exists, retrieving it takes no lock.<br>
+ * <br>
+ * The instances are stored in the {@link #getGlobalScope() global scope}. Use {@link #register(Class, Supplier)} for
+ * classes that cannot be created using a parameterless constructor and {@link #createScope()} for instances that shall
+ * only be visible in a limited context, e. g. a test.
  */
 public class SingletonMap {
-    private static Map<Class, Object> classObjectMap;
+    private static final SingletonScope globalScope = new SingletonScope();
+    private static final Map<Class<?>, MethodHandle> constructors = new ConcurrentHashMap<>();
 
     private SingletonMap() {
         throw new IllegalStateException("Class may not be instantiated");
     }
 
-    private static Map<Class, Object> getOrInstantiateClassObjectMap() {
-        if (classObjectMap == null) {
-            classObjectMap = new HashMap<>();
-        }
-        return classObjectMap;
-    }
-
     /**
      * Resets the instances of all classes by resetting the SingletonMap class itself.
      */
     public static void resetSingletonMap() {
-        classObjectMap = null;
+        globalScope.reset();
     }
 
     /**
@@ -56,11 +63,11 @@ public class SingletonMap {
      * @param clazz The class of which the instance shall be reset.
      */
     public static void resetInstance(Class clazz) {
-        getOrInstantiateClassObjectMap().remove(clazz);
+        globalScope.resetInstance(clazz);
     }
 
     public static <T> boolean isInstantiated(Class<T> clazz) {
-        return getOrInstantiateClassObjectMap().containsKey(clazz);
+        return globalScope.isInstantiated(clazz);
     }
 
     /**
@@ -88,13 +95,84 @@ public class SingletonMap {
      * @throws InstantiationException if this Class represents an abstract class, an interface, an array class, a primitive type, or void; or if the class has no nullary constructor; or if the instantiation fails for some other reason
      */
     public static <T> T getInstance(Class<T> clazz) throws IllegalAccessException, InstantiationException {
-        if (!isInstantiated(clazz)) {
-            T object = clazz.newInstance();
-            getOrInstantiateClassObjectMap().put(clazz, object);
-            return object;
+        return globalScope.getInstance(clazz);
+    }
+
+    /**
+     * Registers a supplier that creates the instance of the specified class in the global scope instead of its
+     * parameterless constructor.
+     *
+     * @param clazz    The class to register the supplier for
+     * @param supplier Creates the instance when it is requested for the first time
+     * @param <T>      The type of the class
+     * @see SingletonScope#register(Class, Supplier)
+     */
+    public static <T> void register(Class<T> clazz, Supplier<? extends T> supplier) {
+        globalScope.register(clazz, supplier);
+    }
+
+    /**
+     * Creates the instances of the specified classes in the background, e. g. during the startup of an application.
+     *
+     * @param classes The classes to create instances of
+     * @return A future that completes once all instances were created
+     * @see SingletonScope#prewarm(Class[])
+     */
+    public static CompletableFuture<Void> prewarm(Class<?>... classes) {
+        return globalScope.prewarm(classes);
+    }
+
+    /**
+     * @return A new scope that inherits the instances and registrations of the global scope
+     */
+    public static SingletonScope createScope() {
+        return globalScope.createChildScope();
+    }
+
+    /**
+     * @return The scope that stores the instances returned by {@link #getInstance(Class)}
+     */
+    public static SingletonScope getGlobalScope() {
+        return globalScope;
+    }
+
+    /**
+     * Creates a new instance of the specified class using its nullary constructor. The constructor is looked up only once
+     * per class.
+     */
+    static <T> T newInstance(Class<T> clazz) throws IllegalAccessException, InstantiationException {
+        MethodHandle constructor = constructors.get(clazz);
+        if (constructor == null) {
+            constructor = findConstructor(clazz);
+            constructors.put(clazz, constructor);
+        }
+
+        try {
+            return clazz.cast(constructor.invoke());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            InstantiationException instantiationException = new InstantiationException("The constructor of " + clazz.getName() + " threw an exception");
+            instantiationException.initCause(e);
+            throw instantiationException;
         }
+    }
 
-        //noinspection unchecked
-        return (T) getOrInstantiateClassObjectMap().get(clazz);
+    private static MethodHandle findConstructor(Class<?> clazz) throws IllegalAccessException, InstantiationException {
+        if (clazz.isInterface() || clazz.isArray() || clazz.isPrimitive() || Modifier.isAbstract(clazz.getModifiers()))
+            throw new InstantiationException(clazz.getName());
+
+        // method handle lookups require the module of this class to read the module of the requested class
+        Module module = SingletonMap.class.getModule();
+        if (!module.canRead(clazz.getModule()))
+            module.addReads(clazz.getModule());
+
+        try {
+            return MethodHandles.lookup().findConstructor(clazz, MethodType.methodType(void.class)).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException e) {
+            InstantiationException instantiationException = new InstantiationException(clazz.getName());
+            instantiationException.initCause(e);
+            throw instantiationException;
+        }
     }
 }
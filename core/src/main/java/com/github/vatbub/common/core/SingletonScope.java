@@ -0,0 +1,296 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import com.github.vatbub.common.core.logging.FOKLogger;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * A container of singletons, see {@link SingletonMap}. Scopes form a tree: A child scope sees the instances and
+ * registrations of its parents, but registrations in the child scope override them without affecting the parent, e. g.
+ * to replace a singleton with a mock in a test or to configure it per tenant. Creating a child scope is cheap, it does
+ * not copy anything.<br>
+ * <br>
+ * Instances are created as follows:
+ * <ul>
+ *     <li>Classes registered using {@link #register(Class, Supplier)} are created by the supplier of the closest scope
+ *     that registered them. The instance belongs to that scope and is shared with all of its child scopes.</li>
+ *     <li>Classes registered using {@link #registerPerScope(Class, Supplier)} are created by the supplier once per
+ *     scope that requests them.</li>
+ *     <li>All other classes are created using their public parameterless constructor and belong to the root scope.</li>
+ * </ul>
+ * Every instance is created only once, even if it is requested concurrently. Expensive instances can be created in the
+ * background ahead of time using {@link #prewarm(Class[])}.
+ */
+public final class SingletonScope {
+    private static final ExecutorService prewarmExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "SingletonPrewarmer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final SingletonScope parent;
+    private final Map<Class<?>, Holder<?>> holders = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Registration<?>> registrations = new ConcurrentHashMap<>();
+    /**
+     * The holders of parent scopes that this scope resolved, so that the registrations of the parents need not be
+     * looked up on every request. An entry is only valid as long as {@link #modificationCount} did not change.
+     */
+    private final Map<Class<?>, InheritedHolder> inheritedHolders = new ConcurrentHashMap<>();
+    /**
+     * Counts the changes to the registrations and instances of all scopes of the tree, shared by all of them.
+     */
+    private final AtomicLong modificationCount;
+
+    /**
+     * Creates a new root scope that is independent from all other scopes.
+     */
+    public SingletonScope() {
+        this(null);
+    }
+
+    private SingletonScope(SingletonScope parent) {
+        this.parent = parent;
+        modificationCount = parent == null ? new AtomicLong() : parent.modificationCount;
+    }
+
+    /**
+     * @return A new scope that inherits the instances and registrations of this scope
+     */
+    public SingletonScope createChildScope() {
+        return new SingletonScope(this);
+    }
+
+    /**
+     * @return The parent of this scope or {@code null} if this is a root scope
+     */
+    public SingletonScope getParent() {
+        return parent;
+    }
+
+    /**
+     * Registers a supplier that creates the instance of the specified class. The instance is shared with all child
+     * scopes that do not register the class themselves. An instance of the class that already exists in this scope is
+     * reset.
+     *
+     * @param clazz    The class to register the supplier for
+     * @param supplier Creates the instance when it is requested for the first time
+     * @param <T>      The type of the class
+     */
+    public <T> void register(Class<T> clazz, Supplier<? extends T> supplier) {
+        registrations.put(clazz, new Registration<>(supplier, false));
+        holders.remove(clazz);
+        modificationCount.incrementAndGet();
+    }
+
+    /**
+     * Registers a supplier that creates a separate instance of the specified class for this scope and every child scope
+     * that requests it. An instance of the class that already exists in this scope is reset.
+     *
+     * @param clazz    The class to register the supplier for
+     * @param supplier Creates the instance of a scope when it is requested for the first time in that scope
+     * @param <T>      The type of the class
+     */
+    public <T> void registerPerScope(Class<T> clazz, Supplier<? extends T> supplier) {
+        registrations.put(clazz, new Registration<>(supplier, true));
+        holders.remove(clazz);
+        modificationCount.incrementAndGet();
+    }
+
+    /**
+     * Returns the instance of the specified class, see {@link SingletonMap#getInstance(Class)}.
+     *
+     * @param clazz The class to return an instance of
+     * @param <T>   The type of the class
+     * @return The instance of that class
+     * @throws IllegalAccessException if the class is not registered and its nullary constructor is not accessible.
+     * @throws InstantiationException if the class is not registered and cannot be instantiated
+     */
+    public <T> T getInstance(Class<T> clazz) throws IllegalAccessException, InstantiationException {
+        @SuppressWarnings("unchecked")
+        Holder<T> holder = (Holder<T>) holders.get(clazz);
+        if (holder == null)
+            holder = resolveHolder(clazz);
+        return holder.get();
+    }
+
+    /**
+     * @return The holder of the instance that this scope returns for a class that has no holder in this scope yet
+     */
+    private <T> Holder<T> resolveHolder(Class<T> clazz) {
+        // read before the holder is resolved, so a concurrent change invalidates the cached holder
+        long currentModificationCount = modificationCount.get();
+        InheritedHolder inheritedHolder = inheritedHolders.get(clazz);
+        if (inheritedHolder != null && inheritedHolder.modificationCount == currentModificationCount) {
+            @SuppressWarnings("unchecked")
+            Holder<T> res = (Holder<T>) inheritedHolder.holder;
+            return res;
+        }
+
+        SingletonScope owner = getOwner(clazz);
+        @SuppressWarnings("unchecked")
+        Holder<T> res = (Holder<T>) owner.holders.computeIfAbsent(clazz, key -> new Holder<>(owner, clazz));
+        if (owner != this)
+            inheritedHolders.put(clazz, new InheritedHolder(res, currentModificationCount));
+        return res;
+    }
+
+    /**
+     * @param clazz The class to check
+     * @param <T>   The type of the class
+     * @return {@code true} if the instance of the specified class that this scope would return already exists
+     */
+    public <T> boolean isInstantiated(Class<T> clazz) {
+        Holder<?> holder = getOwner(clazz).holders.get(clazz);
+        return holder != null && holder.instance != null;
+    }
+
+    /**
+     * Causes the instance of the specified class to be recreated the next time it is requested from this scope. Only
+     * instances that belong to this scope are reset, registrations are kept.
+     *
+     * @param clazz The class of which the instance shall be reset.
+     */
+    public void resetInstance(Class<?> clazz) {
+        holders.remove(clazz);
+        modificationCount.incrementAndGet();
+    }
+
+    /**
+     * Resets all instances that belong to this scope. Registrations are kept.
+     */
+    public void reset() {
+        holders.clear();
+        modificationCount.incrementAndGet();
+    }
+
+    /**
+     * Creates the instances of the specified classes in the background, so that the first request does not have to wait
+     * for them. Failures are logged and the instances are created again when they are requested.
+     *
+     * @param classes The classes to create instances of
+     * @return A future that completes once all instances were created
+     */
+    public CompletableFuture<Void> prewarm(Class<?>... classes) {
+        return prewarm(prewarmExecutor, classes);
+    }
+
+    /**
+     * Creates the instances of the specified classes using the specified executor, see {@link #prewarm(Class[])}.
+     *
+     * @param executor The executor to create the instances on
+     * @param classes  The classes to create instances of
+     * @return A future that completes once all instances were created
+     */
+    public CompletableFuture<Void> prewarm(Executor executor, Class<?>... classes) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            Class<?> clazz = classes[i];
+            futures[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    getInstance(clazz);
+                } catch (IllegalAccessException | InstantiationException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor).whenComplete((result, throwable) -> {
+                if (throwable != null)
+                    FOKLogger.log(SingletonScope.class.getName(), Level.WARNING, "Unable to prewarm the instance of " + clazz.getName(), throwable);
+            });
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * @return The scope that the instance of the specified class requested from this scope belongs to
+     */
+    private SingletonScope getOwner(Class<?> clazz) {
+        for (SingletonScope scope = this; ; scope = scope.parent) {
+            Registration<?> registration = scope.registrations.get(clazz);
+            if (registration != null)
+                return registration.perScope ? this : scope;
+            if (scope.parent == null)
+                return scope;
+        }
+    }
+
+    private <T> T createInstance(Class<T> clazz) throws IllegalAccessException, InstantiationException {
+        for (SingletonScope scope = this; scope != null; scope = scope.parent) {
+            Registration<?> registration = scope.registrations.get(clazz);
+            if (registration != null)
+                return clazz.cast(Objects.requireNonNull(registration.supplier.get(), "The supplier of " + clazz.getName() + " returned null"));
+        }
+        return SingletonMap.newInstance(clazz);
+    }
+
+    private static final class Registration<T> {
+        private final Supplier<? extends T> supplier;
+        private final boolean perScope;
+
+        private Registration(Supplier<? extends T> supplier, boolean perScope) {
+            this.supplier = supplier;
+            this.perScope = perScope;
+        }
+    }
+
+    private static final class InheritedHolder {
+        private final Holder<?> holder;
+        private final long modificationCount;
+
+        private InheritedHolder(Holder<?> holder, long modificationCount) {
+            this.holder = holder;
+            this.modificationCount = modificationCount;
+        }
+    }
+
+    /**
+     * Holds the instance of one class and makes sure that it is created only once.
+     */
+    private static final class Holder<T> {
+        private final SingletonScope owner;
+        private final Class<T> clazz;
+        private volatile T instance;
+
+        private Holder(SingletonScope owner, Class<T> clazz) {
+            this.owner = owner;
+            this.clazz = clazz;
+        }
+
+        private T get() throws IllegalAccessException, InstantiationException {
+            T res = instance;
+            if (res != null)
+                return res;
+
+            synchronized (this) {
+                if (instance == null)
+                    instance = owner.createInstance(clazz);
+                return instance;
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A {@link Handler} that hands records over to a bounded lock-free ring buffer and returns immediately.
+ * A single writer thread drains the buffer in batches and publishes the records to the delegate handler.
+ * The delegate is only flushed once per flush interval instead of once per record.<br>
+ * <br>
+ * The handler closes itself (and thus drains all pending records) when the JVM shuts down.
+ */
+public class AsyncHandler extends Handler {
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+    private static final int BATCH_SIZE = 256;
+    private static final long BLOCKED_PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final Handler delegate;
+    private final LogRecordRingBuffer buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final int dropBelowLevel;
+    private final long flushIntervalNanos;
+    private final AtomicLong droppedRecords = new AtomicLong();
+    private final Thread writerThread;
+    private final Thread shutdownHook;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new asynchronous handler with a capacity of {@link #DEFAULT_CAPACITY} records, the overflow policy
+     * {@link OverflowPolicy#BLOCK} and a flush interval of {@link #DEFAULT_FLUSH_INTERVAL_MILLIS} milliseconds.
+     *
+     * @param delegate The handler to publish the records to
+     */
+    public AsyncHandler(Handler delegate) {
+        this(delegate, DEFAULT_CAPACITY, OverflowPolicy.BLOCK, Level.WARNING, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a new asynchronous handler.
+     *
+     * @param delegate            The handler to publish the records to
+     * @param capacity            The amount of records that can be buffered. Will be rounded up to the next power of two.
+     * @param overflowPolicy      Specifies what happens if a record is published while the buffer is full.
+     * @param dropBelowLevel      Only taken into account if {@code overflowPolicy == OverflowPolicy.DROP_BELOW_LEVEL}:
+     *                            Records with a level lower than this level are dropped if the buffer is full, all other
+     *                            records block until there is space left in the buffer.
+     * @param flushIntervalMillis The maximum time in milliseconds that a record may stay unflushed in the delegate handler.
+     */
+    public AsyncHandler(Handler delegate, int capacity, OverflowPolicy overflowPolicy, Level dropBelowLevel, long flushIntervalMillis) {
+        if (delegate == null)
+            throw new NullPointerException("delegate must not be null");
+        if (flushIntervalMillis <= 0)
+            throw new IllegalArgumentException("The flush interval must be greater than 0");
+
+        this.delegate = delegate;
+        this.buffer = new LogRecordRingBuffer(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.dropBelowLevel = dropBelowLevel.intValue();
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        setLevel(delegate.getLevel());
+
+        writerThread = new Thread(this::drainLoop, "AsyncLogWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        shutdownHook = new Thread(this::close, "AsyncLogWriterShutdownHook");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record))
+            return;
+
+        // The caller is inferred lazily from the current stack, so this must happen on the logging thread
+        record.getSourceClassName();
+
+        if (!buffer.offer(record))
+            handleOverflow(record);
+
+        if (writerParked)
+            LockSupport.unpark(writerThread);
+    }
+
+    private void handleOverflow(LogRecord record) {
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                do {
+                    if (buffer.poll() != null)
+                        droppedRecords.incrementAndGet();
+                } while (!buffer.offer(record));
+                return;
+            case DROP_BELOW_LEVEL:
+                if (record.getLevel().intValue() < dropBelowLevel) {
+                    droppedRecords.incrementAndGet();
+                    return;
+                }
+                blockUntilOffered(record);
+                return;
+            case BLOCK:
+            default:
+                blockUntilOffered(record);
+        }
+    }
+
+    private void blockUntilOffered(LogRecord record) {
+        while (!buffer.offer(record)) {
+            if (closed) {
+                droppedRecords.incrementAndGet();
+                return;
+            }
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(this, BLOCKED_PRODUCER_PARK_NANOS);
+        }
+    }
+
+    private void drainLoop() {
+        long lastFlush = System.nanoTime();
+        boolean unflushedRecords = false;
+
+        while (!closed || !buffer.isEmpty()) {
+            int drained = 0;
+            LogRecord record;
+            while (drained < BATCH_SIZE && (record = buffer.poll()) != null) {
+                publishToDelegate(record);
+                drained++;
+            }
+            if (drained > 0)
+                unflushedRecords = true;
+
+            long now = System.nanoTime();
+            if (unflushedRecords && now - lastFlush >= flushIntervalNanos) {
+                flushDelegate();
+                lastFlush = now;
+                unflushedRecords = false;
+            }
+
+            if (drained == 0 && !closed) {
+                long parkNanos = unflushedRecords ? flushIntervalNanos - (now - lastFlush) : flushIntervalNanos;
+                writerParked = true;
+                if (buffer.isEmpty() && !closed)
+                    LockSupport.parkNanos(this, Math.max(parkNanos, 1));
+                writerParked = false;
+            }
+        }
+
+        flushDelegate();
+    }
+
+    private void publishToDelegate(LogRecord record) {
+        try {
+            delegate.publish(record);
+        } catch (Exception e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    private void flushDelegate() {
+        try {
+            delegate.flush();
+        } catch (Exception e) {
+            reportError(null, e, ErrorManager.FLUSH_FAILURE);
+        }
+    }
+
+    /**
+     * Wakes up the writer thread. The delegate is still only flushed once the flush interval has elapsed.
+     * Call {@link #close()} to make sure that all records are written.
+     */
+    @Override
+    public void flush() {
+        LockSupport.unpark(writerThread);
+    }
+
+    /**
+     * Drains all pending records into the delegate handler and closes it. Waits at most 5 seconds for the records to be written.
+     */
+    @Override
+    public void close() throws SecurityException {
+        if (closed)
+            return;
+        closed = true;
+
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // JVM is already shutting down
+            }
+        }
+
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+
+    @Override
+    public synchronized void setLevel(Level newLevel) throws SecurityException {
+        super.setLevel(newLevel);
+        delegate.setLevel(newLevel);
+    }
+
+    /**
+     * @return The handler that this handler publishes its records to
+     */
+    public Handler getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return The amount of records that were dropped because the buffer was full.
+     */
+    public long getDroppedRecordCount() {
+        return droppedRecords.get();
+    }
+
+    /**
+     * @return The amount of records that are currently waiting to be written.
+     */
+    public int getPendingRecordCount() {
+        return buffer.size();
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Specifies what happens if a record is published to an {@link AsyncHandler} whose buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The logging thread waits until the writer thread made space in the buffer. No records are lost.
+         */
+        BLOCK,
+        /**
+         * The oldest record in the buffer is dropped to make space for the new record. The logging thread never waits.
+         */
+        DROP_OLDEST,
+        /**
+         * Records below a configurable level are dropped, all other records wait until there is space in the buffer.
+         */
+        DROP_BELOW_LEVEL
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Constants and primitive codecs shared by {@link BinaryLogHandler} and {@link BinaryLogReader}.<br>
+ * <br>
+ * A binary log file starts with {@link #MAGIC} followed by {@link #VERSION}. After that, it consists of entries which
+ * are prefixed with their length as an unsigned varint. The first byte of every entry is its type:
+ * <ul>
+ *     <li>{@link #ENTRY_DICTIONARY}: Defines a string that records refer to by its id. Ids are assigned in ascending
+ *     order starting at 1, id 0 stands for {@code null}.</li>
+ *     <li>{@link #ENTRY_RECORD}: A log record including the fields of {@link StructuredLogRecord}s. Timestamps are stored
+ *     as the zigzag-encoded difference to the previous record, logger names, level names, source classes and methods,
+ *     field names as well as the module, class, method and file of every stack frame as dictionary ids.</li>
+ * </ul>
+ */
+final class BinaryLogFormat {
+    static final byte[] MAGIC = "FOKLOG".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int ENTRY_DICTIONARY = 0;
+    static final int ENTRY_RECORD = 1;
+    static final int MAX_CAUSE_DEPTH = 16;
+
+    private BinaryLogFormat() {
+        throw new IllegalStateException("Class may not be instantiated");
+    }
+
+    static long zigZagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        long res = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.read();
+            if (b < 0)
+                throw new EOFException("Unexpected end of the binary log");
+            res |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return res;
+            shift += 7;
+            if (shift > 63)
+                throw new IOException("Malformed varint in the binary log");
+        }
+    }
+
+    static long readFixedLong(InputStream in) throws IOException {
+        long res = 0;
+        for (int i = 0; i < 8; i++) {
+            int b = in.read();
+            if (b < 0)
+                throw new EOFException("Unexpected end of the binary log");
+            res = (res << 8) | b;
+        }
+        return res;
+    }
+
+    /**
+     * A growable byte buffer which is reused for every entry to avoid allocations.
+     */
+    static class EntryBuffer {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        private void ensureCapacity(int additionalBytes) {
+            if (size + additionalBytes > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additionalBytes));
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeFixedLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8)
+                bytes[size++] = (byte) (value >>> shift);
+        }
+
+        void writeBytes(byte[] source, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        /**
+         * Writes a string as its varint encoded byte length followed by its utf-8 bytes. {@code null} is written as length 0
+         * preceded by a 0 marker, other strings are preceded by a 1.
+         *
+         * @param value The string to write
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeByte(0);
+                return;
+            }
+            writeByte(1);
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(encoded.length);
+            writeBytes(encoded, 0, encoded.length);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.*;
+
+/**
+ * A {@link Handler} that writes records in the compact binary format described in {@link BinaryLogFormat} instead of
+ * xml. Logger names, level names, source classes and methods and stack trace elements are written only once and
+ * referred to by a numeric id afterwards, timestamps are written as varint deltas.
+ * Use {@link BinaryLogReader} to read the records or to convert the file to xml or plain text.
+ */
+public class BinaryLogHandler extends Handler {
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    /**
+     * The strings added to the dictionary while encoding the current record, removed again if the record cannot be
+     * encoded as their dictionary entries are never written then
+     */
+    private final List<String> internedValues = new ArrayList<>();
+    private final BinaryLogFormat.EntryBuffer dictionaryEntries = new BinaryLogFormat.EntryBuffer();
+    private final BinaryLogFormat.EntryBuffer recordEntry = new BinaryLogFormat.EntryBuffer();
+    private final BinaryLogFormat.EntryBuffer lengthPrefix = new BinaryLogFormat.EntryBuffer();
+    private final Formatter messageFormatter = new SimpleFormatter();
+    private long previousTimestamp;
+    private boolean closed;
+
+    /**
+     * Creates a new handler that writes into the specified file. The file is truncated if it exists.
+     *
+     * @param fileName The file to write the log into
+     * @throws IOException If the file cannot be opened
+     */
+    public BinaryLogHandler(String fileName) throws IOException {
+        this(new FileOutputStream(fileName, false));
+    }
+
+    /**
+     * Creates a new handler that writes into the specified stream.
+     *
+     * @param out The stream to write the log into. Will be closed when the handler is closed.
+     * @throws IOException If the file header cannot be written
+     */
+    public BinaryLogHandler(OutputStream out) throws IOException {
+        this.out = new BufferedOutputStream(out, OUTPUT_BUFFER_SIZE);
+        this.out.write(BinaryLogFormat.MAGIC);
+        this.out.write(BinaryLogFormat.VERSION);
+    }
+
+    @Override
+    public synchronized void publish(LogRecord record) {
+        if (closed || !isLoggable(record))
+            return;
+
+        dictionaryEntries.reset();
+        internedValues.clear();
+        long timestamp = previousTimestamp;
+        try {
+            encodeRecord(record);
+        } catch (Exception e) {
+            internedValues.forEach(dictionary::remove);
+            previousTimestamp = timestamp;
+            reportError(null, e, ErrorManager.FORMAT_FAILURE);
+            return;
+        }
+
+        try {
+            out.write(dictionaryEntries.array(), 0, dictionaryEntries.size());
+            lengthPrefix.reset();
+            lengthPrefix.writeVarLong(recordEntry.size());
+            out.write(lengthPrefix.array(), 0, lengthPrefix.size());
+            out.write(recordEntry.array(), 0, recordEntry.size());
+        } catch (Exception e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    private void encodeRecord(LogRecord record) {
+        recordEntry.reset();
+        recordEntry.writeByte(BinaryLogFormat.ENTRY_RECORD);
+
+        long timestamp = record.getMillis();
+        recordEntry.writeVarLong(BinaryLogFormat.zigZagEncode(timestamp - previousTimestamp));
+        previousTimestamp = timestamp;
+
+        recordEntry.writeVarLong(record.getSequenceNumber());
+        recordEntry.writeVarLong(intern(record.getLevel().getName()));
+        recordEntry.writeVarLong(BinaryLogFormat.zigZagEncode(record.getLevel().intValue()));
+        recordEntry.writeVarLong(intern(record.getLoggerName()));
+        recordEntry.writeVarLong(intern(record.getSourceClassName()));
+        recordEntry.writeVarLong(intern(record.getSourceMethodName()));
+        //noinspection deprecation
+        recordEntry.writeVarLong(record.getThreadID());
+        recordEntry.writeString(messageFormatter.formatMessage(record));
+        encodeFields(StructuredLogRecord.getFields(record));
+
+        int causeCount = 0;
+        for (Throwable throwable = record.getThrown(); throwable != null && causeCount < BinaryLogFormat.MAX_CAUSE_DEPTH; throwable = throwable.getCause())
+            causeCount++;
+        recordEntry.writeVarLong(causeCount);
+
+        Throwable throwable = record.getThrown();
+        for (int i = 0; i < causeCount; i++) {
+            recordEntry.writeVarLong(intern(throwable.getClass().getName()));
+            recordEntry.writeString(throwable.getMessage());
+            StackTraceElement[] stackTrace = throwable.getStackTrace();
+            recordEntry.writeVarLong(stackTrace.length);
+            for (StackTraceElement element : stackTrace) {
+                recordEntry.writeVarLong(intern(element.getModuleName()));
+                recordEntry.writeVarLong(intern(isJdkModule(element.getModuleName()) ? null : element.getModuleVersion()));
+                recordEntry.writeVarLong(intern(element.getClassName()));
+                recordEntry.writeVarLong(intern(element.getMethodName()));
+                recordEntry.writeVarLong(intern(element.getFileName()));
+                recordEntry.writeVarLong(BinaryLogFormat.zigZagEncode(element.getLineNumber()));
+            }
+            throwable = throwable.getCause();
+        }
+    }
+
+    private void encodeFields(LogFields fields) {
+        if (fields == null) {
+            recordEntry.writeVarLong(0);
+            return;
+        }
+
+        recordEntry.writeVarLong(fields.size());
+        for (int i = 0; i < fields.size(); i++) {
+            recordEntry.writeVarLong(intern(fields.getKey(i)));
+            LogFields.Type type = fields.getType(i);
+            recordEntry.writeByte(type.ordinal());
+            switch (type) {
+                case LONG:
+                    recordEntry.writeVarLong(BinaryLogFormat.zigZagEncode(fields.getLong(i)));
+                    break;
+                case DOUBLE:
+                    recordEntry.writeFixedLong(Double.doubleToRawLongBits(fields.getDouble(i)));
+                    break;
+                default:
+                    recordEntry.writeString(fields.getString(i));
+            }
+        }
+    }
+
+    /**
+     * The jdk omits the version of its own modules when printing stack traces, so we do the same to print identically
+     * after decoding.
+     */
+    private static boolean isJdkModule(String moduleName) {
+        return moduleName != null && (moduleName.startsWith("java.") || moduleName.startsWith("jdk."));
+    }
+
+    /**
+     * Returns the dictionary id of the specified string and writes a dictionary entry if the string is new.
+     *
+     * @param value The string to look up
+     * @return The id of the string, {@code 0} for {@code null}
+     */
+    private int intern(String value) {
+        if (value == null)
+            return 0;
+
+        Integer id = dictionary.get(value);
+        if (id != null)
+            return id;
+
+        int newId = dictionary.size() + 1;
+        dictionary.put(value, newId);
+        internedValues.add(value);
+
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        lengthPrefix.reset();
+        lengthPrefix.writeVarLong(encoded.length);
+        dictionaryEntries.writeVarLong(1 + lengthPrefix.size() + encoded.length);
+        dictionaryEntries.writeByte(BinaryLogFormat.ENTRY_DICTIONARY);
+        dictionaryEntries.writeBytes(lengthPrefix.array(), 0, lengthPrefix.size());
+        dictionaryEntries.writeBytes(encoded, 0, encoded.length);
+        return newId;
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (closed)
+            return;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.FLUSH_FAILURE);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws SecurityException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+}
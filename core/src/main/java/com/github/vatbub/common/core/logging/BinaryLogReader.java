@@ -0,0 +1,281 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Reads log files written by {@link BinaryLogHandler} record by record. The file is streamed, so arbitrarily large
+ * logs can be converted with constant memory (apart from the dictionary). A truncated last record, e. g. caused by a
+ * crash, is silently ignored.<br>
+ * <br>
+ * Can also be used from the command line: {@code java BinaryLogReader <binaryLogFile> [xml|text]} prints the converted
+ * log to {@code System.out}.
+ */
+public class BinaryLogReader implements Closeable {
+    private final InputStream in;
+    private final List<String> dictionary = new ArrayList<>();
+    private long previousTimestamp;
+
+    /**
+     * Creates a new reader and verifies the file header.
+     *
+     * @param in The stream to read the binary log from
+     * @throws IOException If the stream cannot be read or is not a binary log
+     */
+    public BinaryLogReader(InputStream in) throws IOException {
+        this.in = new BufferedInputStream(in);
+        byte[] magic = this.in.readNBytes(BinaryLogFormat.MAGIC.length);
+        if (!Arrays.equals(magic, BinaryLogFormat.MAGIC))
+            throw new IOException("Not a binary log file");
+        int version = this.in.read();
+        if (version != BinaryLogFormat.VERSION)
+            throw new IOException("Unsupported binary log version: " + version);
+        // id 0 stands for null
+        dictionary.add(null);
+    }
+
+    /**
+     * Converts the specified binary log into the xml format that {@link FOKLogger} writes, see {@link StructuredXMLFormatter}.
+     *
+     * @param binaryLog The binary log to read
+     * @param target    The writer to write the xml log to
+     * @throws IOException If the binary log cannot be read or the target cannot be written
+     */
+    public static void convertToXml(InputStream binaryLog, Writer target) throws IOException {
+        convert(binaryLog, target, new StructuredXMLFormatter());
+    }
+
+    /**
+     * Converts the specified binary log into plain text using a {@link OneLineFormatter}.
+     *
+     * @param binaryLog The binary log to read
+     * @param target    The writer to write the text log to
+     * @throws IOException If the binary log cannot be read or the target cannot be written
+     */
+    public static void convertToText(InputStream binaryLog, Writer target) throws IOException {
+        convert(binaryLog, target, new OneLineFormatter());
+    }
+
+    private static void convert(InputStream binaryLog, Writer target, Formatter formatter) throws IOException {
+        try (BinaryLogReader reader = new BinaryLogReader(binaryLog)) {
+            target.write(formatter.getHead(null));
+            LogRecord record;
+            while ((record = reader.readRecord()) != null)
+                target.write(formatter.format(record));
+            target.write(formatter.getTail(null));
+            target.flush();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: BinaryLogReader <binaryLogFile> [xml|text]");
+            System.exit(1);
+        }
+
+        Writer target = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (InputStream in = new FileInputStream(args[0])) {
+            if (args.length == 2 && args[1].equalsIgnoreCase("text"))
+                convertToText(in, target);
+            else
+                convertToXml(in, target);
+        }
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return The next record or {@code null} if the end of the log was reached.
+     * @throws IOException If the log cannot be read or is malformed
+     */
+    public LogRecord readRecord() throws IOException {
+        while (true) {
+            in.mark(1);
+            if (in.read() < 0)
+                return null;
+            in.reset();
+
+            long length;
+            try {
+                length = BinaryLogFormat.readVarLong(in);
+            } catch (EOFException e) {
+                // truncated length prefix at the end of the file
+                return null;
+            }
+            byte[] entry = in.readNBytes((int) length);
+            if (entry.length < length)
+                // truncated entry at the end of the file
+                return null;
+
+            InputStream entryStream = new ByteArrayInputStream(entry);
+            int type = entryStream.read();
+            if (type == BinaryLogFormat.ENTRY_DICTIONARY) {
+                int stringLength = (int) BinaryLogFormat.readVarLong(entryStream);
+                dictionary.add(new String(entryStream.readNBytes(stringLength), StandardCharsets.UTF_8));
+            } else if (type == BinaryLogFormat.ENTRY_RECORD) {
+                return decodeRecord(entryStream);
+            } else {
+                throw new IOException("Unknown entry type in the binary log: " + type);
+            }
+        }
+    }
+
+    private LogRecord decodeRecord(InputStream entry) throws IOException {
+        long timestamp = previousTimestamp + BinaryLogFormat.zigZagDecode(BinaryLogFormat.readVarLong(entry));
+        previousTimestamp = timestamp;
+        long sequenceNumber = BinaryLogFormat.readVarLong(entry);
+        String levelName = lookUp(entry);
+        int levelValue = (int) BinaryLogFormat.zigZagDecode(BinaryLogFormat.readVarLong(entry));
+        String loggerName = lookUp(entry);
+        String sourceClassName = lookUp(entry);
+        String sourceMethodName = lookUp(entry);
+        long threadId = BinaryLogFormat.readVarLong(entry);
+        String message = readString(entry);
+        LogFields fields = readFields(entry);
+
+        Level level = toLevel(levelName, levelValue);
+        LogRecord record = fields == null ? new LogRecord(level, message) : new StructuredLogRecord(level, message, fields);
+        record.setInstant(Instant.ofEpochMilli(timestamp));
+        record.setSequenceNumber(sequenceNumber);
+        record.setLoggerName(loggerName);
+        record.setSourceClassName(sourceClassName);
+        record.setSourceMethodName(sourceMethodName);
+        //noinspection deprecation
+        record.setThreadID((int) threadId);
+
+        int causeCount = (int) BinaryLogFormat.readVarLong(entry);
+        DecodedThrowable previous = null;
+        for (int i = 0; i < causeCount; i++) {
+            String className = lookUp(entry);
+            String throwableMessage = readString(entry);
+            StackTraceElement[] stackTrace = new StackTraceElement[(int) BinaryLogFormat.readVarLong(entry)];
+            for (int j = 0; j < stackTrace.length; j++) {
+                String moduleName = lookUp(entry);
+                String moduleVersion = lookUp(entry);
+                String declaringClass = lookUp(entry);
+                String methodName = lookUp(entry);
+                String fileName = lookUp(entry);
+                int lineNumber = (int) BinaryLogFormat.zigZagDecode(BinaryLogFormat.readVarLong(entry));
+                stackTrace[j] = new StackTraceElement(null, moduleName, moduleVersion, declaringClass, methodName, fileName, lineNumber);
+            }
+
+            DecodedThrowable throwable = new DecodedThrowable(className, throwableMessage);
+            throwable.setStackTrace(stackTrace);
+            if (previous == null)
+                record.setThrown(throwable);
+            else
+                previous.initCause(throwable);
+            previous = throwable;
+        }
+
+        return record;
+    }
+
+    private LogFields readFields(InputStream entry) throws IOException {
+        int fieldCount = (int) BinaryLogFormat.readVarLong(entry);
+        if (fieldCount == 0)
+            return null;
+
+        LogFields res = new LogFields();
+        LogFields.Type[] types = LogFields.Type.values();
+        for (int i = 0; i < fieldCount; i++) {
+            String key = lookUp(entry);
+            int type = entry.read();
+            if (type < 0 || type >= types.length)
+                throw new IOException("Unknown field type in the binary log: " + type);
+            switch (types[type]) {
+                case LONG:
+                    res.add(key, BinaryLogFormat.zigZagDecode(BinaryLogFormat.readVarLong(entry)));
+                    break;
+                case DOUBLE:
+                    res.add(key, Double.longBitsToDouble(BinaryLogFormat.readFixedLong(entry)));
+                    break;
+                default:
+                    res.add(key, readString(entry));
+            }
+        }
+        return res;
+    }
+
+    private static Level toLevel(String levelName, int levelValue) {
+        try {
+            Level level = Level.parse(levelName);
+            if (level.intValue() == levelValue)
+                return level;
+        } catch (IllegalArgumentException e) {
+            // custom level that is not known in this jvm
+        }
+        return Level.parse(Integer.toString(levelValue));
+    }
+
+    private String lookUp(InputStream entry) throws IOException {
+        long id = BinaryLogFormat.readVarLong(entry);
+        if (id >= dictionary.size())
+            throw new IOException("Unknown dictionary id in the binary log: " + id);
+        return dictionary.get((int) id);
+    }
+
+    private static String readString(InputStream entry) throws IOException {
+        if (entry.read() == 0)
+            return null;
+        int length = (int) BinaryLogFormat.readVarLong(entry);
+        return new String(entry.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Stands in for the original throwable which cannot be reconstructed. Prints exactly like the original.
+     */
+    private static class DecodedThrowable extends Throwable {
+        private static final long serialVersionUID = 1L;
+        private final String className;
+
+        DecodedThrowable(String className, String message) {
+            super(message);
+            this.className = className;
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            String message = getLocalizedMessage();
+            return message != null ? className + ": " + message : className;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * The only handler that {@link FOKLogger} installs on the root logger. Attaches the {@link LogContext} of the logging
+ * thread to every record and forwards it to the current {@link HandlerSet}, so handlers which process records later on
+ * another thread still see the context.<br>
+ * <br>
+ * Reconfiguring the handlers swaps the handler set atomically, so publishing a record never waits for handlers to be
+ * created or closed or for the records that an interim set collected to be handed over to its successor.
+ */
+class DispatchingHandler extends Handler {
+    private final AtomicReference<HandlerSet> currentSet;
+
+    DispatchingHandler(HandlerSet initialSet) {
+        initialSet.takeOver(Collections.emptyList());
+        currentSet = new AtomicReference<>(initialSet);
+    }
+
+    /**
+     * Replaces the current handler set and retires the previous one. Does not wait for the records which are being
+     * published to the previous set, the new set buffers its file records until the previous set handed over.
+     *
+     * @param newSet The set to forward records to from now on
+     */
+    void install(HandlerSet newSet) {
+        // the new set is visible before the previous one rejects records, so a rejected record never needs to wait
+        currentSet.getAndSet(newSet).retire(newSet);
+    }
+
+    /**
+     * Waits until all handler sets that were installed before the current one handed over and closed their file
+     * handlers. Publishing threads never do this, only the thread which is about to open a new log file, as the
+     * previous file handler might still write into a file with the same name otherwise.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit    The unit of {@code timeout}
+     * @return {@code true} if the previous sets handed over, {@code false} if the timeout elapsed before
+     * @throws InterruptedException If the current thread was interrupted while waiting
+     */
+    boolean awaitPreviousSets(long timeout, TimeUnit unit) throws InterruptedException {
+        return currentSet.get().awaitPredecessorHandOver(timeout, unit);
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        LogRecord recordWithContext = StructuredLogRecord.withContext(record);
+        HandlerSet set = currentSet.get();
+        // a set that was retired concurrently rejects the record, its successor is installed already
+        while (!set.tryAcquire())
+            set = currentSet.get();
+        try {
+            set.publish(recordWithContext);
+        } finally {
+            set.release();
+        }
+    }
+
+    @Override
+    public void flush() {
+        currentSet.get().flush();
+    }
+
+    /**
+     * Closes the current handlers. Only called by the {@link java.util.logging.LogManager} when the jvm shuts down,
+     * FOKLogger retires handler sets itself when it replaces them.
+     */
+    @Override
+    public void close() throws SecurityException {
+        currentSet.get().close();
+    }
+}
@@ -21,13 +21,18 @@ package com.github.vatbub.common.core.logging;
  */
 
 import com.github.vatbub.common.core.Common;
+import com.github.vatbub.common.core.Config;
+import com.github.vatbub.common.core.Prefs;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 import java.util.logging.*;
 
@@ -43,9 +48,35 @@ public class FOKLogger {
      * A log text that can be used to log generic exceptions. It is recommended to attach the exception to the log entry.
      */
     public static final String DEFAULT_ERROR_TEXT = "An error occurred";
-    private static Map<String, FOKLogger> loggerMap = new HashMap<>();
+    /**
+     * The number of records that are kept in memory by default, see {@link #getLogTail()}
+     */
+    public static final int DEFAULT_LOG_TAIL_CAPACITY = 1000;
+    /**
+     * The prefix of the keys that define log levels in a {@link Config} or {@link Prefs}, see {@link #loadLogLevels(Config)}
+     */
+    public static final String LOG_LEVEL_KEY_PREFIX = "logLevel.";
+    private static final Map<String, FOKLogger> loggerMap = new ConcurrentHashMap<>();
     private static Handler fileHandler;
     private static Handler consoleHandler;
+    /**
+     * Initializes the handlers when they were reset, so that logging threads do not need to wait for files to be opened.
+     */
+    private static final ExecutorService handlerInitializer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FOKLoggerHandlerInitializer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicBoolean handlerRefreshScheduled = new AtomicBoolean();
+    private static final long MAX_HANDLER_SET_HAND_OVER_WAIT_MILLIS = 5000;
+    private static volatile Future<?> scheduledHandlerRefresh;
+    /**
+     * Incremented by {@link #resetAllLoggers()} so that refreshes which were scheduled before the reset do not initialize
+     * the handlers again before the next log action.
+     */
+    private static volatile int handlerResetCount;
+    private static volatile Thread handlerInitializerThread;
+    private static volatile DispatchingHandler dispatchingHandler;
     private static boolean handlersInitialized;
     /**
      * Log messages must have the specified log level or higher to be saved in
@@ -66,19 +97,43 @@ public class FOKLogger {
     private static String logFileName;
     private static String logFilePath;
     private static boolean forceResetLogHandlersOnNextLogAction = false;
+    /**
+     * {@code false} if the handlers need to be (re-)initialized or if we are still waiting for an app name to be set.
+     * This is the only thing that {@link #getLoggerByClassName(String)} checks in the steady state.
+     */
+    private static volatile boolean handlersUpToDate;
+    /**
+     * The lowest level that any of the current handlers accepts. Records below this level are rejected before a logger is
+     * looked up or a {@link LogRecord} is created. Includes the file log level as long as the handlers are not up to date.
+     */
+    private static volatile int minimumLoggableLevel = Level.ALL.intValue();
     private static boolean fileLoggingDisabled;
+    private static boolean asyncFileLoggingEnabled;
+    private static int asyncBufferCapacity = AsyncHandler.DEFAULT_CAPACITY;
+    private static AsyncHandler.OverflowPolicy asyncOverflowPolicy = AsyncHandler.OverflowPolicy.BLOCK;
+    private static Level asyncDropBelowLevel = Level.WARNING;
+    private static long asyncFlushIntervalMillis = AsyncHandler.DEFAULT_FLUSH_INTERVAL_MILLIS;
+    private static boolean logFileRollingEnabled;
+    private static LogFileFormat logFileFormat = LogFileFormat.XML;
+    private static long rollingMaxFileSizeBytes;
+    private static long rollingMaxSegmentAgeMillis;
+    private static long rollingMaxTotalSizeBytes;
+    private static boolean memoryMappedFileLoggingEnabled;
+    private static int logTailCapacity = DEFAULT_LOG_TAIL_CAPACITY;
+    private static volatile LogTailBuffer logTailBuffer;
+    private static volatile LogRateLimiter rateLimiter;
+    private static final LogLevels logLevels = new LogLevels();
+    private static int memoryMappedRegionSize = MappedFileHandler.DEFAULT_REGION_SIZE;
+    private static final StackTraceFingerprints uncaughtExceptionTraces = new StackTraceFingerprints();
+    private static volatile boolean uncaughtExceptionDeduplicationEnabled = true;
     //log uncaught exceptions
-    private static final Thread.UncaughtExceptionHandler logUncaughtException = ((thread, throwable) -> {
-        String className;
-        try {
-            className = throwable.getStackTrace()[0].getClassName();
-        } catch (Throwable e) {
-            FOKLogger.severe(FOKLogger.class.getName(), "Unable to determine class that caused an uncaught exception");
-            className = "Unknown class name";
-        }
-        FOKLogger.log(className, Level.SEVERE, "An uncaught exception occurred in the thread " + thread.getName(), throwable);
-    });
+    private static final Thread.UncaughtExceptionHandler logUncaughtException = FOKLogger::logUncaughtException;
     final Logger log;
+    /**
+     * The level threshold of this logger in the lower 32 bits and the generation of {@link #logLevels} it was resolved
+     * in in the upper 32 bits. Packed into one field so that both are read atomically.
+     */
+    private volatile long levelCache;
 
     /**
      * Creates a new {@link java.util.logging.Logger} instance and attaches
@@ -89,7 +144,8 @@ public class FOKLogger {
      *                  {@code (YourClassName).class.getName()}.
      */
     private FOKLogger(String className) {
-        this(className, combineLogPath(), "log_" + Common.getInstance().getAppName() + "_DateTime.xml");
+        log = Logger.getLogger(className);
+        log.setLevel(Level.ALL);
     }
 
     /**
@@ -118,28 +174,44 @@ public class FOKLogger {
      * @param forceReloadHandlers If set to {@code true}, the log handlers are reloaded regardless of whether they were already initialized
      */
     public FOKLogger(String className, String newLogFilePath, String newLogFileName, boolean forceReloadHandlers) {
-        logFilePath = newLogFilePath;
-        logFileName = newLogFileName;
-        loggerMap.put(className, this);
+        synchronized (FOKLogger.class) {
+            logFilePath = newLogFilePath;
+            logFileName = newLogFileName;
 
-        // initialize the handlers
-        if (!handlersInitialized || forceReloadHandlers) {
-            FOKLogger.initLogHandlers();
+            // initialize the handlers
+            if (!handlersInitialized || forceReloadHandlers) {
+                FOKLogger.initLogHandlers();
+            }
+            handlersUpToDate = !isWaitingForAppName();
+            updateMinimumLoggableLevel();
         }
 
         log = Logger.getLogger(className);
         log.setLevel(Level.ALL);
+        loggerMap.put(className, this);
     }
 
     /**
      * Resets all loggers. This makes no difference for the console logger, but the file logger will start logging into a new file.
+     * The new file is opened in the background after the next log action. Records that are logged in the meantime
+     * appear on the console immediately and are written into the new file once it is open.
      */
-    public static void resetAllLoggers() {
-        if (fileHandler != null) {
-            fileHandler.close();
+    public static synchronized void resetAllLoggers() {
+        handlerResetCount++;
+        Future<?> refresh = scheduledHandlerRefresh;
+        if (refresh != null) {
+            refresh.cancel(false);
+        }
+        handlerRefreshScheduled.set(false);
+        fileHandler = null;
+        if (dispatchingHandler != null) {
+            // closes the old file handler as soon as the records which are being published to it are done
+            dispatchingHandler.install(HandlerSet.createInterim(consoleHandler, logTailBuffer));
         }
         forceResetLogHandlersOnNextLogAction = true;
-        loggerMap = new HashMap<>();
+        handlersUpToDate = false;
+        updateMinimumLoggableLevel();
+        loggerMap.clear();
     }
 
     private static String combineLogPath() {
@@ -161,13 +233,14 @@ public class FOKLogger {
     /**
      * @param newFileLogLevel the fileLogLevel to set
      */
-    public static void setFileLogLevel(Level newFileLogLevel) {
+    public static synchronized void setFileLogLevel(Level newFileLogLevel) {
         fileLogLevel = newFileLogLevel;
 
         // set the handlers Log Levels
-        if (handlersInitialized) {
+        if (fileHandler != null) {
             fileHandler.setLevel(fileLogLevel);
         }
+        updateMinimumLoggableLevel();
     }
 
     /**
@@ -182,13 +255,148 @@ public class FOKLogger {
      * @param newConsoleLogLevel the consoleLogLevel to set
      */
 
-    public static void setConsoleLogLevel(Level newConsoleLogLevel) {
+    public static synchronized void setConsoleLogLevel(Level newConsoleLogLevel) {
         consoleLogLevel = newConsoleLogLevel;
 
         // set the handlers Log Levels
-        if (handlersInitialized) {
+        if (consoleHandler != null) {
             consoleHandler.setLevel(consoleLogLevel);
         }
+        updateMinimumLoggableLevel();
+    }
+
+    private static synchronized void updateMinimumLoggableLevel() {
+        int newMinimum = consoleLogLevel.intValue();
+        // while the handlers are not up to date, records might still end up in a log file that is not open yet
+        if (!handlersUpToDate || (logFilePath != null && fileHandler != null)) {
+            newMinimum = Math.min(newMinimum, fileLogLevel.intValue());
+        }
+        minimumLoggableLevel = newMinimum;
+    }
+
+    /**
+     * Checks whether a record of the specified level would be accepted by at least one of the log handlers.
+     * This check is a single comparison and can be used to guard expensive message construction.
+     *
+     * @param level The level to check
+     * @return {@code true} if a record of the specified level would be logged, {@code false} otherwise
+     */
+    public static boolean isLoggable(Level level) {
+        int levelValue = level.intValue();
+        return levelValue >= minimumLoggableLevel && levelValue != Level.OFF.intValue();
+    }
+
+    /**
+     * Checks whether a record of the specified level would be logged by the logger of the specified class. Takes the
+     * levels set with {@link #setLogLevel(String, Level)} into account as well as the levels of the log handlers.
+     *
+     * @param className The name of the class to check
+     * @param level     The level to check
+     * @return {@code true} if a record of the specified level would be logged, {@code false} otherwise
+     */
+    public static boolean isLoggable(String className, Level level) {
+        if (!isLoggable(level)) {
+            return false;
+        }
+        return !logLevels.isConfigured() || level.intValue() >= getLoggerByClassName(className).getLevelThreshold();
+    }
+
+    /**
+     * Sets the level of the logger of the specified class or of the loggers of all classes in the specified package and
+     * its sub packages. The most specific level wins, e. g. setting {@code com.example} to {@code WARNING} and
+     * {@code com.example.network} to {@code FINE} logs everything from {@code FINE} on for the classes in
+     * {@code com.example.network} and only warnings and errors for the remaining classes in {@code com.example}.
+     * Records below the level are rejected before they are created. The levels of the log handlers
+     * ({@link #setFileLogLevel(Level)} and {@link #setConsoleLogLevel(Level)}) still apply.
+     * Takes effect immediately.
+     *
+     * @param name  The fully qualified name of the class or package
+     * @param level The level to set or {@code null} to remove the level that was set for this name
+     */
+    public static void setLogLevel(String name, Level level) {
+        logLevels.setExplicitLevel(name, level);
+    }
+
+    /**
+     * @param name The fully qualified name of the class or package
+     * @return The level that was set for exactly this name using {@link #setLogLevel(String, Level)} or {@code null} if
+     * none was set
+     */
+    public static Level getLogLevel(String name) {
+        return logLevels.getExplicitLevel(name);
+    }
+
+    /**
+     * Returns the level that applies to the logger of the specified class, considering the levels of its packages and
+     * the levels loaded with {@link #loadLogLevels(Config)} or {@link #loadLogLevels(Prefs)}.
+     *
+     * @param className The fully qualified name of the class
+     * @return The level that applies to the class or {@code Level.ALL} if no level applies
+     */
+    public static Level getEffectiveLogLevel(String className) {
+        Level level = logLevels.resolve(className);
+        return level == null ? Level.ALL : level;
+    }
+
+    /**
+     * Loads the per-class and per-package levels from the specified config. The level of a class or package is read
+     * from the key {@value #LOG_LEVEL_KEY_PREFIX} followed by the name of the class or package, e. g.
+     * {@code logLevel.com.example.network=FINE}. Levels that were set with {@link #setLogLevel(String, Level)} take
+     * precedence. Replaces the config or preferences that were loaded previously.
+     * Call {@link #reloadLogLevels()} after the values of the config changed.
+     *
+     * @param config The config to read the levels from
+     */
+    public static void loadLogLevels(Config config) {
+        logLevels.setSource(name -> config.getValue(LOG_LEVEL_KEY_PREFIX + name));
+    }
+
+    /**
+     * Loads the per-class and per-package levels from the specified preferences. Works exactly like
+     * {@link #loadLogLevels(Config)}.
+     *
+     * @param prefs The preferences to read the levels from
+     */
+    public static void loadLogLevels(Prefs prefs) {
+        logLevels.setSource(name -> prefs.getPreference(LOG_LEVEL_KEY_PREFIX + name, null));
+    }
+
+    /**
+     * Reads the levels from the config or preferences that were loaded with {@link #loadLogLevels(Config)} or
+     * {@link #loadLogLevels(Prefs)} again.
+     */
+    public static void reloadLogLevels() {
+        logLevels.changed();
+    }
+
+    /**
+     * Removes all levels that were set with {@link #setLogLevel(String, Level)} as well as the config or preferences
+     * the levels were loaded from.
+     */
+    public static void clearLogLevels() {
+        logLevels.clear();
+    }
+
+    /**
+     * Returns the int value of the level of this logger. The level is resolved only once and cached until the levels
+     * change.
+     */
+    private int getLevelThreshold() {
+        long cache = levelCache;
+        int generation = logLevels.getGeneration();
+        if ((int) (cache >>> 32) == generation) {
+            return (int) cache;
+        }
+
+        Level level = logLevels.resolve(log.getName());
+        if (level == null) {
+            level = Level.ALL;
+        }
+        // keeps code that uses the java.util.logging.Logger directly consistent
+        log.setLevel(level);
+        int threshold = level.intValue();
+        levelCache = ((long) generation << 32) | (threshold & 0xFFFFFFFFL);
+        return threshold;
     }
 
     /**
@@ -196,6 +404,7 @@ public class FOKLogger {
      */
 
     public static String getLogFileName() {
+        awaitScheduledHandlerRefresh();
         return logFileName.replace("DateTime", Common.getInstance().getLaunchTimeStamp());
     }
 
@@ -204,14 +413,339 @@ public class FOKLogger {
      */
 
     public static String getLogFilePath() {
+        awaitScheduledHandlerRefresh();
         return logFilePath;
     }
 
+    /**
+     * Returns the file that the log is currently written to. If the handlers are being initialized in the background
+     * after {@link #resetAllLoggers()}, waits for the initialization to finish, so that the file exists and contains
+     * all records logged so far.
+     *
+     * @return The file that the log is currently written to
+     */
     public static String getLogFilePathAndName() {
+        awaitScheduledHandlerRefresh();
+        return currentLogFilePathAndName();
+    }
+
+    private static String currentLogFilePathAndName() {
         return logFilePath + File.separator + logFileName.replace("DateTime", Common.getInstance().getLaunchTimeStamp());
     }
 
-    public static void initLogHandlers() {
+    private static void awaitScheduledHandlerRefresh() {
+        Future<?> refresh = scheduledHandlerRefresh;
+        // the refresh needs the lock, so waiting while holding it would deadlock
+        if (refresh == null || Thread.currentThread() == handlerInitializerThread || Thread.holdsLock(FOKLogger.class)) {
+            return;
+        }
+        try {
+            refresh.get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | CancellationException e) {
+            // use the current state
+        }
+    }
+
+    /**
+     * @return {@code true} if log records are written to the log file asynchronously
+     */
+    public static boolean isAsyncFileLoggingEnabled() {
+        return asyncFileLoggingEnabled;
+    }
+
+    /**
+     * Enables asynchronous file logging using the default settings of {@link AsyncHandler}.
+     *
+     * @see #enableAsyncFileLogging(int, AsyncHandler.OverflowPolicy, Level, long)
+     */
+    public static void enableAsyncFileLogging() {
+        enableAsyncFileLogging(AsyncHandler.DEFAULT_CAPACITY, AsyncHandler.OverflowPolicy.BLOCK, Level.WARNING, AsyncHandler.DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Enables asynchronous file logging. Log calls will then only put the record into a lock-free ring buffer and a
+     * background thread writes the records to the log file in batches. The change takes effect the next time the log
+     * handlers are initialized, so either call this method before logging anything or call {@link #resetAllLoggers()} afterwards.
+     *
+     * @param bufferCapacity      The amount of records that can be buffered before the {@code overflowPolicy} kicks in.
+     * @param overflowPolicy      Specifies what happens if the buffer is full.
+     * @param dropBelowLevel      Only taken into account if {@code overflowPolicy == OverflowPolicy.DROP_BELOW_LEVEL}:
+     *                            Records below this level are dropped if the buffer is full.
+     * @param flushIntervalMillis The interval in milliseconds in which the log file is flushed.
+     */
+    public static void enableAsyncFileLogging(int bufferCapacity, AsyncHandler.OverflowPolicy overflowPolicy, Level dropBelowLevel, long flushIntervalMillis) {
+        asyncBufferCapacity = bufferCapacity;
+        asyncOverflowPolicy = overflowPolicy;
+        asyncDropBelowLevel = dropBelowLevel;
+        asyncFlushIntervalMillis = flushIntervalMillis;
+        asyncFileLoggingEnabled = true;
+    }
+
+    /**
+     * Disables asynchronous file logging. The change takes effect the next time the log handlers are initialized.
+     */
+    public static void disableAsyncFileLogging() {
+        asyncFileLoggingEnabled = false;
+    }
+
+    /**
+     * @return {@code true} if the log file is rotated once it exceeds the limits specified in {@link #enableLogFileRolling(long, long, long)}
+     */
+    public static boolean isLogFileRollingEnabled() {
+        return logFileRollingEnabled;
+    }
+
+    /**
+     * Enables rolling log files. The log file is rotated once it exceeds the specified size or age, rotated segments
+     * are gzip-compressed in the background and the oldest segments are deleted once all segments together exceed
+     * {@code maxTotalSizeBytes}. {@link #getLogFilePathAndName()} always returns the active segment.
+     * The change takes effect the next time the log handlers are initialized.
+     *
+     * @param maxFileSizeBytes    The maximum size of the active log file. {@code 0} disables size based rotation.
+     * @param maxSegmentAgeMillis The maximum age of the active log file in milliseconds. {@code 0} disables time based rotation.
+     * @param maxTotalSizeBytes   The maximum size of all rotated segments together. {@code 0} keeps all segments.
+     * @see RollingFileHandler
+     */
+    public static void enableLogFileRolling(long maxFileSizeBytes, long maxSegmentAgeMillis, long maxTotalSizeBytes) {
+        rollingMaxFileSizeBytes = maxFileSizeBytes;
+        rollingMaxSegmentAgeMillis = maxSegmentAgeMillis;
+        rollingMaxTotalSizeBytes = maxTotalSizeBytes;
+        logFileRollingEnabled = true;
+    }
+
+    /**
+     * Disables rolling log files. The change takes effect the next time the log handlers are initialized.
+     */
+    public static void disableLogFileRolling() {
+        logFileRollingEnabled = false;
+    }
+
+    /**
+     * @return {@code true} if the log file is written through a memory-mapped region
+     * @see #enableMemoryMappedFileLogging(int)
+     */
+    public static boolean isMemoryMappedFileLoggingEnabled() {
+        return memoryMappedFileLoggingEnabled;
+    }
+
+    /**
+     * Writes the log file through memory-mapped regions of {@link MappedFileHandler#DEFAULT_REGION_SIZE} bytes.
+     *
+     * @see #enableMemoryMappedFileLogging(int)
+     */
+    public static void enableMemoryMappedFileLogging() {
+        enableMemoryMappedFileLogging(MappedFileHandler.DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Writes the log file through memory-mapped regions instead of a stream which is flushed after every record.
+     * Logging threads copy their records into the mapped region without taking a lock and records survive a crash of
+     * the jvm as they are written to the page cache immediately. Only applies to {@link LogFileFormat#XML} and takes
+     * precedence over log file rolling. The change takes effect the next time the log handlers are initialized.
+     *
+     * @param regionSizeBytes The number of bytes of the log file that are mapped at once
+     * @see MappedFileHandler
+     */
+    public static void enableMemoryMappedFileLogging(int regionSizeBytes) {
+        memoryMappedRegionSize = regionSizeBytes;
+        memoryMappedFileLoggingEnabled = true;
+    }
+
+    /**
+     * Writes the log file through a stream again. The change takes effect the next time the log handlers are initialized.
+     */
+    public static void disableMemoryMappedFileLogging() {
+        memoryMappedFileLoggingEnabled = false;
+    }
+
+    /**
+     * @return The maximum number of recent records that are kept in memory
+     * @see #getLogTail()
+     */
+    public static int getLogTailCapacity() {
+        return logTailCapacity;
+    }
+
+    /**
+     * Sets the number of recent records that are kept in memory for crash reports. {@code 0} disables the in-memory
+     * tail. The change takes effect the next time the log handlers are initialized.
+     *
+     * @param newLogTailCapacity The maximum number of records to keep
+     * @see #getLogTail()
+     */
+    public static void setLogTailCapacity(int newLogTailCapacity) {
+        if (newLogTailCapacity < 0)
+            throw new IllegalArgumentException("The capacity must not be negative");
+        logTailCapacity = newLogTailCapacity;
+    }
+
+    /**
+     * Returns the most recent records which are kept in memory independently of the log file, e. g. to attach them to
+     * a crash report.
+     *
+     * @return The most recent records, oldest first, or an empty list if no record was logged yet or the in-memory tail
+     * is disabled
+     * @see #setLogTailCapacity(int)
+     */
+    public static List<LogRecord> getLogTail() {
+        LogTailBuffer buffer = logTailBuffer;
+        if (buffer == null) {
+            return Collections.emptyList();
+        }
+        return buffer.snapshot();
+    }
+
+    /**
+     * Returns the most recent records which are kept in memory formatted like the console output.
+     *
+     * @param maxBytes The maximum size of the result in bytes when encoded as utf-8. Older records are omitted to stay
+     *                 within this limit.
+     * @return The most recent records, oldest first, or an empty string if no record was logged yet or the in-memory
+     * tail is disabled
+     * @see #getLogTail()
+     */
+    public static String getLogTailAsText(long maxBytes) {
+        LogTailBuffer buffer = logTailBuffer;
+        if (buffer == null) {
+            return "";
+        }
+        return buffer.snapshotAsText(maxBytes);
+    }
+
+    /**
+     * @return {@code true} if repeated log statements are rate limited
+     * @see #enableLogRateLimiting(int, double, long)
+     */
+    public static boolean isLogRateLimitingEnabled() {
+        return rateLimiter != null;
+    }
+
+    /**
+     * Rate limits every log statement to a burst of 10 records and one record per second on average and reports
+     * suppressed records every 10 seconds.
+     *
+     * @see #enableLogRateLimiting(int, double, long)
+     */
+    public static void enableLogRateLimiting() {
+        enableLogRateLimiting(10, 1, 10000);
+    }
+
+    /**
+     * Limits how many records the same log statement may produce, e. g. to prevent a catch block from logging the same
+     * exception thousands of times when a server is down. Suppressed records are counted and every
+     * {@code reportIntervalMillis}, one record per log statement reports how often it was suppressed.<br>
+     * <br>
+     * Log statements are identified by the method and bytecode index of the calling code, the level and the class of the
+     * exception, so the message does not matter. Finding the caller costs a few microseconds, which is only paid for the
+     * records of a logger, level and exception class whose statements exceed the limit. Takes effect immediately.
+     *
+     * @param maxBurst             The number of records a log statement may produce at once before it is limited
+     * @param recordsPerSecond     The number of records per second a log statement may produce on average
+     * @param reportIntervalMillis The interval in which suppressed records are reported
+     */
+    public static synchronized void enableLogRateLimiting(int maxBurst, double recordsPerSecond, long reportIntervalMillis) {
+        LogRateLimiter previousRateLimiter = rateLimiter;
+        rateLimiter = new LogRateLimiter(maxBurst, recordsPerSecond, reportIntervalMillis);
+        if (previousRateLimiter != null) {
+            previousRateLimiter.close();
+        }
+    }
+
+    /**
+     * Disables rate limiting and reports the records that were suppressed so far. Takes effect immediately.
+     */
+    public static synchronized void disableLogRateLimiting() {
+        LogRateLimiter previousRateLimiter = rateLimiter;
+        rateLimiter = null;
+        if (previousRateLimiter != null) {
+            previousRateLimiter.close();
+        }
+    }
+
+    private static boolean isSuppressed(String className, Level level, Object message, Throwable thrown) {
+        LogRateLimiter limiter = rateLimiter;
+        return limiter != null && !limiter.tryAcquire(className, level, message, thrown);
+    }
+
+    /**
+     * @return The format in which the log file is written
+     */
+    public static LogFileFormat getLogFileFormat() {
+        return logFileFormat;
+    }
+
+    /**
+     * Sets the format in which the log file is written. Log file rolling (see {@link #enableLogFileRolling(long, long, long)})
+     * is only supported for {@link LogFileFormat#XML}. The change takes effect the next time the log handlers are
+     * initialized, so either call this method before logging anything or call {@link #resetAllLoggers()} afterwards.
+     *
+     * @param newLogFileFormat The format to use
+     */
+    public static void setLogFileFormat(LogFileFormat newLogFileFormat) {
+        logFileFormat = newLogFileFormat;
+    }
+
+    private static Handler createFileHandler() throws IOException {
+        if (asyncFileLoggingEnabled) {
+            // the async handler flushes periodically, so don't flush after every record
+            return new AsyncHandler(createBaseFileHandler(false), asyncBufferCapacity, asyncOverflowPolicy, asyncDropBelowLevel, asyncFlushIntervalMillis);
+        }
+        return createBaseFileHandler(true);
+    }
+
+    private static Handler createBaseFileHandler(boolean flushAfterEveryRecord) throws IOException {
+        String fileName = currentLogFilePathAndName();
+        if (logFileFormat == LogFileFormat.BINARY) {
+            if (!flushAfterEveryRecord)
+                return new BinaryLogHandler(fileName);
+            return new BinaryLogHandler(fileName) {
+                @Override
+                public synchronized void publish(LogRecord record) {
+                    super.publish(record);
+                    flush();
+                }
+            };
+        }
+
+        if (memoryMappedFileLoggingEnabled)
+            // records are in the page cache as soon as they are copied, so there is nothing to flush
+            return new MappedFileHandler(fileName, memoryMappedRegionSize);
+
+        if (logFileRollingEnabled) {
+            if (!flushAfterEveryRecord)
+                return new RollingFileHandler(fileName, rollingMaxFileSizeBytes, rollingMaxSegmentAgeMillis, rollingMaxTotalSizeBytes);
+            return new RollingFileHandler(fileName, rollingMaxFileSizeBytes, rollingMaxSegmentAgeMillis, rollingMaxTotalSizeBytes) {
+                @Override
+                public synchronized void publish(LogRecord record) {
+                    super.publish(record);
+                    flush();
+                }
+            };
+        }
+
+        FileHandler res;
+        if (!flushAfterEveryRecord) {
+            res = new FileHandler(fileName);
+        } else {
+            res = new FileHandler(fileName) {
+                @Override
+                public synchronized void publish(LogRecord record) {
+                    super.publish(record);
+                    flush();
+                }
+            };
+        }
+        res.setFormatter(new StructuredXMLFormatter());
+        return res;
+    }
+
+    /**
+     * Creates the log handlers for the current configuration and swaps them in atomically. Records which are being
+     * published while the handlers are swapped finish on the old handlers, the old file handler is closed afterwards.
+     */
+    public static synchronized void initLogHandlers() {
 
         handlersInitialized = true;
 
@@ -228,202 +762,411 @@ public class FOKLogger {
             }
         }
 
+        if (logFilePath != null && dispatchingHandler != null) {
+            awaitPreviousHandlerSets();
+        }
+
+        Handler newFileHandler = null;
         try {
             if (logFilePath != null) {
-                fileHandler = new FileHandler(getLogFilePathAndName()) {
-                    @Override
-                    public synchronized void publish(LogRecord record) {
-                        super.publish(record);
-                        flush();
-                    }
-                };
+                newFileHandler = createFileHandler();
+                newFileHandler.setLevel(fileLogLevel);
             }
-            consoleHandler = new Handler() {
-                @Override
-                public void publish(LogRecord record) {
-                    if (record.getLevel().intValue() >= this.getLevel().intValue()) {
-                        if (getFormatter() == null) {
-                            setFormatter(new OneLineFormatter());
-                        }
-
-                        try {
-                            String message = getFormatter().format(record);
-                            if (record.getLevel().intValue() >= Level.WARNING.intValue()) {
-                                System.err.write(message.getBytes());
-                            } else {
-                                System.out.write(message.getBytes());
-                            }
-                        } catch (Exception exception) {
-                            reportError(null, exception, ErrorManager.FORMAT_FAILURE);
-                        }
-                    }
-
-                }
-
-                @Override
-                public void flush() {
-                }
-
-                @Override
-                public void close() throws SecurityException {
-                }
-            };
         } catch (IOException e) {
             // Not com.github.vatbub.common.core.logging into the logger as it is not yet initialized.
             e.printStackTrace();
         }
+        createSharedHandlersIfNecessary();
+
+        fileHandler = newFileHandler;
+        HandlerSet newHandlerSet = HandlerSet.create(newFileHandler, consoleHandler, logTailBuffer);
+        if (dispatchingHandler == null) {
+            dispatchingHandler = new DispatchingHandler(newHandlerSet);
+        } else {
+            dispatchingHandler.install(newHandlerSet);
+        }
+        installDispatchingHandlerOnRootLogger();
 
-        // set the handlers Log Levels
         if (logFilePath != null) {
-            fileHandler.setLevel(fileLogLevel);
+            FOKLogger.info(FOKLogger.class.getName(), "Saving log file \n" + currentLogFilePathAndName());
+        } else {
+            FOKLogger.info(FOKLogger.class.getName(), "Not saving the log in a file as no app name was specified");
+        }
+    }
+
+    /**
+     * Waits until the records that are being published to previous handler sets are done and their file handlers are
+     * closed, as the new file handler truncates the file that the previous one might still be writing into. The wait is
+     * bounded in case the handlers are reinitialized from within a handler.
+     */
+    private static void awaitPreviousHandlerSets() {
+        try {
+            dispatchingHandler.awaitPreviousSets(MAX_HANDLER_SET_HAND_OVER_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates the handlers that are shared by all handler sets, the console handler and the in-memory tail.
+     */
+    private static void createSharedHandlersIfNecessary() {
+        if (consoleHandler == null) {
+            consoleHandler = new OneLineConsoleHandler();
         }
         consoleHandler.setLevel(consoleLogLevel);
 
+        // keep the buffered records when the handlers are reinitialized
+        if (logTailCapacity == 0) {
+            logTailBuffer = null;
+        } else if (logTailBuffer == null || logTailBuffer.getCapacity() != logTailCapacity) {
+            logTailBuffer = new LogTailBuffer(logTailCapacity);
+        }
+    }
+
+    private static void installDispatchingHandlerOnRootLogger() {
         // Remove all existing parent handlers
         Logger globalLogger = Logger.getLogger("");
-        Handler[] handlers = globalLogger.getHandlers();
-        //noinspection ForLoopReplaceableByForEach
-        for (int i = 0; i < handlers.length; i++) {
-            globalLogger.removeHandler(handlers[i]);
+        boolean installed = false;
+        for (Handler handler : globalLogger.getHandlers()) {
+            if (handler == dispatchingHandler) {
+                installed = true;
+            } else {
+                globalLogger.removeHandler(handler);
+            }
         }
 
-        if (logFilePath != null) {
-            globalLogger.addHandler(fileHandler);
+        if (!installed) {
+            globalLogger.addHandler(dispatchingHandler);
         }
-        globalLogger.addHandler(consoleHandler);
+    }
 
-        if (logFilePath != null) {
-            FOKLogger.info(FOKLogger.class.getName(), "Saving log file \n" + getLogFilePathAndName());
-        } else {
-            FOKLogger.info(FOKLogger.class.getName(), "Not saving the log in a file as no app name was specified");
+    /**
+     * Installs an interim handler set when a record is logged for the first time, so that records are shown on the
+     * console while the actual handlers are initialized in the background.
+     */
+    private static synchronized void installInterimHandlersIfNecessary() {
+        if (dispatchingHandler != null) {
+            return;
+        }
+        createSharedHandlersIfNecessary();
+        dispatchingHandler = new DispatchingHandler(HandlerSet.createInterim(consoleHandler, logTailBuffer));
+        installDispatchingHandlerOnRootLogger();
+    }
+
+    /**
+     * Initializes the handlers in the background. Logging threads never wait for this, records that are logged in the
+     * meantime are handled by the interim handler set.
+     */
+    private static void scheduleHandlerRefresh() {
+        if (dispatchingHandler == null) {
+            installInterimHandlersIfNecessary();
+        }
+        if (handlerRefreshScheduled.compareAndSet(false, true)) {
+            int resetCount = handlerResetCount;
+            scheduledHandlerRefresh = handlerInitializer.submit(() -> {
+                handlerInitializerThread = Thread.currentThread();
+                boolean waitingForAppName = false;
+                try {
+                    waitingForAppName = refreshHandlersIfNecessary(resetCount);
+                } finally {
+                    // after a reset, the flag belongs to the refreshes scheduled since then. While waiting for an app
+                    // name, the flag stays set until appNameChanged() is called, so not every log action schedules a refresh.
+                    if (resetCount == handlerResetCount && !waitingForAppName) {
+                        handlerRefreshScheduled.set(false);
+                    }
+                }
+            });
         }
     }
 
     public static FOKLogger getLoggerByClassName(String className) {
-        boolean forceRefreshLogger = Common.getInstance().getAppName() != null && logFilePath == null && !fileLoggingDisabled;
+        if (!handlersUpToDate) {
+            scheduleHandlerRefresh();
+        }
+
+        FOKLogger logger = loggerMap.get(className);
+        if (logger != null) {
+            return logger;
+        }
+        return loggerMap.computeIfAbsent(className, FOKLogger::new);
+    }
+
+    /**
+     * Makes the next log action start file logging if it is still waiting for an app name. Records that are logged
+     * until the log file is open are collected and written into it. Called by {@link Common#setAppName(String)}, there
+     * is no need to call this manually.
+     */
+    public static synchronized void appNameChanged() {
+        if (handlersUpToDate) {
+            return;
+        }
+        if (dispatchingHandler != null && isWaitingForAppName()) {
+            dispatchingHandler.install(HandlerSet.createInterim(consoleHandler, logTailBuffer));
+        }
+        handlerRefreshScheduled.set(false);
+    }
+
+    /**
+     * Initializes the log handlers if they were reset or if an app name was set since they were initialized the last time.
+     * As long as no app name is set, the next refresh is scheduled after {@link #appNameChanged()} or
+     * {@link #resetAllLoggers()} as we need to start file logging as soon as the app name is known.
+     *
+     * @param expectedResetCount The value of {@link #handlerResetCount} when the refresh was scheduled. Nothing is done
+     *                           if the loggers were reset since then.
+     * @return {@code true} if file logging is still waiting for an app name
+     */
+    private static synchronized boolean refreshHandlersIfNecessary(int expectedResetCount) {
+        if (expectedResetCount != handlerResetCount) {
+            return false;
+        }
         if (forceResetLogHandlersOnNextLogAction) {
-            forceRefreshLogger = true;
             handlersInitialized = false;
             forceResetLogHandlersOnNextLogAction = false;
         }
-        if (!loggerMap.containsKey(className) || forceRefreshLogger) {
-            // create a new logger
-            loggerMap.remove(className);
 
-            //noinspection deprecation
-            return new FOKLogger(className);
-        } else {
-            // logger exists already
-            return loggerMap.get(className);
+        String appName = Common.getInstance().getAppName();
+        if (!handlersInitialized || (isWaitingForAppName() && appName != null)) {
+            logFilePath = combineLogPath();
+            logFileName = "log_" + appName + "_DateTime" + logFileFormat.getFileExtension();
+            initLogHandlers();
         }
+
+        handlersUpToDate = !isWaitingForAppName();
+        updateMinimumLoggableLevel();
+        return !handlersUpToDate;
+    }
+
+    private static boolean isWaitingForAppName() {
+        return logFilePath == null && !fileLoggingDisabled;
     }
 
 
     public static void log(String className, LogRecord record) {
+        if (!isLoggable(className, record.getLevel()) || isSuppressed(className, record.getLevel(), record.getMessage(), record.getThrown())) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().log(record);
     }
 
     public static void log(String className, Level level, String msg) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msg, null)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().log(level, msg);
     }
 
     public static void log(String className, Level level, Supplier<String> msgSupplier) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msgSupplier, null)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().log(level, msgSupplier);
     }
 
 
     public static void log(String className, Level level, String msg, Object param1) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msg, null)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().log(level, msg, param1);
     }
 
 
+    /**
+     * Logs a message with two parameters. The message is only formatted once a handler accepts the record, so the
+     * parameters should be passed as they are rather than converting them to Strings beforehand.
+     * Use the placeholders {@code {0}} and {@code {1}} in the message to refer to the parameters.
+     *
+     * @param className The name of the calling class.
+     * @param level     The level of the message
+     * @param msg       The message or message pattern
+     * @param param1    The first parameter of the message
+     * @param param2    The second parameter of the message
+     */
+    public static void log(String className, Level level, String msg, Object param1, Object param2) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msg, null)) {
+            return;
+        }
+        getLoggerByClassName(className).getLogger().log(level, msg, new Object[]{param1, param2});
+    }
+
+    /**
+     * Logs a message with typed key-value fields. The fields are written into the log file in a way that can be parsed
+     * again, so there is no need to concatenate ids or timings into the message. The fields of the {@link LogContext}
+     * of the current thread are attached too.
+     *
+     * @param className The name of the calling class.
+     * @param level     The level of the message
+     * @param msg       The message
+     * @param fields    The fields to attach to the record
+     */
+    public static void log(String className, Level level, String msg, LogFields fields) {
+        log(className, level, msg, null, fields);
+    }
+
+    /**
+     * Logs a message and an exception with typed key-value fields.
+     *
+     * @param className The name of the calling class.
+     * @param level     The level of the message
+     * @param msg       The message
+     * @param thrown    The exception to log, may be {@code null}
+     * @param fields    The fields to attach to the record
+     * @see #log(String, Level, String, LogFields)
+     */
+    public static void log(String className, Level level, String msg, Throwable thrown, LogFields fields) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msg, thrown)) {
+            return;
+        }
+        Logger logger = getLoggerByClassName(className).getLogger();
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        StructuredLogRecord record = new StructuredLogRecord(level, msg, LogContext.merge(fields));
+        record.setLoggerName(logger.getName());
+        record.setThrown(thrown);
+        logger.log(record);
+    }
+
+
     public static void log(String className, Level level, String msg, Object[] params) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msg, null)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().log(level, msg, params);
     }
 
 
     public static void log(String className, Level level, String msg, Throwable thrown) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msg, thrown)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().log(level, msg, thrown);
     }
 
 
     public static void log(String className, Level level, Throwable thrown, Supplier<String> msgSupplier) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msgSupplier, thrown)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().log(level, thrown, msgSupplier);
     }
 
 
     public static void logp(String className, Level level, String sourceClass, String sourceMethod, String msg) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msg, null)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().logp(level, sourceClass, sourceMethod, msg);
     }
 
 
     public static void logp(String className, Level level, String sourceClass, String sourceMethod, Supplier<String> msgSupplier) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msgSupplier, null)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().logp(level, sourceClass, sourceMethod, msgSupplier);
     }
 
 
     public static void logp(String className, Level level, String sourceClass, String sourceMethod,
                             String msg, Object param1) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msg, null)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().logp(level, sourceClass, sourceMethod, msg, param1);
     }
 
 
     public static void logp(String className, Level level, String sourceClass, String sourceMethod,
                             String msg, Object[] params) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msg, null)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().logp(level, sourceClass, sourceMethod, msg, params);
     }
 
 
     public static void logp(String className, Level level, String sourceClass, String sourceMethod,
                             String msg, Throwable thrown) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msg, thrown)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().logp(level, sourceClass, sourceMethod, msg, thrown);
     }
 
 
     public static void logp(String className, Level level, String sourceClass, String sourceMethod,
                             Throwable thrown, Supplier<String> msgSupplier) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msgSupplier, thrown)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().logp(level, sourceClass, sourceMethod, thrown, msgSupplier);
     }
 
 
     public static void logrb(String className, Level level, String sourceClass, String sourceMethod,
                              ResourceBundle bundle, String msg, Object... params) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msg, null)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().logrb(level, sourceClass, sourceMethod, bundle, msg, params);
     }
 
 
     public static void logrb(String className, Level level, String sourceClass, String sourceMethod,
                              ResourceBundle bundle, String msg, Throwable thrown) {
+        if (!isLoggable(className, level) || isSuppressed(className, level, msg, thrown)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().logrb(level, sourceClass, sourceMethod, bundle, msg, thrown);
     }
 
 
     public static void entering(String className, String sourceClass, String sourceMethod) {
+        if (!isLoggable(className, Level.FINER)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().entering(sourceClass, sourceMethod);
     }
 
 
     public static void entering(String className, String sourceClass, String sourceMethod, Object param1) {
+        if (!isLoggable(className, Level.FINER)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().entering(sourceClass, sourceMethod, param1);
     }
 
 
     public static void entering(String className, String sourceClass, String sourceMethod, Object[] params) {
+        if (!isLoggable(className, Level.FINER)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().entering(sourceClass, sourceMethod, params);
     }
 
 
     public static void exiting(String className, String sourceClass, String sourceMethod) {
+        if (!isLoggable(className, Level.FINER)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().exiting(sourceClass, sourceMethod);
     }
 
 
     public static void exiting(String className, String sourceClass, String sourceMethod, Object result) {
+        if (!isLoggable(className, Level.FINER)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().exiting(sourceClass, sourceMethod, result);
     }
 
 
     public static void throwing(String className, String sourceClass, String sourceMethod, Throwable thrown) {
+        if (!isLoggable(className, Level.FINER)) {
+            return;
+        }
         getLoggerByClassName(className).getLogger().throwing(sourceClass, sourceMethod, thrown);
     }
 
@@ -497,6 +1240,180 @@ public class FOKLogger {
         log(className, Level.FINEST, msgSupplier);
     }
 
+
+    public static void severe(String className, String msg, Object param1) {
+        log(className, Level.SEVERE, msg, param1);
+    }
+
+
+    public static void warning(String className, String msg, Object param1) {
+        log(className, Level.WARNING, msg, param1);
+    }
+
+
+    public static void info(String className, String msg, Object param1) {
+        log(className, Level.INFO, msg, param1);
+    }
+
+
+    public static void config(String className, String msg, Object param1) {
+        log(className, Level.CONFIG, msg, param1);
+    }
+
+
+    public static void fine(String className, String msg, Object param1) {
+        log(className, Level.FINE, msg, param1);
+    }
+
+
+    public static void finer(String className, String msg, Object param1) {
+        log(className, Level.FINER, msg, param1);
+    }
+
+
+    public static void finest(String className, String msg, Object param1) {
+        log(className, Level.FINEST, msg, param1);
+    }
+
+
+    public static void severe(String className, String msg, Object param1, Object param2) {
+        log(className, Level.SEVERE, msg, param1, param2);
+    }
+
+
+    public static void warning(String className, String msg, Object param1, Object param2) {
+        log(className, Level.WARNING, msg, param1, param2);
+    }
+
+
+    public static void info(String className, String msg, Object param1, Object param2) {
+        log(className, Level.INFO, msg, param1, param2);
+    }
+
+
+    public static void config(String className, String msg, Object param1, Object param2) {
+        log(className, Level.CONFIG, msg, param1, param2);
+    }
+
+
+    public static void fine(String className, String msg, Object param1, Object param2) {
+        log(className, Level.FINE, msg, param1, param2);
+    }
+
+
+    public static void finer(String className, String msg, Object param1, Object param2) {
+        log(className, Level.FINER, msg, param1, param2);
+    }
+
+
+    public static void finest(String className, String msg, Object param1, Object param2) {
+        log(className, Level.FINEST, msg, param1, param2);
+    }
+
+
+    public static void severe(String className, String msg, LogFields fields) {
+        log(className, Level.SEVERE, msg, fields);
+    }
+
+
+    public static void warning(String className, String msg, LogFields fields) {
+        log(className, Level.WARNING, msg, fields);
+    }
+
+
+    public static void info(String className, String msg, LogFields fields) {
+        log(className, Level.INFO, msg, fields);
+    }
+
+
+    public static void config(String className, String msg, LogFields fields) {
+        log(className, Level.CONFIG, msg, fields);
+    }
+
+
+    public static void fine(String className, String msg, LogFields fields) {
+        log(className, Level.FINE, msg, fields);
+    }
+
+
+    public static void finer(String className, String msg, LogFields fields) {
+        log(className, Level.FINER, msg, fields);
+    }
+
+
+    public static void finest(String className, String msg, LogFields fields) {
+        log(className, Level.FINEST, msg, fields);
+    }
+
+    private static void logUncaughtException(Thread thread, Throwable throwable) {
+        if (!isLoggable(Level.SEVERE)) {
+            return;
+        }
+
+        StackTraceFingerprints.Entry traceEntry = uncaughtExceptionDeduplicationEnabled ? uncaughtExceptionTraces.track(throwable) : null;
+        // the entry remembers the class name of known traces, otherwise the trace is printed in full and needed anyway
+        String className = traceEntry != null ? traceEntry.getClassName() : StackTraceFingerprints.getClassName(throwable.getStackTrace());
+        if (!isLoggable(className, Level.SEVERE)) {
+            return;
+        }
+
+        LogRecord record;
+        // the first occurrence only counts once its record was accepted, so the one-liners never refer to a trace that
+        // was filtered
+        if (traceEntry == null || !traceEntry.isFullTraceLogged()) {
+            String msg = traceEntry == null ? "An uncaught exception occurred in the thread {0}" : "An uncaught exception occurred in the thread {0} (stack trace #{1})";
+            if (isSuppressed(className, Level.SEVERE, msg, throwable)) {
+                return;
+            }
+            record = new LogRecord(Level.SEVERE, msg);
+            if (traceEntry == null) {
+                record.setParameters(new Object[]{thread.getName()});
+            } else {
+                traceEntry.countOccurrence();
+                record.setParameters(new Object[]{thread.getName(), traceEntry.getId()});
+            }
+            record.setThrown(throwable);
+        } else {
+            String msg = "An uncaught exception occurred in the thread {0}: {1} (same stack trace as #{2}, occurrence {3})";
+            if (isSuppressed(className, Level.SEVERE, msg, null)) {
+                return;
+            }
+            record = new LogRecord(Level.SEVERE, msg);
+            record.setParameters(new Object[]{thread.getName(), throwable, traceEntry.getId(), traceEntry.countOccurrence()});
+        }
+        record.setLoggerName(className);
+        getLoggerByClassName(className).getLogger().log(record);
+    }
+
+    /**
+     * @return {@code true} if uncaught exceptions with the same stack trace are printed in full only once
+     * @see #enableUncaughtExceptionDeduplication()
+     */
+    public static boolean isUncaughtExceptionDeduplicationEnabled() {
+        return uncaughtExceptionDeduplicationEnabled;
+    }
+
+    /**
+     * Prints the stack trace of an uncaught exception in full only the first time it occurs. Later uncaught exceptions
+     * with the same exception classes and stack frames are logged as a single line that refers to the first occurrence
+     * by its number and counts the occurrences. This keeps the log readable and cheap to write when e. g. a task fails
+     * over and over again. Only applies to uncaught exceptions, see {@link #enableLoggingOfUncaughtExceptions()}.
+     * Enabled by default, takes effect immediately.
+     */
+    public static void enableUncaughtExceptionDeduplication() {
+        uncaughtExceptionDeduplicationEnabled = true;
+    }
+
+    /**
+     * Prints the stack trace of every uncaught exception in full. Takes effect immediately.
+     *
+     * @see #enableUncaughtExceptionDeduplication()
+     */
+    public static void disableUncaughtExceptionDeduplication() {
+        uncaughtExceptionDeduplicationEnabled = false;
+        uncaughtExceptionTraces.clear();
+    }
+
     /**
      * Once called, all uncaught exceptions will be written to the log too
      */
@@ -0,0 +1,283 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * An immutable set of the handlers that {@link FOKLogger} forwards records to. The {@link DispatchingHandler} swaps
+ * the whole set atomically when the handlers are reconfigured. Records that are being published while the set is
+ * replaced finish on the old set, the file handler of the old set is only closed once all of them are done.<br>
+ * <br>
+ * The file records of a set are buffered until its predecessor handed over, so the log file stays in order even though
+ * publishing never waits for the swap. An interim set, which is used while the new handlers are being prepared, has no
+ * file handler and buffers its file records until it is retired. The set that completes a handover (the one that
+ * retires a set or the last record that was in flight on it) writes the handed over records into the file.
+ */
+final class HandlerSet {
+    /**
+     * The maximum number of records a set buffers for the log file. Further records only go to the console and the tail,
+     * a record in the log file tells how many were dropped.
+     */
+    static final int MAX_PENDING_RECORDS = 10000;
+
+    private final Handler fileHandler;
+    private final Handler[] sharedHandlers;
+    private final boolean interim;
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+    private final AtomicBoolean handedOver = new AtomicBoolean();
+    private final Object bufferLock = new Object();
+    /**
+     * The records for the log file that were published before the predecessor handed over, {@code null} once they were
+     * written. Guarded by {@link #bufferLock}.
+     */
+    private List<LogRecord> bufferedFileRecords;
+    /**
+     * The number of records that did not fit into {@link #bufferedFileRecords}. Guarded by {@link #bufferLock}.
+     */
+    private int droppedFileRecords;
+    private volatile boolean buffering;
+    private final CountDownLatch predecessorHandOver = new CountDownLatch(1);
+    private volatile boolean retired;
+    private volatile HandlerSet successor;
+
+    private HandlerSet(Handler fileHandler, Handler consoleHandler, LogTailBuffer tailBuffer, boolean interim) {
+        this.fileHandler = fileHandler;
+        this.interim = interim;
+        buffering = fileHandler != null || interim;
+        bufferedFileRecords = buffering ? new ArrayList<>() : null;
+
+        List<Handler> sharedHandlerList = new ArrayList<>(2);
+        if (consoleHandler != null)
+            sharedHandlerList.add(consoleHandler);
+        if (tailBuffer != null)
+            sharedHandlerList.add(tailBuffer);
+        sharedHandlers = sharedHandlerList.toArray(new Handler[0]);
+    }
+
+    /**
+     * @param fileHandler    The file handler, {@code null} if the log is not saved in a file
+     * @param consoleHandler The console handler
+     * @param tailBuffer     The in-memory tail, {@code null} if disabled
+     * @return A set which forwards records to the specified handlers
+     */
+    static HandlerSet create(Handler fileHandler, Handler consoleHandler, LogTailBuffer tailBuffer) {
+        return new HandlerSet(fileHandler, consoleHandler, tailBuffer, false);
+    }
+
+    /**
+     * @param consoleHandler The console handler
+     * @param tailBuffer     The in-memory tail, {@code null} if disabled
+     * @return A set which is used while the handlers are prepared. Records are forwarded to the console and tail
+     * immediately and passed to the file handler of the successor once this set is retired.
+     */
+    static HandlerSet createInterim(Handler consoleHandler, LogTailBuffer tailBuffer) {
+        return new HandlerSet(null, consoleHandler, tailBuffer, true);
+    }
+
+    /**
+     * Registers a record that is about to be published. Must be followed by {@link #release()}.
+     *
+     * @return {@code false} if this set was retired in the meantime and the record must be published to the current set instead
+     */
+    boolean tryAcquire() {
+        if (retired)
+            return false;
+        inFlightCount.incrementAndGet();
+        if (retired) {
+            release();
+            return false;
+        }
+        return true;
+    }
+
+    void release() {
+        if (inFlightCount.decrementAndGet() == 0 && retired)
+            tryHandOver();
+    }
+
+    void publish(LogRecord record) {
+        for (Handler sharedHandler : sharedHandlers)
+            sharedHandler.publish(record);
+
+        if (!buffering) {
+            if (fileHandler != null)
+                fileHandler.publish(record);
+            return;
+        }
+
+        // the caller is inferred lazily from the current stack, so this must happen on the logging thread
+        record.getSourceClassName();
+        synchronized (bufferLock) {
+            if (bufferedFileRecords != null) {
+                if (bufferedFileRecords.size() < MAX_PENDING_RECORDS)
+                    bufferedFileRecords.add(record);
+                else
+                    droppedFileRecords++;
+                return;
+            }
+        }
+        // the buffer was written in the meantime
+        if (fileHandler != null)
+            fileHandler.publish(record);
+    }
+
+    /**
+     * Starts forwarding records to the file handler once the predecessor handed over. Must be called exactly once, the
+     * {@link DispatchingHandler} does so for its initial set.
+     *
+     * @param predecessorRecords The records for the log file which the predecessor collected, written before the
+     *                           records of this set
+     */
+    void takeOver(List<LogRecord> predecessorRecords) {
+        if (fileHandler != null) {
+            for (LogRecord record : predecessorRecords)
+                fileHandler.publish(record);
+            writeBufferedFileRecords();
+        } else if (interim && !predecessorRecords.isEmpty()) {
+            synchronized (bufferLock) {
+                List<LogRecord> records = new ArrayList<>(predecessorRecords);
+                records.addAll(bufferedFileRecords);
+                // the newest records are dropped, so the record about them still ends up in the right place
+                while (records.size() > MAX_PENDING_RECORDS) {
+                    records.remove(records.size() - 1);
+                    droppedFileRecords++;
+                }
+                bufferedFileRecords = records;
+            }
+        }
+        // without a file handler or interim buffer, file logging is disabled and the records are discarded
+
+        predecessorHandOver.countDown();
+        tryHandOver();
+    }
+
+    /**
+     * Waits until the predecessor handed over to this set, which implies that the file handlers of all previous sets
+     * are closed.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit    The unit of {@code timeout}
+     * @return {@code true} if the predecessor handed over, {@code false} if the timeout elapsed before
+     * @throws InterruptedException If the current thread was interrupted while waiting
+     */
+    boolean awaitPredecessorHandOver(long timeout, TimeUnit unit) throws InterruptedException {
+        return predecessorHandOver.await(timeout, unit);
+    }
+
+    /**
+     * Writes the buffered records in batches, so that publishing threads only wait for the buffer while a batch is taken
+     * out of it and not while it is written.
+     */
+    private void writeBufferedFileRecords() {
+        while (true) {
+            List<LogRecord> batch;
+            int droppedCount;
+            synchronized (bufferLock) {
+                if (bufferedFileRecords.isEmpty() && droppedFileRecords == 0) {
+                    bufferedFileRecords = null;
+                    buffering = false;
+                    return;
+                }
+                batch = bufferedFileRecords;
+                droppedCount = droppedFileRecords;
+                bufferedFileRecords = new ArrayList<>();
+                droppedFileRecords = 0;
+            }
+
+            for (LogRecord record : batch)
+                fileHandler.publish(record);
+            if (droppedCount > 0)
+                fileHandler.publish(createDroppedRecordsRecord(droppedCount));
+        }
+    }
+
+    private static LogRecord createDroppedRecordsRecord(int droppedCount) {
+        LogRecord res = new LogRecord(Level.WARNING, "{0} records were not written to the log file as too many records were logged while it was being opened");
+        res.setParameters(new Object[]{droppedCount});
+        res.setLoggerName(FOKLogger.class.getName());
+        return res;
+    }
+
+    void flush() {
+        if (fileHandler != null)
+            fileHandler.flush();
+        for (Handler sharedHandler : sharedHandlers)
+            sharedHandler.flush();
+    }
+
+    /**
+     * Stops accepting records. Once the records that are being published finished and the predecessor handed over, the
+     * file handler of this set is closed and the collected records are handed to the successor. This happens right away
+     * if no record is in flight, otherwise the last record to finish does it. Never waits.
+     *
+     * @param successor The set that replaces this set, must already receive the new records
+     */
+    void retire(HandlerSet successor) {
+        this.successor = successor;
+        retired = true;
+        if (inFlightCount.get() == 0)
+            tryHandOver();
+    }
+
+    private void tryHandOver() {
+        if (!retired || predecessorHandOver.getCount() != 0 || inFlightCount.get() != 0 || !handedOver.compareAndSet(false, true))
+            return;
+
+        List<LogRecord> records = Collections.emptyList();
+        if (interim) {
+            synchronized (bufferLock) {
+                records = bufferedFileRecords;
+                if (droppedFileRecords > 0)
+                    records.add(createDroppedRecordsRecord(droppedFileRecords));
+                bufferedFileRecords = null;
+            }
+        }
+        if (fileHandler != null && fileHandler != successor.fileHandler)
+            fileHandler.close();
+        successor.takeOver(records);
+    }
+
+    /**
+     * Closes all handlers. Only used when the jvm shuts down.
+     */
+    void close() {
+        if (fileHandler != null) {
+            // the predecessor did not hand over before the jvm shuts down, losing its records is better than losing all
+            if (buffering)
+                writeBufferedFileRecords();
+            fileHandler.close();
+        }
+        for (Handler sharedHandler : sharedHandlers)
+            sharedHandler.close();
+    }
+}
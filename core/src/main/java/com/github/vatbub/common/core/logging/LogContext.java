@@ -0,0 +1,123 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+/**
+ * Fields that are attached to every record logged through {@link FOKLogger} on the current thread, similar to the
+ * mapped diagnostic context of other logging frameworks. Typical examples are request or session ids.<br>
+ * <br>
+ * The fields are copied on write, so logging only stores a reference to the current fields and modifying the context
+ * never affects records which were logged before.
+ */
+public final class LogContext {
+    private static final ThreadLocal<LogFields> currentFields = new ThreadLocal<>();
+
+    private LogContext() {
+        throw new IllegalStateException("Class may not be instantiated");
+    }
+
+    /**
+     * Sets a {@code long} field for the current thread, replacing any previous value of that key.
+     *
+     * @param key   The name of the field
+     * @param value The value of the field
+     */
+    public static void put(String key, long value) {
+        currentFields.set(copyWithout(key).add(key, value));
+    }
+
+    /**
+     * Sets a {@code double} field for the current thread, replacing any previous value of that key.
+     *
+     * @param key   The name of the field
+     * @param value The value of the field
+     */
+    public static void put(String key, double value) {
+        currentFields.set(copyWithout(key).add(key, value));
+    }
+
+    /**
+     * Sets a {@code String} field for the current thread, replacing any previous value of that key.
+     *
+     * @param key   The name of the field
+     * @param value The value of the field
+     */
+    public static void put(String key, String value) {
+        currentFields.set(copyWithout(key).add(key, value));
+    }
+
+    /**
+     * Removes a field from the context of the current thread.
+     *
+     * @param key The name of the field to remove
+     */
+    public static void remove(String key) {
+        LogFields fields = copyWithout(key);
+        if (fields.isEmpty())
+            currentFields.remove();
+        else
+            currentFields.set(fields);
+    }
+
+    /**
+     * Removes all fields from the context of the current thread.
+     */
+    public static void clear() {
+        currentFields.remove();
+    }
+
+    /**
+     * @return A copy of the fields of the current thread
+     */
+    public static LogFields getFields() {
+        LogFields fields = currentFields.get();
+        return fields == null ? new LogFields() : new LogFields().addAll(fields);
+    }
+
+    private static LogFields copyWithout(String key) {
+        LogFields fields = currentFields.get();
+        return fields == null ? new LogFields() : fields.copyWithout(key);
+    }
+
+    /**
+     * @return The fields of the current thread or {@code null} if there are none. Must not be modified.
+     */
+    static LogFields current() {
+        return currentFields.get();
+    }
+
+    /**
+     * Combines the context of the current thread with the fields of a record.
+     *
+     * @param recordFields The fields of the record, may be {@code null}
+     * @return The combined fields or {@code null} if there are none. Fields of the record come after the context fields.
+     */
+    static LogFields merge(LogFields recordFields) {
+        LogFields contextFields = currentFields.get();
+        if (contextFields == null)
+            return recordFields;
+        if (recordFields == null || recordFields.isEmpty())
+            return contextFields;
+        return new LogFields().addAll(contextFields).addAll(recordFields);
+    }
+}
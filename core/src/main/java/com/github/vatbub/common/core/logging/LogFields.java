@@ -0,0 +1,281 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import java.util.Arrays;
+
+/**
+ * Typed key-value fields attached to a log record, see {@link FOKLogger#log(String, java.util.logging.Level, String, LogFields)}
+ * and {@link LogContext}. Values are stored in primitive arrays, so adding {@code long} and {@code double} values does
+ * not box them.<br>
+ * <br>
+ * Example: {@code FOKLogger.info(getClass().getName(), "Request served", LogFields.create().add("requestId", id).add("durationMillis", duration))}<br>
+ * <br>
+ * Do not modify an instance after it was passed to the logger.
+ */
+public final class LogFields {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private String[] keys;
+    private Type[] types;
+    private long[] primitiveValues;
+    private String[] stringValues;
+    private int size;
+
+    /**
+     * Creates a new empty instance.
+     */
+    public LogFields() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private LogFields(int capacity) {
+        keys = new String[capacity];
+        types = new Type[capacity];
+        primitiveValues = new long[capacity];
+        stringValues = new String[capacity];
+    }
+
+    /**
+     * @return A new empty instance
+     */
+    public static LogFields create() {
+        return new LogFields();
+    }
+
+    private int append(String key, Type type) {
+        if (key == null)
+            throw new NullPointerException("key must not be null");
+        if (size == keys.length) {
+            int newCapacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, newCapacity);
+            types = Arrays.copyOf(types, newCapacity);
+            primitiveValues = Arrays.copyOf(primitiveValues, newCapacity);
+            stringValues = Arrays.copyOf(stringValues, newCapacity);
+        }
+        keys[size] = key;
+        types[size] = type;
+        return size++;
+    }
+
+    /**
+     * Adds a {@code long} field.
+     *
+     * @param key   The name of the field
+     * @param value The value of the field
+     * @return This instance for chaining
+     */
+    public LogFields add(String key, long value) {
+        primitiveValues[append(key, Type.LONG)] = value;
+        return this;
+    }
+
+    /**
+     * Adds a {@code double} field.
+     *
+     * @param key   The name of the field
+     * @param value The value of the field
+     * @return This instance for chaining
+     */
+    public LogFields add(String key, double value) {
+        primitiveValues[append(key, Type.DOUBLE)] = Double.doubleToRawLongBits(value);
+        return this;
+    }
+
+    /**
+     * Adds a {@code String} field.
+     *
+     * @param key   The name of the field
+     * @param value The value of the field, may be {@code null}
+     * @return This instance for chaining
+     */
+    public LogFields add(String key, String value) {
+        stringValues[append(key, Type.STRING)] = value;
+        return this;
+    }
+
+    /**
+     * Adds all fields of the specified instance.
+     *
+     * @param other The fields to add
+     * @return This instance for chaining
+     */
+    public LogFields addAll(LogFields other) {
+        for (int i = 0; i < other.size; i++) {
+            int index = append(other.keys[i], other.types[i]);
+            primitiveValues[index] = other.primitiveValues[i];
+            stringValues[index] = other.stringValues[i];
+        }
+        return this;
+    }
+
+    /**
+     * @return A copy of these fields without the fields with the specified key
+     */
+    LogFields copyWithout(String key) {
+        LogFields res = new LogFields(Math.max(INITIAL_CAPACITY, size + 1));
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key))
+                continue;
+            int index = res.append(keys[i], types[i]);
+            res.primitiveValues[index] = primitiveValues[i];
+            res.stringValues[index] = stringValues[i];
+        }
+        return res;
+    }
+
+    /**
+     * @return The number of fields
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@code true} if there are no fields
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index The index of the field
+     * @return The name of the field
+     */
+    public String getKey(int index) {
+        checkIndex(index);
+        return keys[index];
+    }
+
+    /**
+     * @param index The index of the field
+     * @return The type of the field
+     */
+    public Type getType(int index) {
+        checkIndex(index);
+        return types[index];
+    }
+
+    /**
+     * @param index The index of the field
+     * @return The value of the field
+     * @throws IllegalStateException If the field is not a {@link Type#LONG} field
+     */
+    public long getLong(int index) {
+        checkType(index, Type.LONG);
+        return primitiveValues[index];
+    }
+
+    /**
+     * @param index The index of the field
+     * @return The value of the field
+     * @throws IllegalStateException If the field is not a {@link Type#DOUBLE} field
+     */
+    public double getDouble(int index) {
+        checkType(index, Type.DOUBLE);
+        return Double.longBitsToDouble(primitiveValues[index]);
+    }
+
+    /**
+     * @param index The index of the field
+     * @return The value of the field
+     * @throws IllegalStateException If the field is not a {@link Type#STRING} field
+     */
+    public String getString(int index) {
+        checkType(index, Type.STRING);
+        return stringValues[index];
+    }
+
+    /**
+     * Returns the index of the last field with the specified key. Fields that are added later take precedence.
+     *
+     * @param key The key to look for
+     * @return The index of the field or {@code -1} if there is no field with that key
+     */
+    public int indexOf(String key) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (keys[i].equals(key))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Appends the value of the specified field to the builder without boxing it.
+     *
+     * @param index  The index of the field
+     * @param target The builder to append the value to
+     */
+    public void appendValue(int index, StringBuilder target) {
+        checkIndex(index);
+        switch (types[index]) {
+            case LONG:
+                target.append(primitiveValues[index]);
+                break;
+            case DOUBLE:
+                target.append(Double.longBitsToDouble(primitiveValues[index]));
+                break;
+            default:
+                target.append(stringValues[index]);
+        }
+    }
+
+    /**
+     * Appends the fields as {@code key1=value1, key2=value2} to the specified builder.
+     *
+     * @param target The builder to append to
+     */
+    public void appendTo(StringBuilder target) {
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                target.append(", ");
+            target.append(keys[i]).append('=');
+            appendValue(i, target);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+
+    private void checkType(int index, Type expectedType) {
+        checkIndex(index);
+        if (types[index] != expectedType)
+            throw new IllegalStateException("Field " + keys[index] + " is of type " + types[index] + ", not " + expectedType);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder res = new StringBuilder("{");
+        appendTo(res);
+        return res.append('}').toString();
+    }
+
+    /**
+     * The types a field value can have
+     */
+    public enum Type {
+        LONG, DOUBLE, STRING
+    }
+}
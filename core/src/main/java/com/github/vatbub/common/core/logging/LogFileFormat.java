@@ -0,0 +1,50 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+/**
+ * The formats in which {@link FOKLogger} can write its log file.
+ */
+public enum LogFileFormat {
+    /**
+     * The xml format of {@link java.util.logging.XMLFormatter}. This is the default.
+     */
+    XML(".xml"),
+    /**
+     * The compact binary format written by {@link BinaryLogHandler}. Use {@link BinaryLogReader} to convert it back to
+     * xml or plain text.
+     */
+    BINARY(".foklog");
+
+    private final String fileExtension;
+
+    LogFileFormat(String fileExtension) {
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * @return The file extension including the leading dot
+     */
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Holds the per-logger and per-package levels of {@link FOKLogger}, see {@link FOKLogger#setLogLevel(String, Level)}.<br>
+ * <br>
+ * Levels are resolved hierarchically: The level of {@code com.example.foo.Bar} is the level of
+ * {@code com.example.foo.Bar}, or, if that is not set, the level of {@code com.example.foo}, then of {@code com.example}
+ * and so on. Nested classes inherit the level of their enclosing class. At every step, a level that was set
+ * explicitly takes precedence over the level of the source.<br>
+ * <br>
+ * Resolving a level walks the name hierarchy, so callers cache the result together with {@link #getGeneration()}.
+ * The generation changes whenever a level or the source changes, which invalidates all cached levels at once.
+ */
+final class LogLevels {
+    private final Map<String, Level> explicitLevels = new ConcurrentHashMap<>();
+    private final AtomicInteger generation = new AtomicInteger(1);
+    private volatile Function<String, String> source;
+    private volatile boolean configured;
+
+    /**
+     * @return {@code true} if a level or a source was set at any time. If not, no logger needs to resolve its level.
+     * Stays {@code true} after the levels were cleared as loggers need to resolve their level once more to go back to
+     * {@code Level.ALL}.
+     */
+    boolean isConfigured() {
+        return configured;
+    }
+
+    /**
+     * @return A number that changes whenever the resolved level of a logger might have changed. Never {@code 0}.
+     */
+    int getGeneration() {
+        return generation.get();
+    }
+
+    Level getExplicitLevel(String name) {
+        return explicitLevels.get(name);
+    }
+
+    void setExplicitLevel(String name, Level level) {
+        if (level == null)
+            explicitLevels.remove(name);
+        else
+            explicitLevels.put(name, level);
+        changed();
+    }
+
+    /**
+     * @param source Maps a logger or package name to the name or value of its level or to {@code null} if the source
+     *               does not define a level for that name. May be {@code null} to remove the source.
+     */
+    void setSource(Function<String, String> source) {
+        this.source = source;
+        changed();
+    }
+
+    void clear() {
+        explicitLevels.clear();
+        source = null;
+        changed();
+    }
+
+    /**
+     * Invalidates all cached levels, e. g. because the values of the source changed.
+     */
+    void changed() {
+        if (source != null || !explicitLevels.isEmpty())
+            configured = true;
+        int next = generation.incrementAndGet();
+        if (next == 0)
+            generation.compareAndSet(0, 1);
+    }
+
+    /**
+     * Resolves the level of the specified logger.
+     *
+     * @param loggerName The name of the logger, usually a fully qualified class name
+     * @return The level of the logger or of its closest package that has a level or {@code null} if none of them has
+     * a level
+     */
+    Level resolve(String loggerName) {
+        String name = loggerName;
+        while (true) {
+            Level level = explicitLevels.get(name);
+            if (level == null)
+                level = lookUpSource(name);
+            if (level != null)
+                return level;
+
+            int separatorIndex = Math.max(name.lastIndexOf('.'), name.lastIndexOf('$'));
+            if (separatorIndex <= 0)
+                return null;
+            name = name.substring(0, separatorIndex);
+        }
+    }
+
+    private Level lookUpSource(String name) {
+        Function<String, String> currentSource = source;
+        if (currentSource == null)
+            return null;
+
+        String value = currentSource.apply(name);
+        if (value == null || value.isBlank())
+            return null;
+        try {
+            return Level.parse(value.trim());
+        } catch (IllegalArgumentException e) {
+            // invalid values are ignored, logging them here could recurse into this method
+            return null;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Limits how often the same log statement may produce a record, see {@link FOKLogger#enableLogRateLimiting(int, double, long)}.<br>
+ * <br>
+ * A call site is identified by the method and bytecode index of the first caller outside the logging classes, the level
+ * and the class of the exception. The message is not part of it, so messages that are concatenated at runtime are
+ * limited like constant ones, and statements that log the same message (e. g. {@link FOKLogger#DEFAULT_ERROR_TEXT}) in
+ * different catch blocks are limited separately.<br>
+ * <br>
+ * Walking the stack to find the caller costs a few microseconds, so records are first limited by a key that is cheap to
+ * compute: the logger, the level and the class of the exception. As long as all statements with the same key stay
+ * within the limit together, none of them can exceed it and the caller is not needed. Once the key exceeds the limit, it
+ * is split into call sites, which costs the stack walk for the records with that key until it is idle again. The call
+ * site that exceeded the limit takes over the state of the key, the others start with a full burst.<br>
+ * <br>
+ * Every key and call site has a token bucket (implemented as a generic cell rate algorithm, so acquiring a token is a
+ * single compare-and-set). Suppressed records are counted and reported periodically as one record per call site.
+ */
+class LogRateLimiter {
+    /**
+     * The maximum number of keys and of call sites that are tracked. Idle ones are forgotten when suppressed records
+     * are reported, so this is only reached by an application with more active log statements than that, which are not
+     * limited until others become idle.
+     */
+    private static final int MAX_CALL_SITES = 4096;
+    private static final StackWalker stackWalker = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    private static final ScheduledExecutorService reportScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LogRateLimiterReporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Map<Key, KeyBucket> keyBuckets = new ConcurrentHashMap<>();
+    private final Map<CallSite, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ThreadLocal<Key> keyLookupKeys = ThreadLocal.withInitial(Key::new);
+    private final ThreadLocal<CallSite> callSiteLookupKeys = ThreadLocal.withInitial(CallSite::new);
+    private final ScheduledFuture<?> reportTask;
+
+    /**
+     * @param maxBurst             The number of records a call site may log at once before it is limited
+     * @param recordsPerSecond     The number of records per second a call site may log on average
+     * @param reportIntervalMillis The interval in which the number of suppressed records is logged
+     */
+    LogRateLimiter(int maxBurst, double recordsPerSecond, long reportIntervalMillis) {
+        if (maxBurst < 1)
+            throw new IllegalArgumentException("maxBurst must be at least 1");
+        if (recordsPerSecond <= 0)
+            throw new IllegalArgumentException("recordsPerSecond must be positive");
+        emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / recordsPerSecond);
+        burstToleranceNanos = emissionIntervalNanos * (maxBurst - 1);
+        reportTask = reportScheduler.scheduleWithFixedDelay(this::reportSuppressedRecords, reportIntervalMillis, reportIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks whether the calling log statement may log another record.
+     *
+     * @param className The name of the logger that suppressed records are reported to
+     * @param message   The message or message supplier, only used to report suppressed records
+     * @return {@code true} if the record may be logged, {@code false} if it is suppressed
+     */
+    boolean tryAcquire(String className, Level level, Object message, Throwable thrown) {
+        Class<?> thrownClass = thrown == null ? null : thrown.getClass();
+        KeyBucket keyBucket = getKeyBucket(className, level, thrownClass);
+        if (keyBucket == null)
+            return true;
+
+        long now = System.nanoTime();
+        // the key keeps counting after it was split, so it only becomes idle once all of its call sites are
+        boolean acquiredByKey = keyBucket.tryAcquire(now);
+        if (acquiredByKey && !keyBucket.split)
+            return true;
+        boolean splitting = !keyBucket.split;
+        keyBucket.split = true;
+
+        StackWalker.StackFrame caller = stackWalker.walk(frames -> frames.filter(frame -> !isLoggingFrame(frame)).findFirst()).orElse(null);
+        if (caller == null)
+            return true;
+        Bucket bucket = getBucket(caller, className, level, thrownClass, splitting ? keyBucket : null);
+        if (bucket == null || bucket.tryAcquire(now))
+            return true;
+        bucket.suppressedCount.incrementAndGet();
+        bucket.lastSuppressedMessage = message;
+        return false;
+    }
+
+    private KeyBucket getKeyBucket(String className, Level level, Class<?> thrownClass) {
+        Key lookupKey = keyLookupKeys.get();
+        lookupKey.set(className, level, thrownClass);
+        KeyBucket keyBucket = keyBuckets.get(lookupKey);
+        // the lookup key of a thread must not keep the class of an exception loaded
+        lookupKey.clear();
+        if (keyBucket != null || keyBuckets.size() >= MAX_CALL_SITES)
+            return keyBucket;
+
+        Key key = new Key();
+        key.set(className, level, thrownClass);
+        return keyBuckets.computeIfAbsent(key, k -> new KeyBucket());
+    }
+
+    /**
+     * @param splitKey The key that the call site exceeded, {@code null} if the key was split before
+     */
+    private Bucket getBucket(StackWalker.StackFrame caller, String className, Level level, Class<?> thrownClass, KeyBucket splitKey) {
+        CallSite lookupKey = callSiteLookupKeys.get();
+        lookupKey.set(caller, level, thrownClass);
+        Bucket bucket = buckets.get(lookupKey);
+        lookupKey.clear();
+        if (bucket != null || buckets.size() >= MAX_CALL_SITES)
+            return bucket;
+
+        CallSite callSite = new CallSite();
+        callSite.set(caller, level, thrownClass);
+        return buckets.computeIfAbsent(callSite, key -> {
+            Bucket res = new Bucket(key, className, caller.toStackTraceElement());
+            if (splitKey != null)
+                res.nextArrivalNanos.set(splitKey.nextArrivalNanos.get());
+            return res;
+        });
+    }
+
+    private static boolean isLoggingFrame(StackWalker.StackFrame frame) {
+        return frame.getDeclaringClass() == FOKLogger.class || frame.getDeclaringClass() == LogRateLimiter.class;
+    }
+
+    /**
+     * Logs one record for every call site that suppressed records since the last report and forgets keys and call
+     * sites which were idle for a while.
+     */
+    void reportSuppressedRecords() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> {
+            long suppressedCount = bucket.suppressedCount.getAndSet(0);
+            if (suppressedCount > 0) {
+                Object lastMessage = bucket.lastSuppressedMessage;
+                String message = lastMessage == null || lastMessage instanceof String ? (String) lastMessage : "<supplied message>";
+                FOKLogger.getLoggerByClassName(bucket.className).getLogger().log(bucket.callSite.level,
+                        "The following message was suppressed {0} times: {1} (logged at {2})", new Object[]{suppressedCount, message, bucket.location});
+                return false;
+            }
+            return bucket.isIdle(now);
+        });
+        keyBuckets.values().removeIf(keyBucket -> keyBucket.isIdle(now));
+    }
+
+    /**
+     * Stops reporting and reports the records that were suppressed so far.
+     */
+    void close() {
+        reportTask.cancel(false);
+        reportSuppressedRecords();
+    }
+
+    private static class Key {
+        private String className;
+        private Level level;
+        private Class<?> thrownClass;
+        private int hash;
+
+        void set(String className, Level level, Class<?> thrownClass) {
+            this.className = className;
+            this.level = level;
+            this.thrownClass = thrownClass;
+            hash = (Objects.hashCode(className) * 31 + System.identityHashCode(thrownClass)) * 31 + level.intValue();
+        }
+
+        void clear() {
+            className = null;
+            level = null;
+            thrownClass = null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return level == other.level && thrownClass == other.thrownClass && Objects.equals(className, other.className);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class CallSite {
+        private Class<?> declaringClass;
+        private String methodName;
+        /**
+         * Distinguishes overloads, whose calls might be at the same bytecode index
+         */
+        private MethodType methodType;
+        private int bytecodeIndex;
+        private Level level;
+        private Class<?> thrownClass;
+        private int hash;
+
+        void set(StackWalker.StackFrame caller, Level level, Class<?> thrownClass) {
+            this.declaringClass = caller.getDeclaringClass();
+            this.methodName = caller.getMethodName();
+            this.methodType = caller.getMethodType();
+            this.bytecodeIndex = caller.getByteCodeIndex();
+            this.level = level;
+            this.thrownClass = thrownClass;
+            hash = (((System.identityHashCode(declaringClass) * 31 + methodName.hashCode()) * 31 + bytecodeIndex) * 31
+                    + System.identityHashCode(thrownClass)) * 31 + level.intValue();
+        }
+
+        void clear() {
+            declaringClass = null;
+            methodName = null;
+            methodType = null;
+            level = null;
+            thrownClass = null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CallSite))
+                return false;
+            CallSite other = (CallSite) o;
+            return declaringClass == other.declaringClass && bytecodeIndex == other.bytecodeIndex && level == other.level
+                    && thrownClass == other.thrownClass && methodName.equals(other.methodName) && Objects.equals(methodType, other.methodType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A token bucket.
+     */
+    private class TokenBucket {
+        /**
+         * The theoretical arrival time of the next record
+         */
+        final AtomicLong nextArrivalNanos = new AtomicLong(Long.MIN_VALUE);
+
+        boolean tryAcquire(long now) {
+            while (true) {
+                long arrival = nextArrivalNanos.get();
+                long start = arrival == Long.MIN_VALUE || arrival - now < 0 ? now : arrival;
+                if (start - now > burstToleranceNanos)
+                    return false;
+                if (nextArrivalNanos.compareAndSet(arrival, start + emissionIntervalNanos))
+                    return true;
+            }
+        }
+
+        boolean isIdle(long now) {
+            long arrival = nextArrivalNanos.get();
+            return arrival == Long.MIN_VALUE || arrival - now < 0;
+        }
+    }
+
+    private class KeyBucket extends TokenBucket {
+        /**
+         * {@code true} once the key exceeded the limit, from then on its records are limited per call site
+         */
+        private volatile boolean split;
+    }
+
+    private class Bucket extends TokenBucket {
+        private final CallSite callSite;
+        private final String className;
+        private final StackTraceElement location;
+        private final AtomicLong suppressedCount = new AtomicLong();
+        private volatile Object lastSuppressedMessage;
+
+        Bucket(CallSite callSite, String className, StackTraceElement location) {
+            this.callSite = callSite;
+            this.className = className;
+            this.location = location;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.LogRecord;
+
+/**
+ * A bounded, lock-free multi-producer multi-consumer ring buffer for {@link LogRecord}s.
+ * Every slot carries a sequence number which tells producers and consumers whether the slot is free or filled
+ * so that neither side ever needs to take a lock.
+ */
+class LogRecordRingBuffer {
+    private final AtomicReferenceArray<LogRecord> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Creates a new ring buffer
+     *
+     * @param requestedCapacity The minimum amount of records that the buffer can hold. Will be rounded up to the next power of two.
+     */
+    LogRecordRingBuffer(int requestedCapacity) {
+        if (requestedCapacity <= 0)
+            throw new IllegalArgumentException("The capacity must be greater than 0");
+        int capacity = Integer.highestOneBit(requestedCapacity);
+        if (capacity < requestedCapacity)
+            capacity = capacity << 1;
+
+        slots = new AtomicReferenceArray<>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        mask = capacity - 1;
+        for (int i = 0; i < capacity; i++)
+            sequences.set(i, i);
+    }
+
+    /**
+     * Inserts the specified record if there is space left in the buffer.
+     *
+     * @param record The record to insert
+     * @return {@code true} if the record was inserted, {@code false} if the buffer is full.
+     */
+    boolean offer(LogRecord record) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, record);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest record from the buffer.
+     *
+     * @return The oldest record or {@code null} if the buffer is empty.
+     */
+    LogRecord poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    LogRecord record = slots.get(index);
+                    slots.set(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return record;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    /**
+     * @return The approximate amount of records currently in the buffer.
+     */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * A {@link Handler} that keeps the most recent records in a fixed-size circular buffer in memory, e. g. to attach
+ * them to a crash report instead of the whole log file. Publishing a record is lock-free and never blocks, older
+ * records are simply overwritten.
+ */
+public class LogTailBuffer extends Handler {
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /**
+     * Creates a new buffer.
+     *
+     * @param capacity The maximum number of records to keep
+     */
+    public LogTailBuffer(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (!isLoggable(record))
+            return;
+        long sequence = nextSequence.getAndIncrement();
+        slots.set((int) (sequence % slots.length()), new Entry(sequence, record));
+    }
+
+    /**
+     * Copies the records that are currently in the buffer. Records which are overwritten or still being published
+     * while the snapshot is taken are skipped.
+     *
+     * @return The buffered records, oldest first
+     */
+    public List<LogRecord> snapshot() {
+        long end = nextSequence.get();
+        long start = Math.max(0, end - slots.length());
+        List<LogRecord> res = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Entry entry = slots.get((int) (sequence % slots.length()));
+            if (entry != null && entry.sequence == sequence)
+                res.add(entry.record);
+        }
+        return res;
+    }
+
+    /**
+     * Formats the most recent records using a {@link OneLineFormatter}.
+     *
+     * @param maxBytes The maximum size of the result in bytes when encoded as utf-8. Older records are omitted to stay
+     *                 within this limit.
+     * @return The formatted records, oldest first
+     */
+    public String snapshotAsText(long maxBytes) {
+        List<LogRecord> records = snapshot();
+        OneLineFormatter formatter = new OneLineFormatter();
+        List<String> formattedRecords = new ArrayList<>();
+        long totalBytes = 0;
+        for (int i = records.size() - 1; i >= 0; i--) {
+            String formattedRecord = formatter.format(records.get(i));
+            totalBytes += formattedRecord.getBytes(StandardCharsets.UTF_8).length;
+            if (totalBytes > maxBytes)
+                break;
+            formattedRecords.add(formattedRecord);
+        }
+
+        Collections.reverse(formattedRecords);
+        return String.join("", formattedRecords);
+    }
+
+    /**
+     * @return The maximum number of records that are kept
+     */
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    @Override
+    public void flush() {
+        // nothing to flush
+    }
+
+    @Override
+    public void close() throws SecurityException {
+        // nothing to close, the records stay available
+    }
+
+    private static class Entry {
+        private final long sequence;
+        private final LogRecord record;
+
+        Entry(long sequence, LogRecord record) {
+            this.sequence = sequence;
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.*;
+
+/**
+ * A {@link Handler} that writes the log file through a memory-mapped region of the file instead of a stream.
+ * Threads reserve space in the mapped region with an atomic cursor and copy their formatted record into it without
+ * taking a lock. Once the region is full, the next region of the file is mapped. As the records are written to the
+ * page cache directly, all completed records survive a crash of the jvm without flushing every record.<br>
+ * <br>
+ * The file is pre-allocated region by region. When the handler is closed, the file is truncated to the bytes that were
+ * actually written. If the jvm crashes, the file may therefore end with zero bytes after the last record. Unused bytes at
+ * the end of a region are filled with line breaks.
+ */
+public class MappedFileHandler extends Handler {
+    /**
+     * The default size of one mapped region
+     */
+    public static final int DEFAULT_REGION_SIZE = 4 * 1024 * 1024;
+    private static final byte PADDING = '\n';
+    private static final long MAX_CLOSE_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final FileChannel channel;
+    private final int regionSize;
+    /**
+     * The number of threads that are writing into a region. The file must not be truncated while a thread writes
+     * into a mapped region, as accessing a mapping beyond the end of the file crashes the jvm.
+     */
+    private final AtomicInteger activeWriters = new AtomicInteger();
+    private volatile Region currentRegion;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new handler that writes into the specified file using {@link #DEFAULT_REGION_SIZE} and an
+     * {@link StructuredXMLFormatter}. The file is truncated if it exists.
+     *
+     * @param fileName The file to write the log into
+     * @throws IOException If the file cannot be opened or mapped
+     */
+    public MappedFileHandler(String fileName) throws IOException {
+        this(fileName, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Creates a new handler that writes into the specified file using a {@link StructuredXMLFormatter}. The file is truncated if
+     * it exists.
+     *
+     * @param fileName   The file to write the log into
+     * @param regionSize The number of bytes that are mapped at once. Records larger than this get a region of their own.
+     * @throws IOException If the file cannot be opened or mapped
+     */
+    public MappedFileHandler(String fileName, int regionSize) throws IOException {
+        if (regionSize <= 0)
+            throw new IllegalArgumentException("regionSize must be positive");
+        this.regionSize = regionSize;
+        setFormatter(new StructuredXMLFormatter());
+        try {
+            setEncoding(StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        currentRegion = new Region(channel, 0, regionSize);
+        write(getFormatter().getHead(this));
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record))
+            return;
+
+        String formatted;
+        try {
+            formatted = getFormatter().format(record);
+        } catch (Exception e) {
+            reportError(null, e, ErrorManager.FORMAT_FAILURE);
+            return;
+        }
+
+        write(formatted);
+    }
+
+    private void write(String formatted) {
+        activeWriters.incrementAndGet();
+        try {
+            // checked after registering, so close() either waits for this write or this write sees that it was closed
+            if (!closed)
+                append(formatted.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            activeWriters.decrementAndGet();
+        }
+    }
+
+    private void append(byte[] bytes) {
+        try {
+            while (true) {
+                Region region = currentRegion;
+                int position = region.cursor.getAndAdd(bytes.length);
+                if (position <= region.capacity - bytes.length) {
+                    region.buffer.put(position, bytes);
+                    return;
+                }
+
+                if (position < region.capacity)
+                    // this reservation crossed the end of the region, so nobody else writes between here and the end
+                    region.pad(position);
+                if (!remap(region, bytes.length))
+                    return;
+            }
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    /**
+     * Maps the region that follows {@code fullRegion} unless another thread did so already.
+     *
+     * @param fullRegion   The region which is full
+     * @param requiredSize The size of the record that did not fit
+     * @return {@code false} if the file was closed in the meantime and the record cannot be written anymore
+     * @throws IOException If the new region cannot be mapped
+     */
+    private synchronized boolean remap(Region fullRegion, int requiredSize) throws IOException {
+        if (!channel.isOpen())
+            return false;
+        if (currentRegion == fullRegion)
+            currentRegion = new Region(channel, fullRegion.fileOffset + fullRegion.capacity, Math.max(regionSize, requiredSize));
+        return true;
+    }
+
+    /**
+     * Forces the mapped region to the storage device. Records are visible in the file without calling this method.
+     */
+    @Override
+    public void flush() {
+        Region region = currentRegion;
+        if (!closed)
+            region.buffer.force();
+    }
+
+    /**
+     * Waits for the records that are being written, writes the tail of the log, forces the written bytes to the
+     * storage device and truncates the file to the bytes that were written. Records published concurrently to this
+     * call might get lost. If a record is still being written after a second, the file is not truncated.
+     */
+    @Override
+    public void close() throws SecurityException {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        // without holding the lock, as writers that need a new region take it
+        long waitStart = System.nanoTime();
+        while (activeWriters.get() > 0 && System.nanoTime() - waitStart < MAX_CLOSE_WAIT_NANOS)
+            Thread.yield();
+        boolean drained = activeWriters.get() == 0;
+
+        synchronized (this) {
+            append(getFormatter().getTail(this).getBytes(StandardCharsets.UTF_8));
+            Region region = currentRegion;
+            try {
+                region.buffer.force();
+                if (drained)
+                    channel.truncate(region.fileOffset + Math.min(region.cursor.get(), region.capacity));
+                channel.close();
+            } catch (IOException e) {
+                reportError(null, e, ErrorManager.CLOSE_FAILURE);
+            }
+        }
+    }
+
+    private static class Region {
+        private final MappedByteBuffer buffer;
+        private final long fileOffset;
+        private final int capacity;
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        Region(FileChannel channel, long fileOffset, int capacity) throws IOException {
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, fileOffset, capacity);
+            this.fileOffset = fileOffset;
+            this.capacity = capacity;
+        }
+
+        void pad(int fromPosition) {
+            byte[] padding = new byte[capacity - fromPosition];
+            Arrays.fill(padding, PADDING);
+            buffer.put(fromPosition, padding);
+        }
+    }
+}
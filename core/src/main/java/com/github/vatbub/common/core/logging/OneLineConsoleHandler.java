@@ -0,0 +1,251 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The console handler used by {@link FOKLogger}. Records with a level of {@link Level#WARNING} or higher are written
+ * to {@code System.err}, all other records are written to {@code System.out}.<br>
+ * <br>
+ * Records are formatted into a reusable per-thread buffer and encoded with a per-thread {@link CharsetEncoder}.
+ * The encoded bytes are collected in a buffer per stream which is flushed periodically, when it is full or when the
+ * handler is closed, so that logging a line does not allocate intermediate Strings and byte arrays.
+ */
+public class OneLineConsoleHandler extends Handler {
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+    private static final int STREAM_BUFFER_SIZE = 16 * 1024;
+    private static final int INITIAL_THREAD_BUFFER_SIZE = 512;
+    private static final int MAX_RETAINED_THREAD_BUFFER_SIZE = 64 * 1024;
+
+    private final ThreadLocal<EncodingBuffer> encodingBuffers = ThreadLocal.withInitial(EncodingBuffer::new);
+    private final StreamSink outSink = new StreamSink(() -> System.out);
+    private final StreamSink errSink = new StreamSink(() -> System.err);
+    private final ScheduledFuture<?> flushTask;
+    private final Thread shutdownHook;
+
+    /**
+     * Creates a new handler that flushes every {@link #DEFAULT_FLUSH_INTERVAL_MILLIS} milliseconds.
+     */
+    public OneLineConsoleHandler() {
+        this(DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a new handler.
+     *
+     * @param flushIntervalMillis The interval in milliseconds in which the console streams are flushed.
+     */
+    public OneLineConsoleHandler(long flushIntervalMillis) {
+        setFormatter(new OneLineFormatter());
+        flushTask = FlushScheduler.SCHEDULER.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        shutdownHook = new Thread(this::flush, "ConsoleLogFlushShutdownHook");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (!isLoggable(record))
+            return;
+
+        try {
+            EncodingBuffer encodingBuffer = encodingBuffers.get();
+            StringBuilder text = encodingBuffer.getText();
+            Formatter formatter = getFormatter();
+            if (formatter instanceof OneLineFormatter)
+                ((OneLineFormatter) formatter).format(record, text);
+            else
+                text.append(formatter.format(record));
+
+            ByteBuffer encoded = encodingBuffer.encode();
+            if (record.getLevel().intValue() >= Level.WARNING.intValue())
+                errSink.write(encoded);
+            else
+                outSink.write(encoded);
+            encodingBuffer.trim();
+        } catch (Exception exception) {
+            reportError(null, exception, ErrorManager.FORMAT_FAILURE);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            outSink.flush();
+            errSink.flush();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.FLUSH_FAILURE);
+        }
+    }
+
+    /**
+     * Flushes all pending output and stops the periodic flushing. Does not close {@code System.out} or {@code System.err}.
+     */
+    @Override
+    public void close() throws SecurityException {
+        flushTask.cancel(false);
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // JVM is already shutting down
+        }
+        flush();
+    }
+
+    private static class FlushScheduler {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ConsoleLogFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Collects encoded bytes for one console stream. Picks up changes made through {@link System#setOut(PrintStream)}
+     * or {@link System#setErr(PrintStream)}.
+     */
+    private static class StreamSink {
+        private final Supplier<PrintStream> streamSupplier;
+        private final ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+        private PrintStream currentStream;
+        private WritableByteChannel channel;
+
+        StreamSink(Supplier<PrintStream> streamSupplier) {
+            this.streamSupplier = streamSupplier;
+        }
+
+        synchronized void write(ByteBuffer encoded) throws IOException {
+            if (encoded.remaining() > buffer.remaining())
+                flushBuffer();
+
+            if (encoded.remaining() > buffer.capacity()) {
+                WritableByteChannel target = getChannel();
+                while (encoded.hasRemaining())
+                    target.write(encoded);
+            } else {
+                buffer.put(encoded);
+            }
+        }
+
+        synchronized void flush() throws IOException {
+            flushBuffer();
+            if (currentStream != null)
+                currentStream.flush();
+        }
+
+        private void flushBuffer() throws IOException {
+            if (buffer.position() == 0)
+                return;
+
+            buffer.flip();
+            WritableByteChannel target = getChannel();
+            while (buffer.hasRemaining())
+                target.write(buffer);
+            buffer.clear();
+        }
+
+        private WritableByteChannel getChannel() {
+            PrintStream stream = streamSupplier.get();
+            if (stream != currentStream) {
+                if (currentStream != null)
+                    currentStream.flush();
+                currentStream = stream;
+                channel = Channels.newChannel(stream);
+            }
+            return channel;
+        }
+    }
+
+    /**
+     * Per-thread buffers used to format and encode a record.
+     */
+    private static class EncodingBuffer {
+        private final CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private StringBuilder text = new StringBuilder(INITIAL_THREAD_BUFFER_SIZE);
+        private CharBuffer chars = CharBuffer.allocate(INITIAL_THREAD_BUFFER_SIZE);
+        private ByteBuffer bytes = ByteBuffer.allocate(INITIAL_THREAD_BUFFER_SIZE);
+
+        StringBuilder getText() {
+            text.setLength(0);
+            return text;
+        }
+
+        ByteBuffer encode() {
+            int length = text.length();
+            if (chars.capacity() < length)
+                chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+            text.getChars(0, length, chars.array(), 0);
+            chars.clear().limit(length);
+
+            bytes.clear();
+            encoder.reset();
+            while (true) {
+                CoderResult result = chars.hasRemaining() ? encoder.encode(chars, bytes, true) : CoderResult.UNDERFLOW;
+                if (result.isUnderflow())
+                    result = encoder.flush(bytes);
+                if (result.isUnderflow())
+                    break;
+                if (result.isOverflow()) {
+                    ByteBuffer larger = ByteBuffer.allocate(bytes.capacity() * 2);
+                    bytes.flip();
+                    larger.put(bytes);
+                    bytes = larger;
+                }
+            }
+            bytes.flip();
+            return bytes;
+        }
+
+        /**
+         * Makes sure that a single huge record (e. g. a long stack trace) does not keep its buffers alive forever.
+         */
+        void trim() {
+            if (text.capacity() > MAX_RETAINED_THREAD_BUFFER_SIZE)
+                text = new StringBuilder(INITIAL_THREAD_BUFFER_SIZE);
+            if (chars.capacity() > MAX_RETAINED_THREAD_BUFFER_SIZE)
+                chars = CharBuffer.allocate(INITIAL_THREAD_BUFFER_SIZE);
+            if (bytes.capacity() > MAX_RETAINED_THREAD_BUFFER_SIZE)
+                bytes = ByteBuffer.allocate(INITIAL_THREAD_BUFFER_SIZE);
+        }
+    }
+}
@@ -22,7 +22,7 @@ package com.github.vatbub.common.core.logging;
 
 
 import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.io.Writer;
 import java.util.logging.LogRecord;
 import java.util.logging.SimpleFormatter;
 
@@ -32,23 +32,81 @@ public class OneLineFormatter extends SimpleFormatter {
         super();
     }
 
-    private static String getStackTrace(Throwable throwable) {
-        StringWriter sw = new StringWriter();
-        PrintWriter pw = new PrintWriter(sw, true);
-        throwable.printStackTrace(pw);
-        return sw.getBuffer().toString();
+    /**
+     * Writes the stack trace of the specified throwable directly into the target without building an intermediate String.
+     *
+     * @param throwable The throwable to print
+     * @param target    The builder to append the stack trace to
+     */
+    private static void appendStackTrace(Throwable throwable, StringBuilder target) {
+        throwable.printStackTrace(new PrintWriter(new StringBuilderWriter(target), false));
     }
 
     @Override
     public String format(LogRecord record) {
-        String res = "[" + record.getLevel() + "] " + record.getMessage() + "\r\n";
+        StringBuilder res = new StringBuilder();
+        format(record, res);
+        return res.toString();
+    }
+
+    /**
+     * Same as {@link #format(LogRecord)} but appends the formatted record to the specified builder.
+     * This allows callers to reuse the builder for many records.
+     *
+     * @param record The record to format
+     * @param target The builder to append the formatted record to
+     */
+    public void format(LogRecord record, StringBuilder target) {
+        target.append('[').append(record.getLevel().getName()).append("] ").append(formatMessage(record));
+        LogFields fields = StructuredLogRecord.getFields(record);
+        if (fields != null) {
+            target.append(" {");
+            fields.appendTo(target);
+            target.append('}');
+        }
+        target.append("\r\n");
 
         if (record.getThrown() != null) {
             // An exception is associated with the record
-            res = res + getStackTrace(record.getThrown()) + "\r\n";
+            appendStackTrace(record.getThrown(), target);
+            target.append("\r\n");
         }
-
-        return res;
     }
 
+    private static class StringBuilderWriter extends Writer {
+        private final StringBuilder target;
+
+        StringBuilderWriter(StringBuilder target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int c) {
+            target.append((char) c);
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            target.append(buffer, offset, length);
+        }
+
+        @Override
+        public void write(String string, int offset, int length) {
+            target.append(string, offset, offset + length);
+        }
+
+        @Override
+        public Writer append(CharSequence charSequence) {
+            target.append(charSequence);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
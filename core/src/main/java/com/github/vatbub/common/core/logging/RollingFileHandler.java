@@ -0,0 +1,232 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.ErrorManager;
+import java.util.logging.LogRecord;
+import java.util.logging.StreamHandler;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A file handler that always writes into the same file (the active segment) but rotates it once it exceeds a size
+ * or age threshold. Rotated segments are renamed to {@code <name>.<index>.<extension>}, gzip-compressed on a low
+ * priority background thread and the oldest segments are deleted once all segments together exceed a size limit.
+ * Like {@link java.util.logging.FileHandler}, the records are written as xml by default (using a {@link StructuredXMLFormatter}).
+ */
+public class RollingFileHandler extends StreamHandler {
+    private static final String COMPRESSED_EXTENSION = ".gz";
+    private static final ExecutorService compressionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LogSegmentCompressor");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private final File activeFile;
+    private final long maxFileSizeBytes;
+    private final long maxSegmentAgeMillis;
+    private final long maxTotalSizeBytes;
+    private final Pattern segmentPattern;
+    private final String segmentBaseName;
+    private final String segmentExtension;
+    private CountingOutputStream currentStream;
+    private long currentSegmentStart;
+    private int nextSegmentIndex;
+
+    /**
+     * Creates a new rolling file handler and truncates the active file if it exists.
+     *
+     * @param activeFilePath      The file that the current records are written to
+     * @param maxFileSizeBytes    The active file is rotated once it grows beyond this size. {@code 0} disables size based rotation.
+     * @param maxSegmentAgeMillis The active file is rotated once it is older than this. {@code 0} disables time based rotation.
+     * @param maxTotalSizeBytes   The oldest rotated segments are deleted once the size of all rotated segments exceeds this limit.
+     *                            {@code 0} keeps all segments.
+     * @throws IOException If the active file cannot be created
+     */
+    public RollingFileHandler(String activeFilePath, long maxFileSizeBytes, long maxSegmentAgeMillis, long maxTotalSizeBytes) throws IOException {
+        this.activeFile = new File(activeFilePath);
+        this.maxFileSizeBytes = maxFileSizeBytes;
+        this.maxSegmentAgeMillis = maxSegmentAgeMillis;
+        this.maxTotalSizeBytes = maxTotalSizeBytes;
+
+        String fileName = activeFile.getName();
+        int extensionIndex = fileName.lastIndexOf('.');
+        segmentBaseName = extensionIndex < 0 ? fileName : fileName.substring(0, extensionIndex);
+        segmentExtension = extensionIndex < 0 ? "" : fileName.substring(extensionIndex);
+        segmentPattern = Pattern.compile(Pattern.quote(segmentBaseName + ".") + "(\\d+)" + Pattern.quote(segmentExtension) + "(" + Pattern.quote(COMPRESSED_EXTENSION) + ")?");
+        nextSegmentIndex = findHighestSegmentIndex() + 1;
+
+        setFormatter(new StructuredXMLFormatter());
+        openActiveFile();
+    }
+
+    @Override
+    public synchronized void publish(LogRecord record) {
+        super.publish(record);
+        if (isRotationDue()) {
+            try {
+                rotate();
+            } catch (IOException e) {
+                reportError("Unable to rotate the log file", e, ErrorManager.OPEN_FAILURE);
+            }
+        }
+    }
+
+    private boolean isRotationDue() {
+        if (currentStream == null)
+            return false;
+        if (maxFileSizeBytes > 0 && currentStream.getCount() >= maxFileSizeBytes)
+            return true;
+        return maxSegmentAgeMillis > 0 && System.currentTimeMillis() - currentSegmentStart >= maxSegmentAgeMillis;
+    }
+
+    /**
+     * Closes the active file, renames it to the next segment name, hands it over to the compression thread and reopens
+     * a fresh active file.
+     *
+     * @throws IOException If the active file cannot be renamed or recreated
+     */
+    public synchronized void rotate() throws IOException {
+        // writes the tail of the formatter and closes the file
+        super.close();
+
+        File segment = new File(activeFile.getParentFile(), segmentBaseName + "." + nextSegmentIndex + segmentExtension);
+        nextSegmentIndex++;
+        Files.move(activeFile.toPath(), segment.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        compressionExecutor.execute(() -> compressAndPrune(segment));
+
+        openActiveFile();
+    }
+
+    private void openActiveFile() throws IOException {
+        currentStream = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(activeFile, false)));
+        currentSegmentStart = System.currentTimeMillis();
+        // writes the head of the formatter
+        setOutputStream(currentStream);
+    }
+
+    private void compressAndPrune(File segment) {
+        try {
+            File compressed = new File(segment.getPath() + COMPRESSED_EXTENSION);
+            File temp = new File(compressed.getPath() + ".tmp");
+            try (InputStream in = new BufferedInputStream(new FileInputStream(segment));
+                 OutputStream out = new GZIPOutputStream(new FileOutputStream(temp))) {
+                in.transferTo(out);
+            }
+            Files.move(temp.toPath(), compressed.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(segment.toPath());
+            pruneSegments();
+        } catch (IOException e) {
+            reportError("Unable to compress the log segment " + segment, e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    /**
+     * Deletes the oldest compressed segments. Segments that were not compressed yet are still queued for compression and
+     * are neither counted nor deleted.
+     */
+    private void pruneSegments() throws IOException {
+        if (maxTotalSizeBytes <= 0)
+            return;
+
+        List<Path> segments = listSegments();
+        segments.removeIf(segment -> !segment.getFileName().toString().endsWith(COMPRESSED_EXTENSION));
+        segments.sort(Comparator.comparingInt(this::getSegmentIndex).reversed());
+        long totalSize = 0;
+        for (Path segment : segments) {
+            totalSize += Files.size(segment);
+            if (totalSize > maxTotalSizeBytes)
+                Files.deleteIfExists(segment);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> res = new ArrayList<>();
+        File directory = activeFile.getAbsoluteFile().getParentFile();
+        if (directory == null || !directory.exists())
+            return res;
+        try (Stream<Path> files = Files.list(directory.toPath())) {
+            files.filter(path -> segmentPattern.matcher(path.getFileName().toString()).matches()).forEach(res::add);
+        }
+        return res;
+    }
+
+    private int getSegmentIndex(Path segment) {
+        Matcher matcher = segmentPattern.matcher(segment.getFileName().toString());
+        if (!matcher.matches())
+            return -1;
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    private int findHighestSegmentIndex() throws IOException {
+        int res = 0;
+        for (Path segment : listSegments())
+            res = Math.max(res, getSegmentIndex(segment));
+        return res;
+    }
+
+    @Override
+    public synchronized void close() throws SecurityException {
+        super.close();
+        currentStream = null;
+    }
+
+    public File getActiveFile() {
+        return activeFile;
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recognizes stack traces that were seen before so that only the first occurrence needs to be printed in full, see
+ * {@link FOKLogger#enableUncaughtExceptionDeduplication()}.<br>
+ * <br>
+ * A trace is identified by a 64 bit fingerprint of the exception classes and stack frames of the throwable and its
+ * causes. Messages are not part of the fingerprint as they often contain ids or timestamps. Computing the fingerprint
+ * only hashes the frames, no string is built.
+ */
+final class StackTraceFingerprints {
+    /**
+     * The maximum number of traces that are remembered. Traces beyond that are always printed in full.
+     */
+    static final int MAX_TRACKED_TRACES = 1024;
+    /**
+     * The number of throwables in the cause chain that are part of the fingerprint. Deeper causes rarely distinguish two
+     * traces, and the limit also ends cause chains that contain a cycle.
+     */
+    static final int MAX_CAUSE_DEPTH = 16;
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    /**
+     * Looks up the entry of the trace of the specified throwable and creates it if the trace was not seen before.
+     *
+     * @param throwable The throwable to look up
+     * @return The entry of the trace or {@code null} if the trace is new and already {@link #MAX_TRACKED_TRACES} traces
+     * are tracked
+     */
+    Entry track(Throwable throwable) {
+        StackTraceElement[] stackTrace = throwable.getStackTrace();
+        long fingerprint = fingerprint(throwable, stackTrace);
+        Entry entry = entries.get(fingerprint);
+        if (entry != null || entries.size() >= MAX_TRACKED_TRACES)
+            return entry;
+        return entries.computeIfAbsent(fingerprint, key -> new Entry(nextId.getAndIncrement(), getClassName(stackTrace)));
+    }
+
+    /**
+     * @param stackTrace A stack trace
+     * @return The name of the class that threw the exception
+     */
+    static String getClassName(StackTraceElement[] stackTrace) {
+        return stackTrace.length > 0 ? stackTrace[0].getClassName() : "Unknown class name";
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    static long fingerprint(Throwable throwable, StackTraceElement[] stackTrace) {
+        long hash = mix(0, throwable.getClass().getName().hashCode());
+        hash = mixFrames(hash, stackTrace);
+
+        Throwable cause = throwable.getCause();
+        for (int depth = 1; cause != null && cause != throwable && depth < MAX_CAUSE_DEPTH; depth++) {
+            hash = mix(hash, cause.getClass().getName().hashCode());
+            hash = mixFrames(hash, cause.getStackTrace());
+            cause = cause.getCause();
+        }
+        return hash;
+    }
+
+    private static long mixFrames(long hash, StackTraceElement[] stackTrace) {
+        hash = mix(hash, stackTrace.length);
+        for (StackTraceElement element : stackTrace)
+            hash = mix(hash, element.hashCode());
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        return Long.rotateLeft((hash ^ value) * MULTIPLIER, 31);
+    }
+
+    static final class Entry {
+        private final int id;
+        private final String className;
+        private final AtomicLong occurrences = new AtomicLong();
+
+        private Entry(int id, String className) {
+            this.id = id;
+            this.className = className;
+        }
+
+        /**
+         * @return The number that identifies the trace in the log
+         */
+        int getId() {
+            return id;
+        }
+
+        /**
+         * @return The name of the class that threw the exception
+         */
+        String getClassName() {
+            return className;
+        }
+
+        /**
+         * @return {@code true} if an occurrence was counted, which happens once the record with the full trace was
+         * accepted
+         */
+        boolean isFullTraceLogged() {
+            return occurrences.get() > 0;
+        }
+
+        /**
+         * Counts another occurrence of the trace.
+         *
+         * @return The number of occurrences including this one, {@code 1} for the first occurrence
+         */
+        long countOccurrence() {
+            return occurrences.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A {@link LogRecord} that carries typed key-value fields in addition to its message.
+ *
+ * @see LogFields
+ * @see LogContext
+ */
+public class StructuredLogRecord extends LogRecord {
+    private static final long serialVersionUID = 1L;
+    private final transient LogFields fields;
+
+    /**
+     * Creates a new record.
+     *
+     * @param level  The level of the record
+     * @param msg    The message of the record
+     * @param fields The fields of the record, {@code null} if there are none
+     */
+    public StructuredLogRecord(Level level, String msg, LogFields fields) {
+        super(level, msg);
+        this.fields = fields;
+    }
+
+    /**
+     * Returns the fields of the specified record.
+     *
+     * @param record The record to get the fields of
+     * @return The fields or {@code null} if the record has none
+     */
+    public static LogFields getFields(LogRecord record) {
+        if (!(record instanceof StructuredLogRecord))
+            return null;
+        LogFields fields = ((StructuredLogRecord) record).getFields();
+        return fields == null || fields.isEmpty() ? null : fields;
+    }
+
+    /**
+     * Attaches the {@link LogContext} of the current thread to the specified record. Must be called on the logging
+     * thread.
+     *
+     * @param record The record to attach the context to
+     * @return The record itself if it already carries fields or if the context is empty, otherwise a copy of the record
+     * with the context attached
+     */
+    static LogRecord withContext(LogRecord record) {
+        LogFields contextFields = LogContext.current();
+        if (contextFields == null || record instanceof StructuredLogRecord)
+            return record;
+
+        StructuredLogRecord res = new StructuredLogRecord(record.getLevel(), record.getMessage(), contextFields);
+        res.setParameters(record.getParameters());
+        res.setThrown(record.getThrown());
+        res.setLoggerName(record.getLoggerName());
+        res.setResourceBundle(record.getResourceBundle());
+        res.setResourceBundleName(record.getResourceBundleName());
+        res.setSequenceNumber(record.getSequenceNumber());
+        res.setInstant(record.getInstant());
+        //noinspection deprecation
+        res.setThreadID(record.getThreadID());
+        // inferring the caller only works on the logging thread
+        res.setSourceClassName(record.getSourceClassName());
+        res.setSourceMethodName(record.getSourceMethodName());
+        return res;
+    }
+
+    /**
+     * @return The fields of this record or {@code null} if there are none
+     */
+    public LogFields getFields() {
+        return fields;
+    }
+}
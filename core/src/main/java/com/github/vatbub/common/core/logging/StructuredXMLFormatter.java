@@ -0,0 +1,82 @@
+package com.github.vatbub.common.core.logging;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+
+import java.util.Locale;
+import java.util.logging.LogRecord;
+import java.util.logging.XMLFormatter;
+
+/**
+ * An {@link XMLFormatter} that additionally writes the fields of {@link StructuredLogRecord}s as
+ * {@code <field name="..." type="long|double|string">value</field>} elements in a {@code <fields>} element.
+ * Records without fields are formatted exactly like {@link XMLFormatter} does.
+ */
+public class StructuredXMLFormatter extends XMLFormatter {
+    private static final String RECORD_END = "</record>";
+
+    @Override
+    public String format(LogRecord record) {
+        String res = super.format(record);
+        LogFields fields = StructuredLogRecord.getFields(record);
+        int recordEnd = res.lastIndexOf(RECORD_END);
+        if (fields == null || recordEnd < 0)
+            return res;
+
+        StringBuilder builder = new StringBuilder(res.length() + 64 * fields.size());
+        builder.append(res, 0, recordEnd).append("  <fields>\n");
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            builder.append("    <field name=\"");
+            escape(builder, fields.getKey(i));
+            builder.append("\" type=\"").append(fields.getType(i).name().toLowerCase(Locale.ROOT)).append("\">");
+            value.setLength(0);
+            fields.appendValue(i, value);
+            escape(builder, value);
+            builder.append("</field>\n");
+        }
+        builder.append("  </fields>\n").append(res, recordEnd, res.length());
+        return builder.toString();
+    }
+
+    private static void escape(StringBuilder target, CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<':
+                    target.append("&lt;");
+                    break;
+                case '>':
+                    target.append("&gt;");
+                    break;
+                case '&':
+                    target.append("&amp;");
+                    break;
+                case '"':
+                    target.append("&quot;");
+                    break;
+                default:
+                    target.append(c);
+            }
+        }
+    }
+}
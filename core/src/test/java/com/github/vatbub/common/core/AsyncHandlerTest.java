@@ -0,0 +1,167 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import com.github.vatbub.common.core.logging.AsyncHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.awaitility.Awaitility.await;
+
+public class AsyncHandlerTest {
+    @Test
+    public void allRecordsArePublishedInOrderTest() {
+        RecordingHandler recordingHandler = new RecordingHandler();
+        AsyncHandler asyncHandler = new AsyncHandler(recordingHandler, 16, AsyncHandler.OverflowPolicy.BLOCK, Level.WARNING, 10);
+
+        int recordCount = 1000;
+        for (int i = 0; i < recordCount; i++)
+            asyncHandler.publish(new LogRecord(Level.INFO, Integer.toString(i)));
+        asyncHandler.close();
+
+        Assert.assertEquals(recordCount, recordingHandler.getRecords().size());
+        for (int i = 0; i < recordCount; i++)
+            Assert.assertEquals(Integer.toString(i), recordingHandler.getRecords().get(i).getMessage());
+        Assert.assertEquals(0, asyncHandler.getDroppedRecordCount());
+        Assert.assertTrue(recordingHandler.isClosed());
+    }
+
+    @Test
+    public void concurrentProducersTest() throws InterruptedException {
+        RecordingHandler recordingHandler = new RecordingHandler();
+        AsyncHandler asyncHandler = new AsyncHandler(recordingHandler, 64, AsyncHandler.OverflowPolicy.BLOCK, Level.WARNING, 10);
+
+        int threadCount = 4;
+        int recordsPerThread = 2000;
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < recordsPerThread; i++)
+                    asyncHandler.publish(new LogRecord(Level.INFO, "message"));
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+        asyncHandler.close();
+
+        Assert.assertEquals(threadCount * recordsPerThread, recordingHandler.getRecords().size());
+    }
+
+    @Test
+    public void dropOldestTest() {
+        CountDownLatch blockDelegate = new CountDownLatch(1);
+        RecordingHandler recordingHandler = new RecordingHandler(blockDelegate);
+        AsyncHandler asyncHandler = new AsyncHandler(recordingHandler, 4, AsyncHandler.OverflowPolicy.DROP_OLDEST, Level.WARNING, 10);
+
+        for (int i = 0; i < 100; i++)
+            asyncHandler.publish(new LogRecord(Level.INFO, Integer.toString(i)));
+        blockDelegate.countDown();
+        asyncHandler.close();
+
+        Assert.assertTrue(asyncHandler.getDroppedRecordCount() > 0);
+        List<LogRecord> records = recordingHandler.getRecords();
+        Assert.assertEquals("99", records.get(records.size() - 1).getMessage());
+        Assert.assertEquals(100, records.size() + asyncHandler.getDroppedRecordCount());
+    }
+
+    @Test
+    public void dropBelowLevelTest() {
+        CountDownLatch blockDelegate = new CountDownLatch(1);
+        RecordingHandler recordingHandler = new RecordingHandler(blockDelegate);
+        AsyncHandler asyncHandler = new AsyncHandler(recordingHandler, 4, AsyncHandler.OverflowPolicy.DROP_BELOW_LEVEL, Level.WARNING, 10);
+
+        for (int i = 0; i < 100; i++)
+            asyncHandler.publish(new LogRecord(Level.INFO, Integer.toString(i)));
+        Assert.assertTrue(asyncHandler.getDroppedRecordCount() > 0);
+
+        blockDelegate.countDown();
+        asyncHandler.publish(new LogRecord(Level.SEVERE, "severe"));
+        asyncHandler.close();
+
+        List<LogRecord> records = recordingHandler.getRecords();
+        Assert.assertEquals("severe", records.get(records.size() - 1).getMessage());
+    }
+
+    @Test
+    public void periodicFlushTest() {
+        RecordingHandler recordingHandler = new RecordingHandler();
+        AsyncHandler asyncHandler = new AsyncHandler(recordingHandler, 16, AsyncHandler.OverflowPolicy.BLOCK, Level.WARNING, 10);
+        asyncHandler.publish(new LogRecord(Level.INFO, "message"));
+        await().until(() -> recordingHandler.getFlushCount() > 0);
+        asyncHandler.close();
+    }
+
+    private static class RecordingHandler extends Handler {
+        private final List<LogRecord> records = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch blockUntil;
+        private volatile int flushCount;
+        private volatile boolean closed;
+
+        RecordingHandler() {
+            this(new CountDownLatch(0));
+        }
+
+        RecordingHandler(CountDownLatch blockUntil) {
+            this.blockUntil = blockUntil;
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            try {
+                blockUntil.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {
+            flushCount++;
+        }
+
+        @Override
+        public void close() throws SecurityException {
+            closed = true;
+        }
+
+        List<LogRecord> getRecords() {
+            return records;
+        }
+
+        int getFlushCount() {
+            return flushCount;
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import com.github.vatbub.common.core.logging.BinaryLogHandler;
+import com.github.vatbub.common.core.logging.BinaryLogReader;
+import com.github.vatbub.common.core.logging.LogFields;
+import com.github.vatbub.common.core.logging.OneLineFormatter;
+import com.github.vatbub.common.core.logging.StructuredLogRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.StreamHandler;
+import java.util.logging.XMLFormatter;
+
+public class BinaryLogTest {
+    /**
+     * Magic number and version
+     */
+    private static final int HEADER_LENGTH = 7;
+
+    private static List<LogRecord> createRecords() {
+        List<LogRecord> res = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            LogRecord record = new LogRecord(i % 2 == 0 ? Level.INFO : Level.WARNING, "message {0} from {1}");
+            record.setParameters(new Object[]{i, "test"});
+            record.setLoggerName("logger" + (i % 3));
+            record.setSourceClassName(BinaryLogTest.class.getName());
+            record.setSourceMethodName("createRecords");
+            res.add(record);
+        }
+
+        res.add(new StructuredLogRecord(Level.INFO, "structured", LogFields.create().add("count", -5).add("ratio", 0.125).add("name", "value").add("nothing", (String) null)));
+
+        LogRecord exceptionRecord = new LogRecord(Level.SEVERE, "exception");
+        exceptionRecord.setThrown(new IllegalStateException("outer", new IOException("inner")));
+        res.add(exceptionRecord);
+        return res;
+    }
+
+    private static byte[] writeBinary(List<LogRecord> records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Handler handler = new BinaryLogHandler(out);
+        records.forEach(handler::publish);
+        handler.close();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void roundTripTest() throws IOException {
+        List<LogRecord> records = createRecords();
+        byte[] binaryLog = writeBinary(records);
+
+        try (BinaryLogReader reader = new BinaryLogReader(new ByteArrayInputStream(binaryLog))) {
+            for (LogRecord expected : records) {
+                LogRecord actual = reader.readRecord();
+                Assert.assertNotNull(actual);
+                Assert.assertEquals(expected.getLevel(), actual.getLevel());
+                Assert.assertEquals(new OneLineFormatter().formatMessage(expected), actual.getMessage());
+                Assert.assertEquals(expected.getMillis(), actual.getMillis());
+                Assert.assertEquals(expected.getSequenceNumber(), actual.getSequenceNumber());
+                Assert.assertEquals(expected.getLoggerName(), actual.getLoggerName());
+                Assert.assertEquals(expected.getSourceClassName(), actual.getSourceClassName());
+                Assert.assertEquals(expected.getSourceMethodName(), actual.getSourceMethodName());
+                Assert.assertEquals(String.valueOf(StructuredLogRecord.getFields(expected)), String.valueOf(StructuredLogRecord.getFields(actual)));
+
+                if (expected.getThrown() == null) {
+                    Assert.assertNull(actual.getThrown());
+                } else {
+                    Assert.assertEquals(expected.getThrown().toString(), actual.getThrown().toString());
+                    // the class loader name is not stored, so compare the printed form
+                    Assert.assertEquals(Arrays.toString(expected.getThrown().getStackTrace()), Arrays.toString(actual.getThrown().getStackTrace()));
+                    Assert.assertEquals(expected.getThrown().getCause().toString(), actual.getThrown().getCause().toString());
+                }
+            }
+            Assert.assertNull(reader.readRecord());
+        }
+    }
+
+    @Test
+    public void convertToTextTest() throws IOException {
+        List<LogRecord> records = createRecords();
+        StringWriter writer = new StringWriter();
+        BinaryLogReader.convertToText(new ByteArrayInputStream(writeBinary(records)), writer);
+
+        OneLineFormatter formatter = new OneLineFormatter();
+        StringBuilder expected = new StringBuilder();
+        records.forEach(record -> expected.append(formatter.format(record)));
+        Assert.assertEquals(expected.toString(), writer.toString());
+    }
+
+    @Test
+    public void convertToXmlTest() throws IOException {
+        StringWriter writer = new StringWriter();
+        BinaryLogReader.convertToXml(new ByteArrayInputStream(writeBinary(createRecords())), writer);
+        String xml = writer.toString();
+        Assert.assertTrue(xml.contains("message 49 from test"));
+        Assert.assertTrue(xml.contains("java.lang.IllegalStateException: outer"));
+        Assert.assertTrue(xml.trim().endsWith("</log>"));
+    }
+
+    @Test
+    public void convertToXmlKeepsFieldsTest() throws IOException {
+        StringWriter writer = new StringWriter();
+        BinaryLogReader.convertToXml(new ByteArrayInputStream(writeBinary(createRecords())), writer);
+        String xml = writer.toString();
+        Assert.assertTrue(xml.contains("<field name=\"count\" type=\"long\">-5</field>"));
+        Assert.assertTrue(xml.contains("<field name=\"ratio\" type=\"double\">0.125</field>"));
+        Assert.assertTrue(xml.contains("<field name=\"name\" type=\"string\">value</field>"));
+    }
+
+    @Test
+    public void binaryIsSmallerThanXmlTest() throws IOException {
+        List<LogRecord> records = createRecords();
+        ByteArrayOutputStream xmlOut = new ByteArrayOutputStream();
+        StreamHandler xmlHandler = new StreamHandler(xmlOut, new XMLFormatter());
+        records.forEach(xmlHandler::publish);
+        xmlHandler.close();
+
+        Assert.assertTrue(writeBinary(records).length * 4 < xmlOut.size());
+    }
+
+    @Test
+    public void truncatedLogTest() throws IOException {
+        List<LogRecord> records = createRecords();
+        byte[] binaryLog = writeBinary(records);
+        byte[] truncatedLog = Arrays.copyOf(binaryLog, binaryLog.length - 3);
+
+        int count = 0;
+        try (BinaryLogReader reader = new BinaryLogReader(new ByteArrayInputStream(truncatedLog))) {
+            while (reader.readRecord() != null)
+                count++;
+        }
+        Assert.assertEquals(records.size() - 1, count);
+    }
+
+    @Test
+    public void truncatedAtEveryPositionTest() throws IOException {
+        List<LogRecord> records = createRecords();
+        byte[] binaryLog = writeBinary(records);
+
+        int previousCount = 0;
+        for (int length = HEADER_LENGTH; length <= binaryLog.length; length++) {
+            int count = 0;
+            try (BinaryLogReader reader = new BinaryLogReader(new ByteArrayInputStream(Arrays.copyOf(binaryLog, length)))) {
+                while (reader.readRecord() != null)
+                    count++;
+            }
+            Assert.assertTrue(count >= previousCount);
+            previousCount = count;
+        }
+        Assert.assertEquals(records.size(), previousCount);
+    }
+
+    @Test
+    public void recordFailingToEncodeTest() throws IOException {
+        LogRecord failingRecord = new LogRecord(Level.SEVERE, "failing");
+        failingRecord.setLoggerName("failingLogger");
+        failingRecord.setThrown(new IllegalStateException() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public String getMessage() {
+                throw new UnsupportedOperationException();
+            }
+        });
+        LogRecord nextRecord = new LogRecord(Level.SEVERE, "next");
+        nextRecord.setLoggerName("failingLogger");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Handler handler = new BinaryLogHandler(out);
+        List<Exception> errors = new ArrayList<>();
+        handler.setErrorManager(new ErrorManager() {
+            @Override
+            public void error(String msg, Exception ex, int code) {
+                errors.add(ex);
+            }
+        });
+        handler.publish(failingRecord);
+        handler.publish(nextRecord);
+        handler.close();
+        Assert.assertEquals(1, errors.size());
+
+        try (BinaryLogReader reader = new BinaryLogReader(new ByteArrayInputStream(out.toByteArray()))) {
+            LogRecord actual = reader.readRecord();
+            Assert.assertNotNull(actual);
+            Assert.assertEquals("next", actual.getMessage());
+            Assert.assertEquals("failingLogger", actual.getLoggerName());
+            Assert.assertNull(reader.readRecord());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidHeaderTest() throws IOException {
+        new BinaryLogReader(new ByteArrayInputStream("<?xml version=\"1.0\"?>".getBytes(StandardCharsets.UTF_8))).close();
+    }
+}
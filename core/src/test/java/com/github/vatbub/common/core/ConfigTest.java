@@ -26,10 +26,18 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 
 import static org.awaitility.Awaitility.await;
 
@@ -140,4 +148,271 @@ public class ConfigTest  extends CoreBaseTestClass{
             Assert.assertTrue(actual.contains(expectedString));
         }
     }
+
+    @Test
+    public void typedAccessorsTest() throws IOException {
+        Config config = new Config(ConfigTest.class.getResource("TypedTestConfig.properties"));
+        Assert.assertEquals(42, config.getInt("intParam", 0));
+        Assert.assertEquals(7, config.getInt("missingParam", 7));
+        Assert.assertEquals(9000000000L, config.getLong("longParam", 0));
+        Assert.assertTrue(config.getBoolean("booleanParam", false));
+        Assert.assertEquals(Duration.ofSeconds(90), config.getDuration("isoDurationParam", Duration.ZERO));
+        Assert.assertEquals(Duration.ofMillis(500), config.getDuration("shortDurationParam", Duration.ZERO));
+        Assert.assertEquals(Duration.ofMinutes(5), config.getDuration("minutesDurationParam", Duration.ZERO));
+        Assert.assertEquals(Arrays.asList("first", "second", "third"), config.getList("listParam"));
+        Assert.assertEquals(Collections.emptyList(), config.getList("missingParam"));
+        // parsed values are cached
+        Assert.assertSame(config.getList("listParam"), config.getList("listParam"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidTypedValueTest() throws IOException {
+        Config config = new Config(ConfigTest.class.getResource("TypedTestConfig.properties"));
+        config.getInt("invalidIntParam", 0);
+    }
+
+    @Test
+    public void snapshotTest() throws IOException {
+        Config config = new Config(ConfigTest.class.getResource("RemoteMergedTestConfig.properties"), ConfigTest.class.getResource("FallbackMergedTestConfig.properties"), false, cacheFileName);
+        ConfigSnapshot snapshot = config.getSnapshot();
+        Assert.assertEquals(Config.ConfigSource.ONLINE, snapshot.getSource());
+        Assert.assertEquals("mergedRemote", snapshot.getValue("configSource"));
+        Assert.assertEquals("yes", snapshot.getValue("localParam"));
+        Assert.assertEquals(3, snapshot.asMap().size());
+    }
+
+    private File writeRemoteConfig(String content) throws IOException {
+        File remoteConfigFile = new File(Common.getInstance().getAndCreateAppDataPath(), "refreshTestRemoteConfig.properties");
+        Files.write(remoteConfigFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return remoteConfigFile;
+    }
+
+    @Test
+    public void refreshTest() throws IOException {
+        File remoteConfigFile = writeRemoteConfig("configSource=refreshed\nunchangedParam=yes\nremovedParam=yes\n");
+        Config config = new Config(remoteConfigFile.toURI().toURL(), ConfigTest.class.getResource("FallbackTestConfig.properties"), false, cacheFileName);
+        List<ConfigChangeEvent> events = new CopyOnWriteArrayList<>();
+        config.addChangeListener(events::add);
+
+        Assert.assertFalse(config.refresh());
+        Assert.assertTrue(events.isEmpty());
+
+        writeRemoteConfig("configSource=refreshedAgain\nunchangedParam=yes\naddedParam=yes\n");
+        Assert.assertTrue(config.refresh());
+        Assert.assertEquals("refreshedAgain", config.getValue("configSource"));
+        Assert.assertNull(config.getValue("removedParam"));
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("configSource", "removedParam", "addedParam")), events.get(0).getChangedKeys());
+        Assert.assertEquals("refreshed", events.get(0).getOldSnapshot().getValue("configSource"));
+    }
+
+    @Test
+    public void periodicRefreshTest() throws IOException {
+        File remoteConfigFile = writeRemoteConfig("configSource=periodic\n");
+        Config config = new Config(remoteConfigFile.toURI().toURL(), ConfigTest.class.getResource("FallbackTestConfig.properties"), false, cacheFileName);
+        List<ConfigChangeEvent> events = new CopyOnWriteArrayList<>();
+        config.addChangeListener(events::add);
+        config.enablePeriodicRefresh(Duration.ofMillis(50), Duration.ofMillis(20));
+        Assert.assertTrue(config.isPeriodicRefreshEnabled());
+        try {
+            writeRemoteConfig("configSource=periodicallyRefreshed\n");
+            await().until(() -> "periodicallyRefreshed".equals(config.getValue("configSource")));
+            Assert.assertEquals(Collections.singleton("configSource"), events.get(0).getChangedKeys());
+        } finally {
+            config.disablePeriodicRefresh();
+        }
+        Assert.assertFalse(config.isPeriodicRefreshEnabled());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void refreshWithoutRemoteConfigTest() throws IOException {
+        new Config(ConfigTest.class.getResource("FileTestConfig.properties")).refresh();
+    }
+
+    @Test
+    public void keyedChangeListenerTest() throws IOException {
+        File remoteConfigFile = writeRemoteConfig("firstParam=1\nsecondParam=1\n");
+        Config config = new Config(remoteConfigFile.toURI().toURL(), ConfigTest.class.getResource("FallbackTestConfig.properties"), false, cacheFileName);
+        List<ConfigChangeEvent> events = new CopyOnWriteArrayList<>();
+        ConfigChangeListener listener = events::add;
+        config.addChangeListener(listener, Runnable::run, "secondParam");
+
+        writeRemoteConfig("firstParam=2\nsecondParam=1\n");
+        Assert.assertTrue(config.refresh());
+        Assert.assertTrue(events.isEmpty());
+
+        writeRemoteConfig("firstParam=3\nsecondParam=2\n");
+        Assert.assertTrue(config.refresh());
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(Collections.singleton("secondParam"), events.get(0).getChangedKeys());
+
+        config.removeChangeListener(listener);
+        writeRemoteConfig("firstParam=4\nsecondParam=3\n");
+        Assert.assertTrue(config.refresh());
+        Assert.assertEquals(1, events.size());
+    }
+
+    @Test
+    public void layersTest() throws IOException {
+        Config config = new Config(ConfigTest.class.getResource("RemoteMergedTestConfig.properties"), ConfigTest.class.getResource("FallbackMergedTestConfig.properties"), false, cacheFileName);
+        Assert.assertEquals(2, config.getLayers().size());
+
+        config.addFallbackLayer(ConfigLayer.of("defaults", Map.of("configSource", "defaults", "defaultParam", "yes")));
+        Assert.assertEquals("mergedRemote", config.getValue("configSource"));
+        Assert.assertEquals("yes", config.getValue("defaultParam"));
+
+        ConfigLayer overrides = ConfigLayer.of("overrides", Map.of("configSource", "override"));
+        config.addLayer(overrides);
+        Assert.assertEquals("override", config.getValue("configSource"));
+        Assert.assertEquals("yes", config.getValue("remoteParam"));
+        Assert.assertEquals("yes", config.getValue("localParam"));
+        Assert.assertEquals(4, config.getLayers().size());
+
+        Assert.assertTrue(config.removeLayer(overrides));
+        Assert.assertFalse(config.removeLayer(overrides));
+        Assert.assertEquals("mergedRemote", config.getValue("configSource"));
+    }
+
+    @Test
+    public void reloadLayersTest() {
+        Properties properties = new Properties();
+        properties.setProperty("param", "first");
+        String prefix = ConfigTest.class.getName() + ".";
+        Config config = new Config(Arrays.asList(ConfigLayer.of("properties", properties), ConfigLayer.systemProperties(prefix)));
+        Assert.assertEquals("first", config.getValue("param"));
+
+        List<ConfigChangeEvent> events = new CopyOnWriteArrayList<>();
+        config.addChangeListener(events::add);
+        // the index is only rebuilt when requested
+        properties.setProperty("param", "second");
+        Assert.assertEquals("first", config.getValue("param"));
+        config.reloadLayers();
+        Assert.assertEquals("second", config.getValue("param"));
+        Assert.assertEquals(1, events.size());
+
+        System.setProperty(prefix + "param", "systemProperty");
+        try {
+            config.reloadLayers();
+            Assert.assertEquals("systemProperty", config.getValue("param"));
+        } finally {
+            System.clearProperty(prefix + "param");
+        }
+        Assert.assertNull(config.getCurrentlyActiveSource());
+    }
+
+    /**
+     * Creates a url that only returns the specified content once {@code release} was counted down
+     */
+    private static URL slowUrl(String content, CountDownLatch release) throws MalformedURLException {
+        return new URL(null, "slow://config", new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(URL url) {
+                return new URLConnection(url) {
+                    @Override
+                    public void connect() {
+                    }
+
+                    @Override
+                    public InputStream getInputStream() throws IOException {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new InterruptedIOException();
+                        }
+                        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+                    }
+                };
+            }
+        });
+    }
+
+    /**
+     * Creates a url that returns the specified content and records the connect and read timeout of every connection
+     */
+    private static URL timeoutRecordingUrl(String content, List<Integer> timeouts) throws MalformedURLException {
+        return new URL(null, "recording://config", new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(URL url) {
+                return new URLConnection(url) {
+                    @Override
+                    public void connect() {
+                    }
+
+                    @Override
+                    public InputStream getInputStream() {
+                        timeouts.add(getConnectTimeout());
+                        timeouts.add(getReadTimeout());
+                        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+                    }
+                };
+            }
+        });
+    }
+
+    @Test
+    public void remoteTimeoutTest() throws IOException {
+        List<Integer> timeouts = new CopyOnWriteArrayList<>();
+        Config config = new Config(timeoutRecordingUrl("configSource=remote\n", timeouts), ConfigTest.class.getResource("FallbackTestConfig.properties"), false, cacheFileName, Duration.ofMinutes(2));
+        Assert.assertEquals(Arrays.asList(120000, 120000), timeouts);
+
+        timeouts.clear();
+        config.enablePeriodicRefresh(Duration.ofMinutes(10), Duration.ZERO);
+        try {
+            config.refresh();
+            Assert.assertEquals(Arrays.asList(120000, 120000), timeouts);
+
+            timeouts.clear();
+            config.enablePeriodicRefresh(Duration.ofMillis(500), Duration.ZERO);
+            config.refresh();
+            Assert.assertEquals(Arrays.asList(500, 500), timeouts.subList(0, 2));
+        } finally {
+            config.disablePeriodicRefresh();
+        }
+
+        timeouts.clear();
+        new Config(timeoutRecordingUrl("configSource=remote\n", timeouts), ConfigTest.class.getResource("FallbackTestConfig.properties"), false, cacheFileName);
+        Assert.assertEquals(Arrays.asList(30000, 30000), timeouts);
+    }
+
+    @Test
+    public void startupDeadlineTest() throws IOException {
+        CountDownLatch release = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        Config config = new Config(slowUrl("configSource=slowRemote\n", release), ConfigTest.class.getResource("FallbackTestConfig.properties"), false, cacheFileName, Duration.ofMillis(200));
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+        Assert.assertEquals(Config.ConfigSource.OFFLINE, config.getCurrentlyActiveSource());
+        Assert.assertEquals("fallback", config.getValue("configSource"));
+        Assert.assertFalse(config.getRemoteConfigFuture().isDone());
+
+        List<ConfigChangeEvent> events = new CopyOnWriteArrayList<>();
+        config.addChangeListener(events::add);
+        release.countDown();
+        Assert.assertSame(config, config.getRemoteConfigFuture().join());
+        Assert.assertEquals(Config.ConfigSource.ONLINE, config.getCurrentlyActiveSource());
+        Assert.assertEquals("slowRemote", config.getValue("configSource"));
+        Assert.assertEquals(1, events.size());
+    }
+
+    @Test
+    public void remoteConfigWithinStartupDeadlineTest() throws IOException {
+        Config config = new Config(ConfigTest.class.getResource("RemoteTestConfig.properties"), ConfigTest.class.getResource("FallbackTestConfig.properties"), false, cacheFileName, Duration.ofSeconds(30));
+        Assert.assertEquals(Config.ConfigSource.ONLINE, config.getCurrentlyActiveSource());
+        Assert.assertEquals("remote", config.getValue("configSource"));
+        Assert.assertTrue(config.getRemoteConfigFuture().isDone());
+    }
+
+    @Test
+    public void failingRemoteConfigWithStartupDeadlineTest() throws IOException {
+        File missingRemoteConfig = new File(Common.getInstance().getAndCreateAppDataPath(), "missingRemoteConfig.properties");
+        Config config = new Config(missingRemoteConfig.toURI().toURL(), ConfigTest.class.getResource("FallbackTestConfig.properties"), false, cacheFileName, Duration.ofSeconds(30));
+        Assert.assertEquals(Config.ConfigSource.OFFLINE, config.getCurrentlyActiveSource());
+        Assert.assertEquals("fallback", config.getValue("configSource"));
+        Assert.assertTrue(config.getRemoteConfigFuture().isCompletedExceptionally());
+        try {
+            config.getRemoteConfigFuture().join();
+            Assert.fail("Expected the future to fail");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+    }
 }
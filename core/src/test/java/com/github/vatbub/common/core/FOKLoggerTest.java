@@ -22,6 +22,7 @@ package com.github.vatbub.common.core;
 
 
 import com.github.vatbub.common.core.logging.FOKLogger;
+import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -30,8 +31,13 @@ import org.junit.contrib.java.lang.system.SystemOutRule;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 
+import static org.awaitility.Awaitility.await;
+
 public class FOKLoggerTest  extends CoreBaseTestClass{
     @Rule
     public final SystemOutRule systemOutRule = new SystemOutRule().enableLog();
@@ -62,6 +68,193 @@ public class FOKLoggerTest  extends CoreBaseTestClass{
         Assert.assertEquals(initialLevel, FOKLogger.getFileLogLevel());
     }
 
+    @Test
+    public void parameterizedMessageTest() throws IOException {
+        FOKLogger.resetAllLoggers();
+        Common.getInstance().setAppName(DEFAULT_APP_NAME);
+        Level initialLevel = FOKLogger.getFileLogLevel();
+        FOKLogger.setFileLogLevel(Level.INFO);
+
+        FOKLogger.info(FOKLoggerTest.class.getName(), "first {0}, second {1}", "param1", "param2");
+        FOKLogger.fine(FOKLoggerTest.class.getName(), "disabled {0}", "param3");
+
+        String logFileContents = StringCommon.fromFile(new File(FOKLogger.getLogFilePathAndName()));
+        Assert.assertTrue(logFileContents.contains("first param1, second param2"));
+        Assert.assertFalse(logFileContents.contains("param3"));
+
+        FOKLogger.setFileLogLevel(initialLevel);
+    }
+
+    @Test
+    public void isLoggableTest() {
+        FOKLogger.resetAllLoggers();
+        Common.getInstance().setAppName(DEFAULT_APP_NAME);
+        Level initialFileLevel = FOKLogger.getFileLogLevel();
+        Level initialConsoleLevel = FOKLogger.getConsoleLogLevel();
+        FOKLogger.setFileLogLevel(Level.WARNING);
+        FOKLogger.setConsoleLogLevel(Level.INFO);
+        // initialize the handlers
+        FOKLogger.info(FOKLoggerTest.class.getName(), "isLoggableTest");
+
+        Assert.assertTrue(FOKLogger.isLoggable(Level.SEVERE));
+        Assert.assertTrue(FOKLogger.isLoggable(Level.INFO));
+        Assert.assertFalse(FOKLogger.isLoggable(Level.FINE));
+        Assert.assertFalse(FOKLogger.isLoggable(Level.OFF));
+
+        FOKLogger.setFileLogLevel(initialFileLevel);
+        Assert.assertTrue(FOKLogger.isLoggable(Level.FINE));
+        FOKLogger.setConsoleLogLevel(initialConsoleLevel);
+    }
+
+    @Test
+    public void concurrentLoggerCreationTest() throws InterruptedException {
+        FOKLogger.resetAllLoggers();
+        String className = FOKLoggerTest.class.getName() + "Concurrent";
+        int threadCount = 8;
+        FOKLogger[] loggers = new FOKLogger[threadCount];
+        CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            final int index = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                loggers[index] = FOKLogger.getLoggerByClassName(className);
+            });
+            threads[i].start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        for (FOKLogger logger : loggers)
+            Assert.assertSame(loggers[0], logger);
+        Assert.assertSame(loggers[0], FOKLogger.getLoggerByClassName(className));
+    }
+
+    @Test
+    public void noRecordsLostDuringReinitializationTest() throws InterruptedException, IOException {
+        FOKLogger.resetAllLoggers();
+        Common.getInstance().setAppName(DEFAULT_APP_NAME);
+        // initialize the handlers
+        FOKLogger.info(FOKLoggerTest.class.getName(), "noRecordsLostDuringReinitializationTest");
+        FOKLogger.getLogFilePathAndName();
+
+        int threadCount = 4;
+        int messagesAfterReset = 200;
+        int[] messageCounts = new int[threadCount];
+        AtomicBoolean resetDone = new AtomicBoolean();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch loggingLatch = new CountDownLatch(threadCount);
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            final int index = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                int j = 0;
+                int lastMessage = Integer.MAX_VALUE;
+                while (j < lastMessage) {
+                    if (j == 50)
+                        loggingLatch.countDown();
+                    if (lastMessage == Integer.MAX_VALUE && resetDone.get())
+                        lastMessage = j + messagesAfterReset;
+                    FOKLogger.info(FOKLoggerTest.class.getName(), "reinitializationMessage_" + index + "_" + j + "_");
+                    j++;
+                }
+                messageCounts[index] = j;
+            });
+            threads[i].start();
+        }
+        startLatch.countDown();
+        loggingLatch.await();
+        // swaps in an interim handler set and then, in the background, a new file handler while the threads are logging
+        FOKLogger.resetAllLoggers();
+        resetDone.set(true);
+        for (Thread thread : threads)
+            thread.join();
+
+        // the records before the reset went to the previous file which is overwritten by the new one. All records in
+        // the new file must be complete and in order starting with the first one of every thread.
+        String logFileContents = StringCommon.fromFile(new File(FOKLogger.getLogFilePathAndName()));
+        for (int i = 0; i < threadCount; i++) {
+            int messagesPerThread = messageCounts[i];
+            int firstMessage = 0;
+            while (firstMessage < messagesPerThread && !logFileContents.contains("reinitializationMessage_" + i + "_" + firstMessage + "_"))
+                firstMessage++;
+            Assert.assertTrue(firstMessage < messagesPerThread);
+
+            int previousIndex = -1;
+            for (int j = firstMessage; j < messagesPerThread; j++) {
+                int index = logFileContents.indexOf("reinitializationMessage_" + i + "_" + j + "_");
+                Assert.assertTrue("Message " + j + " of thread " + i + " is missing", index >= 0);
+                Assert.assertTrue("Message " + j + " of thread " + i + " is out of order", index > previousIndex);
+                previousIndex = index;
+            }
+        }
+    }
+
+    @Test
+    public void recordsKeptOnRepeatedResetTest() throws IOException {
+        FOKLogger.resetAllLoggers();
+        Common.getInstance().setAppName(DEFAULT_APP_NAME);
+        FOKLogger.info(FOKLoggerTest.class.getName(), "recordsKeptOnRepeatedResetTest");
+        FOKLogger.getLogFilePathAndName();
+
+        // holding the lock keeps the background refresh from installing a file handler in between
+        synchronized (FOKLogger.class) {
+            FOKLogger.resetAllLoggers();
+            FOKLogger.info(FOKLoggerTest.class.getName(), "loggedBeforeSecondReset");
+            FOKLogger.resetAllLoggers();
+        }
+        FOKLogger.info(FOKLoggerTest.class.getName(), "loggedAfterSecondReset");
+
+        String logFileContents = StringCommon.fromFile(new File(FOKLogger.getLogFilePathAndName()));
+        int beforeIndex = logFileContents.indexOf("loggedBeforeSecondReset");
+        Assert.assertTrue(beforeIndex >= 0);
+        Assert.assertTrue(logFileContents.indexOf("loggedAfterSecondReset") > beforeIndex);
+    }
+
+    @Test
+    public void refreshScheduledBeforeResetIsSkippedTest() throws IOException {
+        FOKLogger.resetAllLoggers();
+        Common.getInstance().setAppName(DEFAULT_APP_NAME);
+        File logFolder = new File(Common.getInstance().getAppDataPath(), "Logs");
+
+        synchronized (FOKLogger.class) {
+            FOKLogger.info(FOKLoggerTest.class.getName(), "schedulesRefresh");
+            // the refresh needs the lock, so it is stuck until the folder was deleted
+            await().until(() -> Thread.getAllStackTraces().keySet().stream().anyMatch(thread ->
+                    thread.getName().equals("FOKLoggerHandlerInitializer") && thread.getState() == Thread.State.BLOCKED));
+            FOKLogger.resetAllLoggers();
+            FileUtils.deleteDirectory(logFolder);
+        }
+
+        await().during(Duration.ofMillis(500)).atMost(Duration.ofSeconds(2)).until(() -> !logFolder.exists());
+    }
+
+    @Test
+    public void fileLoggingStartsWhenAppNameIsSetTest() throws IOException {
+        FOKLogger.resetAllLoggers();
+        Common.getInstance().setAppName(null);
+        try {
+            for (int i = 0; i < 1000; i++)
+                FOKLogger.info(FOKLoggerTest.class.getName(), "loggedWithoutAppName");
+        } finally {
+            Common.getInstance().setAppName(DEFAULT_APP_NAME);
+        }
+        FOKLogger.info(FOKLoggerTest.class.getName(), "loggedWithAppName");
+
+        String logFileContents = StringCommon.fromFile(new File(FOKLogger.getLogFilePathAndName()));
+        Assert.assertTrue(logFileContents.contains("loggedWithAppName"));
+    }
+
     /* @Test
     public void consoleLogLevelTest() {
         FOKLogger.resetAllLoggers();
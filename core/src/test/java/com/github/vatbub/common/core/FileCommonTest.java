@@ -0,0 +1,81 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+public class FileCommonTest extends CoreBaseTestClass {
+    private Path target;
+
+    @Before
+    public void setUp() {
+        Common.getInstance().setAppName(DEFAULT_APP_NAME);
+        target = new File(Common.getInstance().getAndCreateAppDataPath(), "atomicWriteTest" + File.separator + "target.txt").toPath();
+    }
+
+    private File[] filesInTargetDirectory() {
+        return Objects.requireNonNull(target.getParent().toFile().listFiles());
+    }
+
+    @Test
+    public void writeAtomicallyTest() throws IOException {
+        FileCommon.writeAtomically(target, "first".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("first", Files.readString(target));
+        FileCommon.writeAtomically(target, "second".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("second", Files.readString(target));
+        Assert.assertEquals(1, filesInTargetDirectory().length);
+    }
+
+    @Test
+    public void failedWriteLeavesTargetUntouchedTest() throws IOException {
+        FileCommon.writeAtomically(target, "original".getBytes(StandardCharsets.UTF_8));
+        try {
+            FileCommon.writeAtomically(target, out -> {
+                out.write("partial".getBytes(StandardCharsets.UTF_8));
+                throw new IOException("Simulated failure");
+            });
+            Assert.fail("IOException expected");
+        } catch (IOException e) {
+            Assert.assertEquals("Simulated failure", e.getMessage());
+        }
+        Assert.assertEquals("original", Files.readString(target));
+        Assert.assertEquals(1, filesInTargetDirectory().length);
+    }
+
+    @Test
+    public void writeAtomicallyIfChangedTest() throws IOException {
+        Assert.assertTrue(FileCommon.writeAtomicallyIfChanged(target, "content".getBytes(StandardCharsets.UTF_8)));
+        long lastModified = target.toFile().lastModified();
+        Assert.assertFalse(FileCommon.writeAtomicallyIfChanged(target, "content".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals(lastModified, target.toFile().lastModified());
+        Assert.assertTrue(FileCommon.writeAtomicallyIfChanged(target, "changed".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals("changed", Files.readString(target));
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.github.vatbub.common.core.logging.FOKLogger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class LogLevelTest extends CoreBaseTestClass {
+    @Before
+    public void setUp() {
+        FOKLogger.resetAllLoggers();
+        Common.getInstance().setAppName(DEFAULT_APP_NAME);
+    }
+
+    @After
+    public void clearLogLevels() {
+        FOKLogger.clearLogLevels();
+    }
+
+    private static long countInTail(String message) {
+        return FOKLogger.getLogTail().stream().map(LogRecord::getMessage).filter(message::equals).count();
+    }
+
+    @Test
+    public void packageHierarchyTest() {
+        FOKLogger.setLogLevel("com.example", Level.WARNING);
+        FOKLogger.setLogLevel("com.example.network", Level.FINE);
+        FOKLogger.setLogLevel("com.example.network.Noisy", Level.SEVERE);
+
+        Assert.assertEquals(Level.WARNING, FOKLogger.getLogLevel("com.example"));
+        Assert.assertNull(FOKLogger.getLogLevel("com.example.ui"));
+        Assert.assertEquals(Level.WARNING, FOKLogger.getEffectiveLogLevel("com.example.ui.MainWindow"));
+        Assert.assertEquals(Level.FINE, FOKLogger.getEffectiveLogLevel("com.example.network.Client"));
+        Assert.assertEquals(Level.SEVERE, FOKLogger.getEffectiveLogLevel("com.example.network.Noisy$Inner"));
+        Assert.assertEquals(Level.ALL, FOKLogger.getEffectiveLogLevel("org.example.Other"));
+
+        Assert.assertFalse(FOKLogger.isLoggable("com.example.ui.MainWindow", Level.INFO));
+        Assert.assertTrue(FOKLogger.isLoggable("com.example.ui.MainWindow", Level.WARNING));
+        Assert.assertTrue(FOKLogger.isLoggable("com.example.network.Client", Level.INFO));
+        Assert.assertFalse(FOKLogger.isLoggable("com.example.network.Noisy", Level.WARNING));
+        Assert.assertTrue(FOKLogger.isLoggable("org.example.Other", Level.INFO));
+    }
+
+    @Test
+    public void recordsBelowLevelAreNotLoggedTest() {
+        String className = "com.example.filtered.Service";
+        FOKLogger.setLogLevel("com.example.filtered", Level.WARNING);
+        FOKLogger.info(className, "filteredInfoMessage");
+        FOKLogger.warning(className, "filteredWarningMessage");
+        Assert.assertEquals(0, countInTail("filteredInfoMessage"));
+        Assert.assertEquals(1, countInTail("filteredWarningMessage"));
+
+        // takes effect immediately for loggers whose level was already resolved
+        FOKLogger.setLogLevel("com.example.filtered", null);
+        FOKLogger.info(className, "unfilteredInfoMessage");
+        Assert.assertEquals(1, countInTail("unfilteredInfoMessage"));
+        Assert.assertEquals(Level.ALL, FOKLogger.getLoggerByClassName(className).getLogger().getLevel());
+    }
+
+    @Test
+    public void clearLogLevelsTest() {
+        String className = "com.example.cleared.Service";
+        FOKLogger.setLogLevel(className, Level.OFF);
+        Assert.assertFalse(FOKLogger.isLoggable(className, Level.SEVERE));
+        FOKLogger.clearLogLevels();
+        Assert.assertTrue(FOKLogger.isLoggable(className, Level.SEVERE));
+        Assert.assertNull(FOKLogger.getLogLevel(className));
+    }
+
+    @Test
+    public void loadFromConfigTest() throws IOException {
+        Config config = new Config(LogLevelTest.class.getResource("LogLevelTestConfig.properties"));
+        FOKLogger.loadLogLevels(config);
+        Assert.assertEquals(Level.WARNING, FOKLogger.getEffectiveLogLevel("com.example.config.Service"));
+        Assert.assertEquals(Level.FINEST, FOKLogger.getEffectiveLogLevel("com.example.config.verbose.Service"));
+        // invalid levels are ignored
+        Assert.assertEquals(Level.WARNING, FOKLogger.getEffectiveLogLevel("com.example.config.invalid.Service"));
+
+        // explicit levels take precedence
+        FOKLogger.setLogLevel("com.example.config", Level.SEVERE);
+        Assert.assertEquals(Level.SEVERE, FOKLogger.getEffectiveLogLevel("com.example.config.Service"));
+        Assert.assertEquals(Level.FINEST, FOKLogger.getEffectiveLogLevel("com.example.config.verbose.Service"));
+    }
+
+    @Test
+    public void loadFromPrefsTest() {
+        String className = "com.example.prefs.Service";
+        Prefs prefs = new Prefs(LogLevelTest.class.getName());
+        prefs.setPreference(FOKLogger.LOG_LEVEL_KEY_PREFIX + "com.example.prefs", "SEVERE");
+        FOKLogger.loadLogLevels(prefs);
+        Assert.assertFalse(FOKLogger.isLoggable(className, Level.WARNING));
+
+        prefs.setPreference(FOKLogger.LOG_LEVEL_KEY_PREFIX + "com.example.prefs", "INFO");
+        // the cached level is still used until the levels are reloaded
+        Assert.assertFalse(FOKLogger.isLoggable(className, Level.WARNING));
+        FOKLogger.reloadLogLevels();
+        Assert.assertTrue(FOKLogger.isLoggable(className, Level.WARNING));
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import com.github.vatbub.common.core.logging.FOKLogger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.awaitility.Awaitility.await;
+
+public class LogRateLimitingTest extends CoreBaseTestClass {
+
+    @Before
+    public void setUp() {
+        FOKLogger.resetAllLoggers();
+        Common.getInstance().setAppName(DEFAULT_APP_NAME);
+    }
+
+    @After
+    public void disableRateLimiting() {
+        FOKLogger.disableLogRateLimiting();
+    }
+
+    private static long countInTail(String message) {
+        return FOKLogger.getLogTail().stream().map(LogRecord::getMessage).filter(message::equals).count();
+    }
+
+    @Test
+    public void repeatedMessagesAreSuppressedTest() {
+        String message = "suppressedMessage";
+        FOKLogger.enableLogRateLimiting(3, 0.001, 100);
+        Assert.assertTrue(FOKLogger.isLogRateLimitingEnabled());
+        for (int i = 0; i < 20; i++)
+            FOKLogger.log(LogRateLimitingTest.class.getName(), Level.SEVERE, message, new IOException("Server down"));
+
+        Assert.assertEquals(3, countInTail(message));
+        await().until(() -> FOKLogger.getLogTail().stream().anyMatch(record ->
+                record.getParameters() != null && record.getParameters().length == 3
+                        && Long.valueOf(17).equals(record.getParameters()[0]) && message.equals(record.getParameters()[1])
+                        && record.getParameters()[2].toString().contains("repeatedMessagesAreSuppressedTest")));
+    }
+
+    @Test
+    public void differentExceptionsAreLimitedSeparatelyTest() {
+        String message = "limitedSeparatelyMessage";
+        FOKLogger.enableLogRateLimiting(1, 0.001, 10000);
+        for (Exception exception : new Exception[]{new IOException(), new IOException(), new IllegalStateException()})
+            FOKLogger.log(LogRateLimitingTest.class.getName(), Level.SEVERE, message, exception);
+        Assert.assertEquals(2, countInTail(message));
+    }
+
+    @Test
+    public void concatenatedMessagesAreLimitedTest() {
+        String message = "concatenatedMessage";
+        FOKLogger.enableLogRateLimiting(1, 0.001, 10000);
+        for (int i = 0; i < 5; i++)
+            FOKLogger.info(LogRateLimitingTest.class.getName(), message + i);
+        Assert.assertEquals(1, FOKLogger.getLogTail().stream().map(LogRecord::getMessage).filter(logged -> logged.startsWith(message)).count());
+    }
+
+    @Test
+    public void sameMessageAtDifferentCallSitesTest() {
+        String message = "differentCallSitesMessage";
+        FOKLogger.enableLogRateLimiting(1, 0.001, 10000);
+        for (int i = 0; i < 5; i++) {
+            FOKLogger.log(LogRateLimitingTest.class.getName(), Level.SEVERE, message, new IOException());
+            FOKLogger.log(LogRateLimitingTest.class.getName(), Level.SEVERE, message, new IOException());
+        }
+        Assert.assertEquals(2, countInTail(message));
+    }
+
+    @Test
+    public void limitedCallSiteDoesNotSuppressOthersTest() {
+        String floodingMessage = "floodingMessage";
+        String otherMessage = "otherMessage";
+        FOKLogger.enableLogRateLimiting(2, 0.001, 10000);
+        for (int i = 0; i < 5; i++)
+            FOKLogger.info(LogRateLimitingTest.class.getName(), floodingMessage);
+        // same logger, level and exception, so only the call site tells the statements apart
+        FOKLogger.info(LogRateLimitingTest.class.getName(), otherMessage);
+        FOKLogger.info(LogRateLimitingTest.class.getName(), otherMessage);
+        Assert.assertEquals(2, countInTail(floodingMessage));
+        Assert.assertEquals(2, countInTail(otherMessage));
+    }
+
+    @Test
+    public void parameterArrayIsLimitedTest() {
+        String message = "parameterArrayMessage {0} {1} {2}";
+        FOKLogger.enableLogRateLimiting(2, 0.001, 10000);
+        for (int i = 0; i < 5; i++)
+            FOKLogger.log(LogRateLimitingTest.class.getName(), Level.INFO, message, new Object[]{i, i, i});
+        Assert.assertEquals(2, countInTail(message));
+    }
+
+    @Test
+    public void disabledByDefaultTest() {
+        String message = "notLimitedMessage";
+        Assert.assertFalse(FOKLogger.isLogRateLimitingEnabled());
+        for (int i = 0; i < 20; i++)
+            FOKLogger.severe(LogRateLimitingTest.class.getName(), message);
+        Assert.assertEquals(20, countInTail(message));
+    }
+}
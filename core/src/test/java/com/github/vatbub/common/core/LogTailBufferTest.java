@@ -0,0 +1,89 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import com.github.vatbub.common.core.logging.FOKLogger;
+import com.github.vatbub.common.core.logging.LogTailBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class LogTailBufferTest extends CoreBaseTestClass {
+    @Test
+    public void keepsMostRecentRecordsTest() {
+        LogTailBuffer buffer = new LogTailBuffer(10);
+        for (int i = 0; i < 25; i++)
+            buffer.publish(new LogRecord(Level.INFO, "message" + i));
+
+        List<LogRecord> snapshot = buffer.snapshot();
+        Assert.assertEquals(10, snapshot.size());
+        for (int i = 0; i < 10; i++)
+            Assert.assertEquals("message" + (i + 15), snapshot.get(i).getMessage());
+    }
+
+    @Test
+    public void byteLimitTest() {
+        LogTailBuffer buffer = new LogTailBuffer(100);
+        for (int i = 0; i < 100; i++)
+            buffer.publish(new LogRecord(Level.INFO, "message" + i));
+
+        String text = buffer.snapshotAsText(100);
+        Assert.assertTrue(text.getBytes(StandardCharsets.UTF_8).length <= 100);
+        Assert.assertTrue(text.endsWith("[INFO] message99\r\n"));
+        Assert.assertFalse(text.contains("message0\r\n"));
+    }
+
+    @Test
+    public void concurrentPublishTest() throws InterruptedException {
+        LogTailBuffer buffer = new LogTailBuffer(64);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++)
+                    buffer.publish(new LogRecord(Level.INFO, "message"));
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        Assert.assertEquals(64, buffer.snapshot().size());
+    }
+
+    @Test
+    public void foKLoggerTailTest() {
+        FOKLogger.resetAllLoggers();
+        Common.getInstance().setAppName(DEFAULT_APP_NAME);
+        String message = "messageInTheTail";
+        FOKLogger.info(LogTailBufferTest.class.getName(), message);
+
+        List<LogRecord> tail = FOKLogger.getLogTail();
+        Assert.assertEquals(message, tail.get(tail.size() - 1).getMessage());
+        Assert.assertTrue(FOKLogger.getLogTailAsText(1024).contains(message));
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import com.github.vatbub.common.core.logging.MappedFileHandler;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class MappedFileHandlerTest {
+    private File logDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        logDirectory = Files.createTempDirectory("mappedFileHandlerTest").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(logDirectory);
+    }
+
+    @Test
+    public void concurrentWriteTest() throws IOException, InterruptedException {
+        File logFile = new File(logDirectory, "log.xml");
+        // small regions to force frequent remapping
+        MappedFileHandler handler = new MappedFileHandler(logFile.getPath(), 4096);
+
+        int threadCount = 8;
+        int recordsPerThread = 500;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int threadIndex = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < recordsPerThread; i++)
+                    handler.publish(new LogRecord(Level.INFO, "message_" + threadIndex + "_" + i + "_"));
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        handler.close();
+
+        String contents = StringCommon.fromFile(logFile);
+        Assert.assertTrue(contents.startsWith("<?xml"));
+        Assert.assertTrue(contents.trim().endsWith("</log>"));
+        Assert.assertEquals(-1, contents.indexOf('\0'));
+        for (int t = 0; t < threadCount; t++) {
+            for (int i = 0; i < recordsPerThread; i++) {
+                String message = "message_" + t + "_" + i + "_";
+                int index = contents.indexOf(message);
+                Assert.assertNotEquals(message, -1, index);
+                Assert.assertEquals(message, -1, contents.indexOf(message, index + 1));
+            }
+        }
+    }
+
+    @Test
+    public void closeWhilePublishingTest() throws IOException, InterruptedException {
+        File logFile = new File(logDirectory, "log.xml");
+        MappedFileHandler handler = new MappedFileHandler(logFile.getPath(), 4096);
+
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                // keeps publishing after the handler was closed, which must neither fail nor write anything
+                while (!stop.get())
+                    handler.publish(new LogRecord(Level.INFO, "publishedWhileClosing"));
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        Thread.sleep(50);
+        handler.close();
+        long sizeAfterClose = logFile.length();
+        Thread.sleep(50);
+        stop.set(true);
+        for (Thread thread : threads)
+            thread.join();
+
+        String contents = StringCommon.fromFile(logFile);
+        Assert.assertEquals(sizeAfterClose, logFile.length());
+        Assert.assertTrue(contents.trim().endsWith("</log>"));
+        Assert.assertEquals(-1, contents.indexOf('\0'));
+    }
+
+    @Test
+    public void recordLargerThanRegionTest() throws IOException {
+        File logFile = new File(logDirectory, "log.xml");
+        MappedFileHandler handler = new MappedFileHandler(logFile.getPath(), 1024);
+        String largeMessage = "a".repeat(5000);
+        handler.publish(new LogRecord(Level.INFO, "before"));
+        handler.publish(new LogRecord(Level.INFO, largeMessage));
+        handler.publish(new LogRecord(Level.INFO, "after"));
+        handler.close();
+
+        String contents = StringCommon.fromFile(logFile);
+        Assert.assertTrue(contents.contains("before"));
+        Assert.assertTrue(contents.contains(largeMessage));
+        Assert.assertTrue(contents.contains("after"));
+        Assert.assertTrue(contents.trim().endsWith("</log>"));
+    }
+
+    @Test
+    public void recordsVisibleBeforeCloseTest() throws IOException {
+        File logFile = new File(logDirectory, "log.xml");
+        MappedFileHandler handler = new MappedFileHandler(logFile.getPath(), 4096);
+        handler.publish(new LogRecord(Level.INFO, "visibleWithoutFlush"));
+        Assert.assertTrue(StringCommon.fromFile(logFile).contains("visibleWithoutFlush"));
+        handler.close();
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MappedLogPrefsBackendTest extends CoreBaseTestClass {
+    private Path file;
+
+    @Before
+    public void setUp() {
+        Common.getInstance().setAppName(DEFAULT_APP_NAME);
+        file = new File(Common.getInstance().getAndCreateAppDataPath(), "mappedLogTest" + PrefsFormat.MAPPED_LOG.getFileExtension()).toPath();
+    }
+
+    @Test
+    public void readAfterReopenTest() throws IOException {
+        try (MappedLogPrefsBackend backend = new MappedLogPrefsBackend(file)) {
+            Assert.assertNull(backend.put("key1", "value1"));
+            Assert.assertNull(backend.put("key2", "välue2"));
+            Assert.assertEquals("value1", backend.put("key1", "value3"));
+            backend.flush();
+        }
+
+        try (MappedLogPrefsBackend backend = new MappedLogPrefsBackend(file)) {
+            Assert.assertEquals("value3", backend.get("key1"));
+            Assert.assertEquals("välue2", backend.get("key2"));
+            Assert.assertNull(backend.get("key3"));
+            Assert.assertEquals(2, backend.getAll().size());
+        }
+    }
+
+    @Test
+    public void compactionTest() throws IOException {
+        try (MappedLogPrefsBackend backend = new MappedLogPrefsBackend(file)) {
+            List<Integer> logSizes = new ArrayList<>();
+            for (int i = 0; i < 20000; i++) {
+                backend.put("key" + (i % 10), "value" + i);
+                if (i % 1000 == 0) {
+                    backend.flush();
+                    logSizes.add(backend.getLogSize());
+                }
+            }
+            backend.flush();
+            for (int logSize : logSizes)
+                Assert.assertTrue("Log not compacted, size: " + logSize, logSize < 128 * 1024);
+            for (int i = 0; i < 10; i++)
+                Assert.assertEquals("value" + (19990 + i), backend.get("key" + i));
+        }
+
+        try (MappedLogPrefsBackend backend = new MappedLogPrefsBackend(file)) {
+            for (int i = 0; i < 10; i++)
+                Assert.assertEquals("value" + (19990 + i), backend.get("key" + i));
+        }
+    }
+
+    @Test
+    public void compactionDoesNotReplaceMappedFileTest() throws IOException {
+        Path compactedFile;
+        try (MappedLogPrefsBackend backend = new MappedLogPrefsBackend(file)) {
+            Assert.assertEquals(file, backend.getCurrentFile());
+            for (int i = 0; i < 10000; i++)
+                backend.put("key" + (i % 10), "value" + i);
+            backend.flush();
+
+            compactedFile = backend.getCurrentFile();
+            Assert.assertNotEquals(file, compactedFile);
+            Assert.assertTrue(Files.exists(compactedFile));
+        }
+
+        // simulates an old generation that could not be deleted because it was still mapped
+        Files.write(file, new byte[]{42});
+        try (MappedLogPrefsBackend backend = new MappedLogPrefsBackend(file)) {
+            Assert.assertEquals(compactedFile, backend.getCurrentFile());
+            for (int i = 0; i < 10; i++)
+                Assert.assertEquals("value" + (9990 + i), backend.get("key" + i));
+        }
+        Assert.assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void partiallyWrittenRecordTest() throws IOException {
+        int sizeAfterFirstRecord;
+        try (MappedLogPrefsBackend backend = new MappedLogPrefsBackend(file)) {
+            backend.put("key1", "value1");
+            sizeAfterFirstRecord = backend.getLogSize();
+            backend.put("key2", "value2");
+            backend.flush();
+        }
+
+        // simulates a crash while the second record was written
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            randomAccessFile.seek(sizeAfterFirstRecord + 12);
+            randomAccessFile.write(new byte[]{42, 42, 42});
+        }
+
+        try (MappedLogPrefsBackend backend = new MappedLogPrefsBackend(file)) {
+            Assert.assertEquals("value1", backend.get("key1"));
+            Assert.assertNull(backend.get("key2"));
+            Assert.assertEquals(sizeAfterFirstRecord, backend.getLogSize());
+
+            backend.put("key3", "value3");
+            backend.flush();
+        }
+
+        try (MappedLogPrefsBackend backend = new MappedLogPrefsBackend(file)) {
+            Assert.assertEquals("value1", backend.get("key1"));
+            Assert.assertEquals("value3", backend.get("key3"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void notAPreferenceLogTest() throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            randomAccessFile.write("someKey=someValue".getBytes());
+        }
+        new MappedLogPrefsBackend(file).close();
+    }
+
+    @Test
+    public void prefsWithMappedLogTest() {
+        String className = MappedLogPrefsBackendTest.class.getName() + (int) (Math.random() * 1000000000);
+        Prefs prefs = new Prefs(className, PrefsFormat.MAPPED_LOG);
+        List<String> changedKeys = new ArrayList<>();
+        prefs.addChangeListener(event -> changedKeys.addAll(event.getChangedKeys()));
+        prefs.setPreference("testPreference", "theTestValue");
+        Assert.assertEquals("theTestValue", prefs.getPreference("testPreference", "theDefaultValue"));
+        Assert.assertEquals(List.of("testPreference"), changedKeys);
+        prefs.close();
+
+        Prefs prefs2 = new Prefs(className, PrefsFormat.MAPPED_LOG);
+        Assert.assertEquals("theTestValue", prefs2.getPreference("testPreference", "theDefaultValue"));
+        prefs2.close();
+    }
+}
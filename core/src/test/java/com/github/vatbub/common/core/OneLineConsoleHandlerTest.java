@@ -0,0 +1,91 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import com.github.vatbub.common.core.logging.OneLineConsoleHandler;
+import com.github.vatbub.common.core.logging.OneLineFormatter;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.SystemErrRule;
+import org.junit.contrib.java.lang.system.SystemOutRule;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class OneLineConsoleHandlerTest {
+    @Rule
+    public final SystemOutRule systemOutRule = new SystemOutRule().enableLog();
+    @Rule
+    public final SystemErrRule systemErrRule = new SystemErrRule().enableLog();
+
+    @Test
+    public void levelRoutingTest() {
+        OneLineConsoleHandler handler = new OneLineConsoleHandler(60000);
+        handler.setLevel(Level.ALL);
+        handler.publish(new LogRecord(Level.INFO, "infoMessage"));
+        handler.publish(new LogRecord(Level.SEVERE, "severeMessage"));
+
+        // nothing is written until the handler is flushed
+        Assert.assertFalse(systemOutRule.getLog().contains("infoMessage"));
+
+        handler.close();
+        Assert.assertEquals("[INFO] infoMessage\r\n", systemOutRule.getLog());
+        Assert.assertEquals("[SEVERE] severeMessage\r\n", systemErrRule.getLog());
+    }
+
+    @Test
+    public void levelFilterTest() {
+        OneLineConsoleHandler handler = new OneLineConsoleHandler(60000);
+        handler.setLevel(Level.WARNING);
+        handler.publish(new LogRecord(Level.INFO, "infoMessage"));
+        handler.close();
+        Assert.assertEquals("", systemOutRule.getLog());
+    }
+
+    @Test
+    public void largeRecordTest() {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 100000; i++)
+            message.append((char) ('a' + i % 26));
+
+        OneLineConsoleHandler handler = new OneLineConsoleHandler(60000);
+        handler.publish(new LogRecord(Level.INFO, "short"));
+        handler.publish(new LogRecord(Level.INFO, message.toString()));
+        handler.close();
+        Assert.assertEquals("[INFO] short\r\n[INFO] " + message + "\r\n", systemOutRule.getLog());
+    }
+
+    @Test
+    public void formatterMatchesHandlerOutputTest() {
+        LogRecord record = new LogRecord(Level.INFO, "withException");
+        record.setThrown(new IllegalStateException("test exception"));
+
+        OneLineConsoleHandler handler = new OneLineConsoleHandler(60000);
+        handler.publish(record);
+        handler.close();
+
+        String expected = new OneLineFormatter().format(record);
+        Assert.assertTrue(expected.contains("IllegalStateException: test exception"));
+        Assert.assertEquals(expected, systemOutRule.getLog());
+    }
+}
@@ -21,8 +21,19 @@ package com.github.vatbub.common.core;
  */
 
 
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+
 public class PrefsTest  extends CoreBaseTestClass{
 	@Test
 	public void readPrefOnCleanEnvironment(){
@@ -73,4 +84,81 @@ public class PrefsTest  extends CoreBaseTestClass{
 		
 		assert prefRead1.equals(testValue);
 	}
+
+	@Test
+	public void changeListenerTest() {
+		Common.getInstance().setAppName(DEFAULT_APP_NAME);
+		int randomNumber = (int) (Math.random()*1000000000);
+		Prefs prefs = new Prefs(PrefsTest.class.getName() + randomNumber);
+		List<PrefsChangeEvent> events = new CopyOnWriteArrayList<>();
+		prefs.addChangeListener(events::add);
+
+		prefs.setPreference("listenedPreference", "value1");
+		prefs.setPreference("listenedPreference", "value1");
+		prefs.setPreference("listenedPreference", "value2");
+
+		// setting the same value again is not a change
+		Assert.assertEquals(2, events.size());
+		Assert.assertNull(events.get(0).getOldValue("listenedPreference"));
+		Assert.assertEquals("value1", events.get(1).getOldValue("listenedPreference"));
+		Assert.assertEquals("value2", events.get(1).getNewValue("listenedPreference"));
+	}
+
+	@Test
+	public void keyedChangeListenerTest() throws InterruptedException {
+		Common.getInstance().setAppName(DEFAULT_APP_NAME);
+		int randomNumber = (int) (Math.random()*1000000000);
+		Prefs prefs = new Prefs(PrefsTest.class.getName() + randomNumber);
+		Prefs otherPrefs = new Prefs(PrefsTest.class.getName() + randomNumber);
+		List<PrefsChangeEvent> events = new CopyOnWriteArrayList<>();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		prefs.addChangeListener(events::add, executor, "interestingPreference");
+
+		prefs.setPreference("otherPreference", "value");
+		otherPrefs.setPreference("interestingPreference", "value");
+		otherPrefs.setPreference("anotherPreference", "value");
+		prefs.reload();
+
+		executor.shutdown();
+		Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		Assert.assertEquals(1, events.size());
+		Assert.assertEquals(Collections.singleton("interestingPreference"), events.get(0).getChangedKeys());
+		Assert.assertEquals("value", events.get(0).getNewValue("interestingPreference"));
+	}
+
+	@Test
+	public void writeBehindFlushTest() {
+		Common.getInstance().setAppName(DEFAULT_APP_NAME);
+		int randomNumber = (int) (Math.random()*1000000000);
+		Prefs prefs = new Prefs(PrefsTest.class.getName() + randomNumber);
+		prefs.enableWriteBehind(Duration.ofHours(1));
+		Assert.assertTrue(prefs.isWriteBehindEnabled());
+
+		prefs.setPreference("firstPreference", "first");
+		prefs.setPreference("secondPreference", "second");
+		// nothing was written yet
+		Assert.assertNull(new Prefs(PrefsTest.class.getName() + randomNumber).getPreference("firstPreference", null));
+
+		prefs.flush();
+		Prefs rereadPrefs = new Prefs(PrefsTest.class.getName() + randomNumber);
+		Assert.assertEquals("first", rereadPrefs.getPreference("firstPreference", null));
+		Assert.assertEquals("second", rereadPrefs.getPreference("secondPreference", null));
+
+		prefs.setPreference("thirdPreference", "third");
+		prefs.disableWriteBehind();
+		Assert.assertFalse(prefs.isWriteBehindEnabled());
+		Assert.assertEquals("third", new Prefs(PrefsTest.class.getName() + randomNumber).getPreference("thirdPreference", null));
+	}
+
+	@Test
+	public void writeBehindWindowTest() {
+		Common.getInstance().setAppName(DEFAULT_APP_NAME);
+		int randomNumber = (int) (Math.random()*1000000000);
+		Prefs prefs = new Prefs(PrefsTest.class.getName() + randomNumber);
+		prefs.enableWriteBehind(Duration.ofMillis(50));
+		for (int i = 0; i < 10; i++)
+			prefs.setPreference("burstPreference", Integer.toString(i));
+
+		await().until(() -> "9".equals(new Prefs(PrefsTest.class.getName() + randomNumber).getPreference("burstPreference", null)));
+	}
 }
@@ -0,0 +1,186 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PropertiesPrefsBackendTest extends CoreBaseTestClass {
+    private File file;
+
+    @Before
+    public void setUp() {
+        Common.getInstance().setAppName(DEFAULT_APP_NAME);
+        file = new File(Common.getInstance().getAndCreateAppDataPath(), "sharedPrefsTest" + PrefsFormat.PROPERTIES.getFileExtension());
+    }
+
+    private Properties readFile() throws IOException {
+        Properties res = new Properties();
+        try (FileReader fileReader = new FileReader(file)) {
+            res.load(fileReader);
+        }
+        return res;
+    }
+
+    @Test
+    public void concurrentWritersMergeTest() throws IOException {
+        PropertiesPrefsBackend process1 = new PropertiesPrefsBackend(file);
+        PropertiesPrefsBackend process2 = new PropertiesPrefsBackend(file);
+        process1.reload();
+        process2.reload();
+
+        process1.put("key1", "value1");
+        process2.put("key2", "value2");
+        process1.flush();
+        process2.flush();
+
+        Properties fileContents = readFile();
+        Assert.assertEquals("value1", fileContents.getProperty("key1"));
+        Assert.assertEquals("value2", fileContents.getProperty("key2"));
+        // process2 has seen the changes of process1 while merging
+        Assert.assertEquals("value1", process2.get("key1"));
+
+        process1.reload();
+        Assert.assertEquals("value2", process1.get("key2"));
+    }
+
+    @Test
+    public void localChangesWinTest() throws IOException {
+        PropertiesPrefsBackend process1 = new PropertiesPrefsBackend(file);
+        PropertiesPrefsBackend process2 = new PropertiesPrefsBackend(file);
+        process1.put("key", "value1");
+        process1.flush();
+
+        process2.put("key", "value2");
+        process2.reload();
+        Assert.assertEquals("value2", process2.get("key"));
+        process2.flush();
+        Assert.assertEquals("value2", readFile().getProperty("key"));
+    }
+
+    @Test
+    public void reloadOnlyParsesChangedFileTest() throws IOException {
+        PropertiesPrefsBackend process1 = new PropertiesPrefsBackend(file);
+        PropertiesPrefsBackend process2 = new PropertiesPrefsBackend(file);
+        process1.put("key", "value1");
+        process1.flush();
+
+        process2.reload();
+        Assert.assertEquals(1, process2.getParseCount());
+        process2.reload();
+        process2.reload();
+        Assert.assertEquals(1, process2.getParseCount());
+
+        // writing without external changes must not parse the file again
+        process2.put("key", "value2");
+        process2.flush();
+        process2.reload();
+        Assert.assertEquals(1, process2.getParseCount());
+
+        process1.reload();
+        Assert.assertEquals("value2", process1.get("key"));
+        Assert.assertEquals(1, process1.getParseCount());
+    }
+
+    @Test
+    public void concurrentThreadsTest() throws InterruptedException, IOException {
+        int writerCount = 4;
+        int keysPerWriter = 50;
+        Thread[] threads = new Thread[writerCount];
+        for (int i = 0; i < writerCount; i++) {
+            final int index = i;
+            threads[i] = new Thread(() -> {
+                PropertiesPrefsBackend backend = new PropertiesPrefsBackend(file);
+                try {
+                    for (int j = 0; j < keysPerWriter; j++) {
+                        backend.put("key_" + index + "_" + j, "value" + j);
+                        backend.flush();
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        Properties fileContents = readFile();
+        Assert.assertEquals(writerCount * keysPerWriter, fileContents.size());
+    }
+
+    @Test
+    public void reportedChangesTest() throws IOException {
+        PropertiesPrefsBackend process1 = new PropertiesPrefsBackend(file);
+        PropertiesPrefsBackend process2 = new PropertiesPrefsBackend(file);
+        process1.put("key1", "value1");
+        process1.flush();
+        Assert.assertEquals(Collections.singletonMap("key1", null), process2.reload());
+        Assert.assertEquals(Collections.emptyMap(), process2.reload());
+
+        process1.put("key1", "value2");
+        process1.flush();
+        process2.put("key2", "value3");
+        // only the change of process1 is reported, the local change of key2 is not
+        Assert.assertEquals(Collections.singletonMap("key1", "value1"), process2.flush());
+        Assert.assertEquals(Collections.singletonMap("key2", null), process1.reload());
+    }
+
+    @Test
+    public void readWhileReloadingTest() throws IOException, InterruptedException {
+        PropertiesPrefsBackend writer = new PropertiesPrefsBackend(file);
+        PropertiesPrefsBackend reader = new PropertiesPrefsBackend(file);
+        writer.put("stableKey", "stableValue");
+        writer.flush();
+        reader.reload();
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger missingReads = new AtomicInteger();
+        Thread readingThread = new Thread(() -> {
+            while (!done.get()) {
+                if (reader.get("stableKey") == null)
+                    missingReads.incrementAndGet();
+            }
+        });
+        readingThread.start();
+        try {
+            for (int i = 0; i < 200; i++) {
+                writer.put("changingKey", "value" + i);
+                writer.flush();
+                reader.reload();
+            }
+        } finally {
+            done.set(true);
+            readingThread.join();
+        }
+        Assert.assertEquals(0, missingReads.get());
+        Assert.assertEquals("value199", reader.get("changingKey"));
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import com.github.vatbub.common.core.logging.RollingFileHandler;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.ErrorManager;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.zip.GZIPInputStream;
+
+import static org.awaitility.Awaitility.await;
+
+public class RollingFileHandlerTest {
+    private File logDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        logDirectory = Files.createTempDirectory("rollingFileHandlerTest").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(logDirectory);
+    }
+
+    private File[] listCompressedSegments() {
+        File[] res = logDirectory.listFiles((dir, name) -> name.endsWith(".xml.gz"));
+        Assert.assertNotNull(res);
+        return res;
+    }
+
+    @Test
+    public void sizeBasedRotationTest() throws IOException {
+        File activeFile = new File(logDirectory, "log.xml");
+        RollingFileHandler handler = new RollingFileHandler(activeFile.getPath(), 2048, 0, 0);
+        for (int i = 0; i < 100; i++) {
+            handler.publish(new LogRecord(Level.INFO, "message" + i));
+            handler.flush();
+        }
+        handler.close();
+
+        await().until(() -> listCompressedSegments().length > 0 && !new File(logDirectory, "log.1.xml").exists());
+        Assert.assertTrue(activeFile.exists());
+        Assert.assertTrue(activeFile.length() < 2 * 2048);
+        Assert.assertTrue(StringCommon.fromFile(activeFile).trim().endsWith("</log>"));
+
+        try (InputStream in = new GZIPInputStream(new FileInputStream(new File(logDirectory, "log.1.xml.gz")))) {
+            String firstSegment = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            Assert.assertTrue(firstSegment.contains("message0"));
+            Assert.assertTrue(firstSegment.trim().endsWith("</log>"));
+        }
+    }
+
+    @Test
+    public void timeBasedRotationTest() throws IOException, InterruptedException {
+        File activeFile = new File(logDirectory, "log.xml");
+        RollingFileHandler handler = new RollingFileHandler(activeFile.getPath(), 0, 50, 0);
+        handler.publish(new LogRecord(Level.INFO, "first"));
+        Thread.sleep(100);
+        handler.publish(new LogRecord(Level.INFO, "second"));
+        handler.close();
+
+        await().until(() -> listCompressedSegments().length == 1);
+    }
+
+    @Test
+    public void pruneTest() throws IOException {
+        File activeFile = new File(logDirectory, "log.xml");
+        RollingFileHandler handler = new RollingFileHandler(activeFile.getPath(), 0, 0, 1);
+        for (int i = 0; i < 5; i++) {
+            handler.publish(new LogRecord(Level.INFO, "message" + i));
+            handler.rotate();
+        }
+        handler.close();
+
+        // every segment is larger than one byte, so all of them are pruned eventually
+        await().until(() -> listCompressedSegments().length == 0 && Arrays.stream(logDirectory.list()).allMatch(name -> name.equals("log.xml")));
+    }
+
+    @Test
+    public void noSegmentLostWhileCompressingTest() throws IOException {
+        File activeFile = new File(logDirectory, "log.xml");
+        RollingFileHandler handler = new RollingFileHandler(activeFile.getPath(), 0, 0, 16 * 1024);
+        List<String> errors = new CopyOnWriteArrayList<>();
+        handler.setErrorManager(new ErrorManager() {
+            @Override
+            public synchronized void error(String msg, Exception ex, int code) {
+                errors.add(msg);
+            }
+        });
+        // random content does not compress well, so only a few segments fit into the limit
+        Random random = new Random(42);
+        StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < 4096; i++)
+            payload.append((char) ('a' + random.nextInt(26)));
+        int segmentCount = 50;
+        // rotates much faster than the segments can be compressed
+        for (int i = 1; i <= segmentCount; i++) {
+            handler.publish(new LogRecord(Level.INFO, "segment" + i + payload));
+            handler.rotate();
+        }
+        handler.close();
+
+        await().until(() -> Arrays.stream(logDirectory.list()).noneMatch(name -> name.matches("log\\.\\d+\\.xml(\\.gz\\.tmp)?")));
+        Assert.assertEquals(Collections.emptyList(), errors);
+
+        // the newest segments are kept without gaps
+        int oldestSegment = segmentCount;
+        while (new File(logDirectory, "log." + (oldestSegment - 1) + ".xml.gz").exists())
+            oldestSegment--;
+        Assert.assertEquals(segmentCount - oldestSegment + 1, listCompressedSegments().length);
+        Assert.assertTrue(oldestSegment < segmentCount);
+    }
+}
@@ -26,6 +26,10 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 public class SingletonMapTest extends CoreBaseTestClass {
@@ -79,6 +83,78 @@ public class SingletonMapTest extends CoreBaseTestClass {
         }
     }
 
+    @Test
+    public void concurrentGetInstanceTest() throws InterruptedException {
+        SlowTestClass.constructorCalls.set(0);
+        int threadCount = 8;
+        Set<Object> instances = ConcurrentHashMap.newKeySet();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                    instances.add(SingletonMap.getInstance(SlowTestClass.class));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (InstantiationException | IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            threads[i].start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        Assert.assertEquals(1, instances.size());
+        Assert.assertEquals(1, SlowTestClass.constructorCalls.get());
+    }
+
+    @Test(expected = InstantiationException.class)
+    public void abstractClassTest() throws InstantiationException, IllegalAccessException {
+        SingletonMap.getInstance(AbstractTestClass.class);
+    }
+
+    @Test(expected = InstantiationException.class)
+    public void noNullaryConstructorTest() throws InstantiationException, IllegalAccessException {
+        SingletonMap.getInstance(NoNullaryConstructorTestClass.class);
+    }
+
+    @Test
+    public void failingConstructorTest() throws InstantiationException, IllegalAccessException {
+        try {
+            SingletonMap.getInstance(FailingTestClass.class);
+            Assert.fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            FOKLogger.log(SingletonMapTest.class.getName(), Level.INFO, "Expected exception occurred", e);
+        }
+        Assert.assertFalse(SingletonMap.isInstantiated(FailingTestClass.class));
+    }
+
+    public static class SlowTestClass {
+        private static final AtomicInteger constructorCalls = new AtomicInteger();
+
+        public SlowTestClass() throws InterruptedException {
+            constructorCalls.incrementAndGet();
+            Thread.sleep(50);
+        }
+    }
+
+    public abstract static class AbstractTestClass {
+    }
+
+    public static class NoNullaryConstructorTestClass {
+        public NoNullaryConstructorTestClass(@SuppressWarnings("unused") String parameter) {
+        }
+    }
+
+    public static class FailingTestClass {
+        public FailingTestClass() {
+            throw new IllegalStateException("Constructor failed");
+        }
+    }
+
     private static class TestDummyClass {
         private static int callCount = 0;
 
@@ -0,0 +1,161 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingletonScopeTest extends CoreBaseTestClass {
+    @Test
+    public void supplierRegistrationTest() throws InstantiationException, IllegalAccessException {
+        SingletonScope scope = new SingletonScope();
+        AtomicInteger supplierCalls = new AtomicInteger();
+        scope.register(Service.class, () -> new Service("supplied" + supplierCalls.incrementAndGet()));
+
+        Assert.assertFalse(scope.isInstantiated(Service.class));
+        Service instance = scope.getInstance(Service.class);
+        Assert.assertEquals("supplied1", instance.name);
+        Assert.assertSame(instance, scope.getInstance(Service.class));
+        Assert.assertTrue(scope.isInstantiated(Service.class));
+
+        scope.resetInstance(Service.class);
+        Assert.assertEquals("supplied2", scope.getInstance(Service.class).name);
+    }
+
+    @Test
+    public void childScopeTest() throws InstantiationException, IllegalAccessException {
+        SingletonScope parent = new SingletonScope();
+        parent.register(Service.class, () -> new Service("parent"));
+        SingletonScope child = parent.createChildScope();
+        Assert.assertSame(parent, child.getParent());
+
+        // the instance of the parent is shared
+        Service parentInstance = child.getInstance(Service.class);
+        Assert.assertSame(parentInstance, parent.getInstance(Service.class));
+
+        // a registration in the child overrides the parent only for the child
+        child.register(Service.class, () -> new Service("child"));
+        Assert.assertEquals("child", child.getInstance(Service.class).name);
+        Assert.assertSame(parentInstance, parent.getInstance(Service.class));
+
+        // unregistered classes belong to the root scope
+        Assert.assertSame(parent.getInstance(DefaultService.class), child.getInstance(DefaultService.class));
+        Assert.assertSame(parent.getInstance(DefaultService.class), child.createChildScope().getInstance(DefaultService.class));
+    }
+
+    @Test
+    public void childScopeSeesChangesOfParentTest() throws InstantiationException, IllegalAccessException {
+        SingletonScope parent = new SingletonScope();
+        AtomicInteger supplierCalls = new AtomicInteger();
+        parent.register(Service.class, () -> new Service("parent" + supplierCalls.incrementAndGet()));
+        SingletonScope child = parent.createChildScope();
+        Service firstInstance = child.getInstance(Service.class);
+        Assert.assertSame(firstInstance, child.getInstance(Service.class));
+
+        parent.resetInstance(Service.class);
+        Service secondInstance = child.getInstance(Service.class);
+        Assert.assertEquals("parent2", secondInstance.name);
+        Assert.assertSame(secondInstance, parent.getInstance(Service.class));
+
+        parent.register(Service.class, () -> new Service("replaced"));
+        Assert.assertEquals("replaced", child.getInstance(Service.class).name);
+
+        DefaultService defaultInstance = child.getInstance(DefaultService.class);
+        parent.reset();
+        Assert.assertNotSame(defaultInstance, child.getInstance(DefaultService.class));
+        Assert.assertSame(parent.getInstance(DefaultService.class), child.getInstance(DefaultService.class));
+    }
+
+    @Test
+    public void perScopeRegistrationTest() throws InstantiationException, IllegalAccessException {
+        SingletonScope parent = new SingletonScope();
+        AtomicInteger supplierCalls = new AtomicInteger();
+        parent.registerPerScope(Service.class, () -> new Service("tenant" + supplierCalls.incrementAndGet()));
+        SingletonScope tenant1 = parent.createChildScope();
+        SingletonScope tenant2 = parent.createChildScope();
+
+        Service instance1 = tenant1.getInstance(Service.class);
+        Service instance2 = tenant2.getInstance(Service.class);
+        Assert.assertNotSame(instance1, instance2);
+        Assert.assertSame(instance1, tenant1.getInstance(Service.class));
+        Assert.assertFalse(parent.isInstantiated(Service.class));
+        Assert.assertEquals(2, supplierCalls.get());
+    }
+
+    @Test
+    public void globalScopeTest() throws InstantiationException, IllegalAccessException {
+        SingletonMap.register(RegisteredGlobalService.class, () -> new RegisteredGlobalService("global"));
+        Assert.assertEquals("global", SingletonMap.getInstance(RegisteredGlobalService.class).name);
+
+        SingletonScope testScope = SingletonMap.createScope();
+        testScope.register(RegisteredGlobalService.class, () -> new RegisteredGlobalService("mock"));
+        Assert.assertEquals("mock", testScope.getInstance(RegisteredGlobalService.class).name);
+        Assert.assertEquals("global", SingletonMap.getInstance(RegisteredGlobalService.class).name);
+        Assert.assertSame(SingletonMap.getGlobalScope(), testScope.getParent());
+    }
+
+    @Test
+    public void prewarmTest() {
+        SingletonScope scope = new SingletonScope();
+        scope.register(Service.class, () -> new Service("prewarmed"));
+        CompletableFuture<Void> future = scope.prewarm(Service.class, DefaultService.class);
+        future.join();
+        Assert.assertTrue(scope.isInstantiated(Service.class));
+        Assert.assertTrue(scope.isInstantiated(DefaultService.class));
+    }
+
+    @Test
+    public void failingPrewarmTest() {
+        SingletonScope scope = new SingletonScope();
+        scope.register(Service.class, () -> {
+            throw new IllegalStateException("Supplier failed");
+        });
+        try {
+            scope.prewarm(Runnable::run, Service.class, DefaultService.class).join();
+            Assert.fail("CompletionException expected");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertFalse(scope.isInstantiated(Service.class));
+        Assert.assertTrue(scope.isInstantiated(DefaultService.class));
+    }
+
+    public static class Service {
+        final String name;
+
+        public Service(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class RegisteredGlobalService extends Service {
+        public RegisteredGlobalService(String name) {
+            super(name);
+        }
+    }
+
+    public static class DefaultService {
+    }
+}
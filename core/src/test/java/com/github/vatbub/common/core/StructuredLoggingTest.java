@@ -0,0 +1,117 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import com.github.vatbub.common.core.logging.*;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class StructuredLoggingTest extends CoreBaseTestClass {
+    @After
+    public void clearContext() {
+        LogContext.clear();
+    }
+
+    @Test
+    public void fieldsTest() {
+        LogFields fields = LogFields.create().add("count", 42).add("ratio", 0.5).add("name", "value");
+        Assert.assertEquals(3, fields.size());
+        Assert.assertEquals(LogFields.Type.LONG, fields.getType(0));
+        Assert.assertEquals(42, fields.getLong(0));
+        Assert.assertEquals(0.5, fields.getDouble(1), 0);
+        Assert.assertEquals("value", fields.getString(fields.indexOf("name")));
+        Assert.assertEquals(-1, fields.indexOf("doesNotExist"));
+        Assert.assertEquals("{count=42, ratio=0.5, name=value}", fields.toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void wrongTypeTest() {
+        LogFields.create().add("count", 42).getString(0);
+    }
+
+    @Test
+    public void contextIsCopiedOnWriteTest() {
+        LogContext.put("requestId", "first");
+        LogFields snapshot = LogContext.getFields();
+        LogContext.put("requestId", "second");
+        LogContext.put("attempt", 2);
+
+        Assert.assertEquals(1, snapshot.size());
+        Assert.assertEquals("first", snapshot.getString(0));
+        LogFields current = LogContext.getFields();
+        Assert.assertEquals(2, current.size());
+        Assert.assertEquals("second", current.getString(current.indexOf("requestId")));
+
+        LogContext.remove("requestId");
+        Assert.assertEquals(-1, LogContext.getFields().indexOf("requestId"));
+        LogContext.clear();
+        Assert.assertTrue(LogContext.getFields().isEmpty());
+    }
+
+    @Test
+    public void oneLineFormatterTest() {
+        StructuredLogRecord record = new StructuredLogRecord(Level.INFO, "message", LogFields.create().add("durationMillis", 12));
+        Assert.assertEquals("[INFO] message {durationMillis=12}\r\n", new OneLineFormatter().format(record));
+    }
+
+    @Test
+    public void xmlFormatterTest() {
+        StructuredLogRecord record = new StructuredLogRecord(Level.INFO, "message", LogFields.create().add("name", "<&>").add("ratio", 0.25));
+        String xml = new StructuredXMLFormatter().format(record);
+        Assert.assertTrue(xml.contains("<field name=\"name\" type=\"string\">&lt;&amp;&gt;</field>"));
+        Assert.assertTrue(xml.contains("<field name=\"ratio\" type=\"double\">0.25</field>"));
+        Assert.assertTrue(xml.trim().endsWith("</record>"));
+
+        LogRecord plainRecord = new LogRecord(Level.INFO, "message");
+        Assert.assertFalse(new StructuredXMLFormatter().format(plainRecord).contains("<fields>"));
+    }
+
+    @Test
+    public void foKLoggerStructuredLoggingTest() throws IOException {
+        FOKLogger.resetAllLoggers();
+        Common.getInstance().setAppName(DEFAULT_APP_NAME);
+        LogContext.put("sessionId", "session42");
+        FOKLogger.info(StructuredLoggingTest.class.getName(), "structuredMessage", LogFields.create().add("durationMillis", 17));
+        FOKLogger.info(StructuredLoggingTest.class.getName(), "plainMessage");
+
+        String logFileContents = StringCommon.fromFile(new File(FOKLogger.getLogFilePathAndName()));
+        Assert.assertTrue(logFileContents.contains("<field name=\"durationMillis\" type=\"long\">17</field>"));
+        for (String record : logFileContents.split("<record>")) {
+            // the context is attached to plain messages too
+            if (record.contains("structuredMessage") || record.contains("plainMessage"))
+                Assert.assertTrue(record.contains("<field name=\"sessionId\" type=\"string\">session42</field>"));
+        }
+
+        List<LogRecord> tail = FOKLogger.getLogTail();
+        LogRecord plainRecord = tail.stream().filter(record -> "plainMessage".equals(record.getMessage())).findFirst().orElseThrow();
+        LogFields plainRecordFields = StructuredLogRecord.getFields(plainRecord);
+        Assert.assertNotNull(plainRecordFields);
+        Assert.assertEquals("session42", plainRecordFields.getString(plainRecordFields.indexOf("sessionId")));
+    }
+}
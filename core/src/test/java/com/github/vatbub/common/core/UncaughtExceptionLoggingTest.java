@@ -0,0 +1,120 @@
+package com.github.vatbub.common.core;
+
+/*-
+ * #%L
+ * FOKProjects Common Core
+ * %%
+ * Copyright (C) 2016 - 2020 Frederik Kammel
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.github.vatbub.common.core.logging.FOKLogger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.logging.LogRecord;
+import java.util.stream.Collectors;
+
+public class UncaughtExceptionLoggingTest extends CoreBaseTestClass {
+    @Before
+    public void setUp() {
+        FOKLogger.resetAllLoggers();
+        Common.getInstance().setAppName(DEFAULT_APP_NAME);
+        FOKLogger.enableLoggingOfUncaughtExceptions();
+    }
+
+    @After
+    public void tearDown() {
+        FOKLogger.disableLoggingOfUncaughtExceptions();
+        FOKLogger.enableUncaughtExceptionDeduplication();
+        FOKLogger.disableLogRateLimiting();
+    }
+
+    private static IllegalStateException createException(String message) {
+        return new IllegalStateException(message);
+    }
+
+    private static void throwUncaught(Throwable throwable) {
+        Thread.getDefaultUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), throwable);
+    }
+
+    private static List<LogRecord> recordsInTail(String exceptionMessage) {
+        return FOKLogger.getLogTail().stream()
+                .filter(record -> (record.getThrown() != null && exceptionMessage.equals(record.getThrown().getMessage()))
+                        || (record.getThrown() == null && record.getParameters() != null && record.getParameters().length == 4
+                        && record.getParameters()[1].toString().contains(exceptionMessage)))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void repeatedTracesArePrintedOnceTest() {
+        for (int i = 0; i < 5; i++)
+            throwUncaught(createException("repeatedUncaught"));
+
+        List<LogRecord> records = recordsInTail("repeatedUncaught");
+        Assert.assertEquals(5, records.size());
+        Assert.assertNotNull(records.get(0).getThrown());
+        Assert.assertEquals(UncaughtExceptionLoggingTest.class.getName(), records.get(0).getLoggerName());
+        for (int i = 1; i < records.size(); i++) {
+            Assert.assertNull(records.get(i).getThrown());
+            Assert.assertEquals(records.get(0).getParameters()[1], records.get(i).getParameters()[2]);
+            Assert.assertEquals((long) i + 1, records.get(i).getParameters()[3]);
+        }
+    }
+
+    @Test
+    public void differentTracesArePrintedSeparatelyTest() {
+        throwUncaught(createException("differentUncaught"));
+        throwUncaught(new IllegalStateException("differentUncaught"));
+        throwUncaught(new IllegalArgumentException("differentUncaught"));
+
+        List<LogRecord> records = recordsInTail("differentUncaught");
+        Assert.assertEquals(3, records.size());
+        for (LogRecord record : records)
+            Assert.assertNotNull(record.getThrown());
+    }
+
+    @Test
+    public void suppressedFullTraceIsPrintedLaterTest() {
+        FOKLogger.enableLogRateLimiting(1, 0.001, 60000);
+        throwUncaught(createException("firstSuppressedUncaught"));
+        for (int i = 0; i < 2; i++) {
+            // the first occurrence of this trace exceeds the burst and is suppressed
+            if (i == 1)
+                FOKLogger.disableLogRateLimiting();
+            throwUncaught(new IllegalStateException("suppressedUncaught"));
+        }
+
+        List<LogRecord> records = recordsInTail("suppressedUncaught");
+        Assert.assertEquals(1, records.size());
+        Assert.assertNotNull(records.get(0).getThrown());
+    }
+
+    @Test
+    public void deduplicationDisabledTest() {
+        FOKLogger.disableUncaughtExceptionDeduplication();
+        Assert.assertFalse(FOKLogger.isUncaughtExceptionDeduplicationEnabled());
+        for (int i = 0; i < 3; i++)
+            throwUncaught(createException("notDeduplicatedUncaught"));
+
+        List<LogRecord> records = recordsInTail("notDeduplicatedUncaught");
+        Assert.assertEquals(3, records.size());
+        for (LogRecord record : records)
+            Assert.assertNotNull(record.getThrown());
+    }
+}
@@ -61,17 +61,17 @@ public class UpdateChecker {
     private static final Thread deleteFileThread = new Thread() {
         @Override
         public void run() {
-            FOKLogger.info(UpdateChecker.class.getName(), "Attempting to delete file " + oldFile + " ...");
+            FOKLogger.info(UpdateChecker.class.getName(), "Attempting to delete file {0} ...", oldFile);
             do {
                 if (cancelUpdateCompletion) {
                     // cancel requested
-                    FOKLogger.info(UpdateChecker.class.getName(), "Update completion cancelled. The file " + oldFile + " was not deleted.");
+                    FOKLogger.info(UpdateChecker.class.getName(), "Update completion cancelled. The file {0} was not deleted.", oldFile);
                     break;
                 }
             } while (!new File(oldFile).delete());
 
             // If we arrive here, we successfully deleted the file
-            FOKLogger.info(UpdateChecker.class.getName(), "Successfully deleted file " + oldFile);
+            FOKLogger.info(UpdateChecker.class.getName(), "Successfully deleted file {0}", oldFile);
         }
     };
 
@@ -82,7 +82,7 @@ public class UpdateChecker {
      * @param ver The version to ignore
      */
     public static void ignoreUpdate(Version ver) {
-        FOKLogger.info(UpdateChecker.class.getName(), "User ignores all updates up to (and including) version " + ver.toString());
+        FOKLogger.info(UpdateChecker.class.getName(), "User ignores all updates up to (and including) version {0}", ver);
         updatePrefs.setPreference(latestSeenVersionPrefKey, ver.toString());
     }
 
@@ -151,14 +151,14 @@ public class UpdateChecker {
             if (res.toVersion.compareTo(savedVersion) > 0) {
                 // new update found
                 FOKLogger.info(UpdateChecker.class.getName(), "Update available!");
-                FOKLogger.info(UpdateChecker.class.getName(), "Version after update: " + res.toVersion.toString());
-                FOKLogger.info(UpdateChecker.class.getName(), "Filesize:             " + res.fileSizeInMB + "MB");
+                FOKLogger.info(UpdateChecker.class.getName(), "Version after update: {0}", res.toVersion);
+                FOKLogger.info(UpdateChecker.class.getName(), "Filesize:             {0}MB", String.valueOf(res.fileSizeInMB));
                 res.showAlert = true;
             } else if (res.toVersion.compareTo(currentVersion) > 0) {
                 // found update that is ignored
                 FOKLogger.info(UpdateChecker.class.getName(), "Update available (Update was ignored by the user)!");
-                FOKLogger.info(UpdateChecker.class.getName(), "Version after update: " + res.toVersion.toString());
-                FOKLogger.info(UpdateChecker.class.getName(), "Filesize:             " + res.fileSizeInMB + "MB");
+                FOKLogger.info(UpdateChecker.class.getName(), "Version after update: {0}", res.toVersion);
+                FOKLogger.info(UpdateChecker.class.getName(), "Filesize:             {0}MB", String.valueOf(res.fileSizeInMB));
             } else {
                 FOKLogger.info(UpdateChecker.class.getName(), "No update found.");
             }
@@ -222,8 +222,8 @@ public class UpdateChecker {
                 // new update found
                 updatePrefs.setPreference(latestSeenVersionPrefKey, res.toVersion.toString());
                 FOKLogger.info(UpdateChecker.class.getName(), "Update available!");
-                FOKLogger.info(UpdateChecker.class.getName(), "Version after update: " + res.toVersion.toString());
-                FOKLogger.info(UpdateChecker.class.getName(), "Filesize:             " + res.fileSizeInMB + "MB");
+                FOKLogger.info(UpdateChecker.class.getName(), "Version after update: {0}", res.toVersion);
+                FOKLogger.info(UpdateChecker.class.getName(), "Filesize:             {0}MB", String.valueOf(res.fileSizeInMB));
                 res.showAlert = true;
             } else {
                 FOKLogger.info(UpdateChecker.class.getName(), "No update found.");
@@ -587,8 +587,8 @@ public class UpdateChecker {
             gui.downloadStarted();
         }
 
-        FOKLogger.info(UpdateChecker.class.getName(), "Downloading artifact from " + artifactURL.toString() + "...");
-        FOKLogger.info(UpdateChecker.class.getName(), "Downloading to: " + outputFile.getAbsolutePath());
+        FOKLogger.info(UpdateChecker.class.getName(), "Downloading artifact from {0}...", artifactURL);
+        FOKLogger.info(UpdateChecker.class.getName(), "Downloading to: {0}", outputFile.getAbsolutePath());
         // FileUtils.copyURLToFile(artifactURL, outputFile);
 
         try {
@@ -674,7 +674,7 @@ public class UpdateChecker {
             String decodedPath = Common.getInstance().getPathAndNameOfCurrentJar();
 
             if (deleteOldVersion) {
-                FOKLogger.info(UpdateChecker.class.getName(), "The following file will be deleted once the update completes: " + decodedPath);
+                FOKLogger.info(UpdateChecker.class.getName(), "The following file will be deleted once the update completes: {0}", decodedPath);
                 startupArgs.add("deleteFile=" + decodedPath);
             }
 
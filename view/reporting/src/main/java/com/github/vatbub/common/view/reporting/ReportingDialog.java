@@ -59,6 +59,7 @@ import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.ResourceBundle;
 import java.util.logging.Level;
@@ -73,6 +74,10 @@ import java.util.logging.Level;
 @SuppressWarnings({"SameParameterValue", "ConstantConditions"})
 public class ReportingDialog {
     private static final String s3BucketName = "vatbubissuelogs2";
+    /**
+     * The maximum size of the log excerpt that is uploaded with an issue
+     */
+    private static final long maxUploadedLogBytes = 256 * 1024;
     private static final ResourceBundle bundle = ResourceBundle.getBundle("com.github.vatbub.common.view.reporting.ReportingDialog");
     /**
      * The color in which a required text box appears in case it is not filled in
@@ -398,7 +403,16 @@ public class ReportingDialog {
                 // upload the logs to aws
                 Platform.runLater(() -> ReportingDialogUploadProgress.getStatusLabel().setText(bundle.getString("uploadingLogs")));
 
-                String awsFileName = Common.getInstance().getAppName() + "/logs/" + FOKLogger.getLogFileName();
+                // only upload the most recent records which are kept in memory, the whole log file may be huge
+                String logTail = FOKLogger.getLogTailAsText(maxUploadedLogBytes);
+                // e. g. file logging is disabled or waits for an app name
+                File logFile = new File(FOKLogger.getLogFilePathAndName());
+                boolean uploadLogTail = !logTail.isEmpty() || !logFile.isFile();
+                String awsFileName;
+                if (uploadLogTail)
+                    awsFileName = Common.getInstance().getAppName() + "/logs/log_" + Common.getInstance().getAppName() + "_" + Common.getInstance().getLaunchTimeStamp() + ".txt";
+                else
+                    awsFileName = Common.getInstance().getAppName() + "/logs/" + FOKLogger.getLogFileName();
                 gitHubIssue.setLogLocation(awsFileName);
 
                 // upload the logs to s3
@@ -411,8 +425,8 @@ public class ReportingDialog {
 
                 // Upload the log file
                 FOKLogger.info(ReportingDialog.class.getName(), "Uploading log file to aws: " + awsFileName);
-                s3Client.putObject(PutObjectRequest.builder().bucket(s3BucketName).key(awsFileName).build(),
-                        RequestBody.fromFile(new File(FOKLogger.getLogFilePathAndName())));
+                RequestBody logRequestBody = uploadLogTail ? RequestBody.fromString(logTail, StandardCharsets.UTF_8) : RequestBody.fromFile(logFile);
+                s3Client.putObject(PutObjectRequest.builder().bucket(s3BucketName).key(awsFileName).build(), logRequestBody);
                 FOKLogger.info(ReportingDialog.class.getName(), "Upload completed");
                 // FOKLogger.log(ReportingDialog.class.getName(), Level.SEVERE, "Caught AmazonServiceException which means that the request made it to S3, but was rejected with an error response", ase);
                 // FOKLogger.log(ReportingDialog.class.getName(), Level.SEVERE, "Caught an AmazonClientException, which means the client encountered an internal error while trying to communicate with S3, such as not being able to access the network.", ace);